@@ -4,13 +4,10 @@ import static org.assertj.core.api.Assertions.assertThat;
 
 import io.syndesis.qe.utils.HttpUtils;
 import io.syndesis.qe.utils.OpenShiftUtils;
-import io.syndesis.qe.utils.TestUtils;
-
-import java.io.IOException;
+import io.syndesis.qe.utils.PortForwardRegistry;
 
 import cucumber.api.java.en.Then;
 import io.fabric8.kubernetes.api.model.Endpoints;
-import io.fabric8.kubernetes.client.LocalPortForward;
 
 public class OperatorMetricsEndpointSteps {
 
@@ -21,10 +18,11 @@ public class OperatorMetricsEndpointSteps {
     }
 
     @Then("verify whether operator metrics endpoint includes version information")
-    public void checkVersion() throws IOException {
-        try (LocalPortForward ignored = TestUtils.createLocalPortForward(
-            OpenShiftUtils.getPod(p -> p.getMetadata().getName().startsWith("syndesis-operator")), 8383, 8383)) {
-            assertThat(HttpUtils.doGetRequest("http://localhost:8383/metrics").getBody()).contains("syndesis_version_info{operator_version");
+    public void checkVersion() {
+        try (PortForwardRegistry.Lease lpf = PortForwardRegistry.forPod(
+            OpenShiftUtils.getPod(p -> p.getMetadata().getName().startsWith("syndesis-operator")), 8383)) {
+            assertThat(HttpUtils.doGetRequest(lpf.getLocalUrl("http") + "/metrics").getBody())
+                .contains("syndesis_version_info{operator_version");
         }
     }
 }
@@ -75,3 +75,23 @@ Feature: Integration - File transfer
     Then wait for integration with name: "FTP to FTP rest test" to become active
     When put "test-ftp.txt" file with content "Hello FTP" in the directory: "/download" using FTP
     Then validate that file "test-ftp.txt" has been transfered from "/download" to "/upload" directory using FTP
+
+  @integration-ftp-ftp-large-directory
+  @ftp
+  Scenario: FTP to FTP with many files in the polled directory
+    Given deploy FTP server
+    And delete file "/download/test-ftp-large.txt" from FTP
+    And delete file "/upload/test-ftp-large.txt" from FTP
+    And put 200 files with prefix "not-matching-" and content "Not for the integration" in the directory: "/download" using FTP
+    When create FTP connection
+    And create FTP "download" action with values
+      | fileName           | directoryName | initialDelay | delay | delete |
+      | test-ftp-large.txt | download      | 1000         | 500   | true   |
+    And create FTP "upload" action with values
+      | fileName           | directoryName | fileExist | tempPrefix    | tempFileName        |
+      | test-ftp-large.txt | upload        | Override  | copyingprefix | copying_test_out    |
+    When create integration with name: "FTP to FTP large directory rest test"
+    Then wait for integration with name: "FTP to FTP large directory rest test" to become active
+    When put "test-ftp-large.txt" file with content "Hello FTP" in the directory: "/download" using FTP
+    Then validate that file "test-ftp-large.txt" has been transfered from "/download" to "/upload" directory using FTP
+    And check that "test-ftp-large.txt" file in "/upload" directory has content "Hello FTP" using FTP
@@ -4,15 +4,13 @@ import io.syndesis.qe.TestConfiguration;
 import io.syndesis.qe.reports.selectors.SelectorUsageInfo;
 import io.syndesis.qe.reports.selectors.SelectorUsageReporter;
 
-import org.apache.commons.io.FileUtils;
 import org.openqa.selenium.By;
+import org.openqa.selenium.OutputType;
 import org.openqa.selenium.SearchContext;
+import org.openqa.selenium.TakesScreenshot;
 import org.openqa.selenium.WebElement;
-import org.openqa.selenium.support.ui.ExpectedConditions;
-import org.openqa.selenium.support.ui.WebDriverWait;
 
 import com.codeborne.selenide.Driver;
-import com.codeborne.selenide.Screenshots;
 import com.codeborne.selenide.Selenide;
 import com.codeborne.selenide.WebDriverRunner;
 import com.codeborne.selenide.impl.WebElementSelector;
@@ -20,12 +18,20 @@ import com.google.common.collect.Sets;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.time.Instant;
+import java.util.Arrays;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -40,8 +46,14 @@ public class SelectorSnooper {
     private static final Path SCREEN_SHOT_FOLDER = Paths.get("target/cucumber/screenshots");
     private static String scenarioName;
     private static Set<By> currentSelectors = new HashSet<>();
+    // selectors that were already checked and not reported, they don't need to be checked again
+    private static Set<By> checkedSelectors = new HashSet<>();
     private static SelectorUsageReporter reporter = new SelectorUsageReporter();
     private static boolean pauseReporting = false;
+    // scenario -> time spent by reporting the selectors in nanoseconds
+    private static Map<String, Long> overhead = new LinkedHashMap<>();
+    // Writes the screenshots to disk, so that the test thread only waits for taking them
+    private static ThreadPoolExecutor screenshotWriter;
 
     @Before
     public static void before(Scenario scenario) {
@@ -63,6 +75,12 @@ public class SelectorSnooper {
         if (TestConfiguration.snoopSelectors()) {
             log.info("Overriding WebElementSelector to report selectors");
             WebElementSelector.instance = new WebElementSelectorDetector();
+            screenshotWriter = new ThreadPoolExecutor(1, 1, 30L, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), r -> {
+                Thread t = new Thread(r, "selector-screenshot-writer");
+                t.setDaemon(true);
+                return t;
+            });
+            screenshotWriter.allowCoreThreadTimeOut(true);
             log.info("Creating folder {} for storing screenshots", SCREEN_SHOT_FOLDER.toAbsolutePath());
             try {
                 File folder = new File(SCREEN_SHOT_FOLDER.toUri());
@@ -78,64 +96,96 @@ public class SelectorSnooper {
      */
     public static void finish() {
         if (TestConfiguration.snoopSelectors()) {
+            screenshotWriter.shutdown();
+            try {
+                if (!screenshotWriter.awaitTermination(1L, TimeUnit.MINUTES)) {
+                    log.warn("Not all selector screenshots were written, {} are still queued", screenshotWriter.getQueue().size());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
             log.info("Generating selector reports");
+            reporter.setOverhead(overhead);
             reporter.generateReports();
-            log.info("Logging selectors took {} ms from total test run", WebElementSelectorDetector.delta);
+            log.info("Logging selectors took {} ms from total test run",
+                TimeUnit.NANOSECONDS.toMillis(overhead.values().stream().mapToLong(Long::longValue).sum()));
         }
     }
 
     /**
-     * Highlights WebElement in the webpage and takes a screenshot
-     * uses JS alerts to let Selenide know that the Javascript is done
+     * Highlights WebElement in the webpage and takes a screenshot, the screenshot is written to the disk in the background.
+     * The scripts are executed synchronously by the driver, so there is no need to wait for the style changes.
      *
      * @param el element to highlight
      * @return path to the generated screenshot
      */
     private static String highlightElement(WebElement el) {
-        String originalBorder = Selenide.executeJavaScript("arguments[0].style.border", el);
-        WebDriverWait wait = new WebDriverWait(WebDriverRunner.getWebDriver(), 3);
-        Selenide.executeJavaScript("arguments[0].style.border=\"2px solid red\"", el);
-        wait.until(ExpectedConditions.attributeContains(el, "style", "2px solid red"));
-        File tmpImage = Screenshots.takeScreenShotAsFile();
-        String fileName = Instant.now().toString() + ".png";
-        String path = SCREEN_SHOT_FOLDER.resolve(fileName).toString();
+        String originalBorder =
+            Selenide.executeJavaScript("var b = arguments[0].style.border; arguments[0].style.border=\"2px solid red\"; return b;", el);
+        byte[] image;
         try {
-            FileUtils.copyFile(tmpImage, FileUtils.getFile(path));
-        } catch (IOException e) {
-            e.printStackTrace();
+            image = ((TakesScreenshot) WebDriverRunner.getWebDriver()).getScreenshotAs(OutputType.BYTES);
+        } finally {
+            Selenide.executeJavaScript("arguments[0].style.border=arguments[1];", el, originalBorder);
         }
-        //There is no way to reliably wait for inline style removal/being changed, this is more reliable, although ugly when you look at it running
-        Selenide.executeJavaScript("arguments[0].style.border=arguments[1]; alert(\"I love javascript\");", el, originalBorder);
-        wait.until(ExpectedConditions.alertIsPresent());
-        Selenide.switchTo().alert().accept();
+        String fileName = Instant.now().toString() + ".png";
+        Path path = SCREEN_SHOT_FOLDER.resolve(fileName);
+        screenshotWriter.execute(() -> {
+            try {
+                Files.write(path, image);
+            } catch (IOException e) {
+                log.error("Unable to write screenshot {}", path, e);
+            }
+        });
         return fileName;
     }
 
+    /**
+     * Finds the first frame of the tests calling the selector. The stack is captured only for the selectors seen for the first time.
+     *
+     * @return call source of the selector
+     */
+    private static Optional<StackTraceElement> findCaller() {
+        return Arrays.stream(new Throwable().getStackTrace())
+            .filter(e -> e.getClassName().contains("io.syndesis.qe") && !e.getClassName().contains("SelectorSnooper"))
+            .findFirst();
+    }
+
     private static void reportWrongSelector(By selector, WebElement el) {
+        log.warn("Found selector which doesn't use data-testid {}", selector);
+        Optional<StackTraceElement> caller = findCaller();
+        if (caller.isPresent()) {
+            log.warn("This selector is called from {}", caller.get());
+            String imgPath = highlightElement(el);
+            SelectorUsageInfo info =
+                new SelectorUsageInfo(selector.toString(), WebDriverRunner.url(), Sets.newHashSet(scenarioName), caller.get().toString(),
+                    imgPath);
+            String dataTestId = el.getAttribute("data-testid");
+            if (dataTestId != null) {
+                info.setDataTestId(dataTestId);
+            }
+            reporter.report(info);
+        }
+    }
+
+    /**
+     * Checks the selector used to find the element, each selector is checked just once and only its usage in the scenario is
+     * recorded afterwards.
+     *
+     * @param selector selector
+     * @param el found element
+     */
+    private static void checkSelector(By selector, WebElement el) {
+        long start = System.nanoTime();
         //This causes the selector to be reported just once, but also to keep track of all the scenarios it is used in
         if (reporter.wasSelectorReported(selector)) {
             reporter.selectorIsUsedInScenario(selector, scenarioName);
-            return;
-        }
-        log.warn("Found selector which doesn't use data-testid {}", selector);
-        StackTraceElement[] stackTraceElements = Thread.currentThread().getStackTrace();
-
-        for (StackTraceElement stackTraceElement : stackTraceElements) {
-            //Find call source of the selector
-            if (stackTraceElement.getClassName().contains("io.syndesis.qe") && !stackTraceElement.getClassName().contains("SelectorSnooper")) {
-                log.warn("This selector is called from {}", stackTraceElement);
-                String imgPath = highlightElement(el);
-                SelectorUsageInfo info =
-                    new SelectorUsageInfo(selector.toString(), WebDriverRunner.url(), Sets.newHashSet(scenarioName), stackTraceElement.toString(),
-                        imgPath);
-                String dataTestId = Selenide.$(el).data("testid");
-                if (dataTestId != null) {
-                    info.setDataTestId(dataTestId);
-                }
-                reporter.report(info);
-                break;
-            }
+        } else if (checkedSelectors.add(selector) && (selector.getClass() != By.ByCssSelector.class
+            || usesForbiddenCssCharacters(selector.toString().replace("By.cssSelector: ", "")))) {
+            reportWrongSelector(selector, el);
         }
+        //Time tracking of the logging logic
+        overhead.merge(scenarioName, System.nanoTime() - start, Long::sum);
     }
 
     private static boolean usesForbiddenCssCharacters(String id) {
@@ -144,9 +194,6 @@ public class SelectorSnooper {
     }
 
     private static final class WebElementSelectorDetector extends WebElementSelector {
-
-        public static long delta = 0;
-
         @Override
         public List<WebElement> findElements(Driver driver, SearchContext context, By selector) {
             //Ignore all currently logged selectors, if this condition wasn't here everything would burn in recursive hell
@@ -156,18 +203,7 @@ public class SelectorSnooper {
             currentSelectors.add(selector);
             List<WebElement> elements = super.findElements(driver, context, selector);
             if (elements.size() > 0) {
-                long startTime = Instant.now().toEpochMilli();
-                WebElement el = elements.get(0);
-                if (selector.getClass() == By.ByCssSelector.class) {
-                    String type = selector.toString().replace("By.cssSelector: ", "");
-                    if (usesForbiddenCssCharacters(type)) {
-                        reportWrongSelector(selector, el);
-                    }
-                } else {
-                    reportWrongSelector(selector, el);
-                }
-                //Time tracking of the logging logic
-                delta += Instant.now().minusMillis(startTime).toEpochMilli();
+                checkSelector(selector, elements.get(0));
             }
             currentSelectors.remove(selector);
             return elements;
@@ -181,16 +217,7 @@ public class SelectorSnooper {
             currentSelectors.add(selector);
             WebElement el = super.findElement(driver, context, selector);
             if (el != null) {
-                long start = Instant.now().toEpochMilli();
-                if (selector.getClass() == By.ByCssSelector.class) {
-                    String type = selector.toString().replace("By.cssSelector: ", "");
-                    if (usesForbiddenCssCharacters(type)) {
-                        reportWrongSelector(selector, el);
-                    }
-                } else {
-                    reportWrongSelector(selector, el);
-                }
-                delta += Instant.now().minusMillis(start).toEpochMilli();
+                checkSelector(selector, el);
             }
             currentSelectors.remove(selector);
             return el;
@@ -8,21 +8,41 @@ import org.apache.velocity.runtime.resource.loader.ClasspathResourceLoader;
 import org.openqa.selenium.By;
 
 import com.google.common.base.Predicates;
-import com.google.common.collect.Lists;
 
-import java.io.FileWriter;
-import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
+import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 
 @Slf4j
 public class SelectorUsageReporter {
+    // One engine for all reports, it caches the parsed templates
+    private static final VelocityEngine ENGINE = new VelocityEngine();
+
+    static {
+        ENGINE.setProperty(RuntimeConstants.RESOURCE_LOADER, "classpath");
+        ENGINE.setProperty("classpath.resource.loader.class", ClasspathResourceLoader.class.getName());
+        ENGINE.setProperty("classpath.resource.loader.cache", "true");
+        ENGINE.init();
+    }
 
     private final Map<String, SelectorUsageInfo> reports;
+    // scenario -> time spent by reporting the selectors in nanoseconds
+    @Setter
+    private Map<String, Long> overhead = new HashMap<>();
 
     public SelectorUsageReporter() {
         reports = new HashMap<>();
@@ -42,50 +62,54 @@ public class SelectorUsageReporter {
     }
 
     /**
-     * Generates report
+     * Generates report, the template is rendered straight to the output file
      *
      * @param properties map of the <variables, values> to be used in the template
      * @param templatePath template source on classpath
      * @param outputPath output path of the generated template
      */
     protected void generateReport(Map<String, Object> properties, String templatePath, String outputPath) {
-        VelocityEngine engine = new VelocityEngine();
-        engine.setProperty(RuntimeConstants.RESOURCE_LOADER, "classpath");
-        engine.setProperty("classpath.resource.loader.class", ClasspathResourceLoader.class.getName());
-        engine.init();
-        Template template = engine.getTemplate(templatePath);
+        Template template = ENGINE.getTemplate(templatePath, StandardCharsets.UTF_8.name());
         properties.put("utils", new ReportUtils());
         VelocityContext context = new VelocityContext(properties);
-        StringWriter writer = new StringWriter();
-        template.merge(context, writer);
-        try (FileWriter file = new FileWriter(outputPath)) {
-            file.write(writer.toString());
+        try (Writer file = Files.newBufferedWriter(Paths.get(outputPath), StandardCharsets.UTF_8)) {
+            template.merge(context, file);
         } catch (Exception e) {
             log.error("Something went wrong while writing the report", e);
         }
     }
 
+    /**
+     * Generates all reports in parallel, the shared engine and the templates are thread-safe
+     */
     public void generateReports() {
-        reportSimple();
-        reportBasedOnURL();
-        reportDataTestIdSelectors();
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            CompletableFuture.allOf(
+                CompletableFuture.runAsync(this::reportSimple, executor),
+                CompletableFuture.runAsync(this::reportBasedOnURL, executor),
+                CompletableFuture.runAsync(this::reportDataTestIdSelectors, executor)
+            ).join();
+        } catch (CompletionException e) {
+            log.error("Something went wrong while generating the reports", e.getCause());
+        } finally {
+            executor.shutdown();
+        }
     }
 
     private void reportSimple() {
         Map<String, Object> reps = new HashMap<>();
         reps.put("reports", reports.values());
+        Map<String, Long> overheadMillis = new LinkedHashMap<>();
+        overhead.forEach((scenario, nanos) -> overheadMillis.put(scenario, TimeUnit.NANOSECONDS.toMillis(nanos)));
+        reps.put("overhead", overheadMillis);
         generateReport(reps, "/templates/selector_report_template.vm", "target/cucumber/selector_report.html");
     }
 
     private void reportBasedOnURL() {
-        Map<String, List<SelectorUsageInfo>> reportsByUrl = new HashMap<>();
-        reports.values().stream().filter(Predicates.not(SelectorUsageInfo::hasDataTestId)).forEach(selectorUsageInfo -> {
-            if (reportsByUrl.containsKey(selectorUsageInfo.url)) {
-                reportsByUrl.get(selectorUsageInfo.url).add(selectorUsageInfo);
-            } else {
-                reportsByUrl.put(selectorUsageInfo.url, Lists.newArrayList(selectorUsageInfo));
-            }
-        });
+        Map<String, List<SelectorUsageInfo>> reportsByUrl = reports.values().stream()
+            .filter(Predicates.not(SelectorUsageInfo::hasDataTestId))
+            .collect(Collectors.groupingBy(SelectorUsageInfo::getUrl));
         Map<String, Object> reps = new HashMap<>();
         reps.put("reports", reportsByUrl);
         generateReport(reps, "/templates/url_report_template.vm", "target/cucumber/url_report.html");
@@ -3,8 +3,7 @@ package io.syndesis.qe.steps.other;
 import io.syndesis.qe.accounts.Account;
 import io.syndesis.qe.accounts.AccountsDirectory;
 import io.syndesis.qe.resource.impl.MongoDb36;
-import io.syndesis.qe.utils.OpenShiftUtils;
-import io.syndesis.qe.utils.TestUtils;
+import io.syndesis.qe.utils.PortForwardRegistry;
 
 import org.assertj.core.api.Assertions;
 import org.awaitility.Awaitility;
@@ -18,7 +17,6 @@ import com.mongodb.client.model.CreateCollectionOptions;
 import com.mongodb.client.model.Filters;
 import com.mongodb.client.model.ValidationOptions;
 
-import java.io.IOException;
 import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
@@ -29,8 +27,6 @@ import cucumber.api.java.en.Given;
 import cucumber.api.java.en.Then;
 import cucumber.api.java.en.When;
 import io.cucumber.datatable.DataTable;
-import io.fabric8.kubernetes.api.model.Pod;
-import io.fabric8.kubernetes.client.LocalPortForward;
 import lombok.extern.slf4j.Slf4j;
 
 @Slf4j
@@ -39,7 +35,7 @@ public class MongoDBSteps {
     private MongoClient client;
     private Account mongoAccount;
     private MongoDatabase database;
-    private LocalPortForward portForward;
+    private PortForwardRegistry.Lease portForward;
 
     @Given("connect to MongoDB {string}")
     public void connectToMongoDB(String mongodDb) {
@@ -51,8 +47,9 @@ public class MongoDBSteps {
 
     private void createPortForward() {
         try {
-            Pod mongoPod = OpenShiftUtils.getInstance().getAnyPod("app", mongoAccount.getService());
-            portForward = TestUtils.createLocalPortForward(mongoPod, MongoDb36.MONGODB_PORT, MongoDb36.MONGODB_PORT);
+            // the connection url from the account uses the default port
+            portForward =
+                PortForwardRegistry.forPodWithLabel("app", mongoAccount.getService(), MongoDb36.MONGODB_PORT, MongoDb36.MONGODB_PORT);
         } catch (Exception e) {
             // we don't fail here because we might be running the port forward locally when debugging
             log.error("could not port forward, mongo connections probably won't work", e);
@@ -119,11 +116,7 @@ public class MongoDBSteps {
         }
         if (portForward != null) {
             log.info("closing mongodb port forward");
-            try {
-                portForward.close();
-            } catch (IOException e) {
-                log.error("Could not close port forward", e);
-            }
+            portForward.close();
         }
     }
 }
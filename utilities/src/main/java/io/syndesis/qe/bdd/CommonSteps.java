@@ -158,7 +158,7 @@ public class CommonSteps {
         waitUntilClusterIsReachable();
         TestUtils.withRetry(() -> {
             TestSupport.getInstance().resetDB();
-            return connectionsEndpoint.list().stream().anyMatch(s -> s.getName().equals("PostgresDB"));
+            return connectionsEndpoint.stream().anyMatch(s -> s.getName().equals("PostgresDB"));
         }, 10, 1000L, "Default PostgresDB connection has not been created");
     }
 
@@ -23,15 +23,21 @@ import org.springframework.stereotype.Component;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.datatype.jdk8.Jdk8Module;
+import com.google.common.hash.Hashing;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 import io.atlasmap.java.v2.JavaClass;
@@ -63,6 +69,13 @@ import lombok.extern.slf4j.Slf4j;
 @Slf4j
 @Component
 public class AtlasMapperGenerator {
+    // The mappers are thread-safe once configured, so they are shared instead of being created for each datashape
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final ObjectMapper JDK8_MAPPER = new ObjectMapper().registerModules(new Jdk8Module());
+    private static final ObjectReader JAVA_CLASS_READER = MAPPER.readerFor(JavaClass.class).with(DeserializationFeature.UNWRAP_ROOT_VALUE);
+    // sha-256 of the datashape kind and specification -> serialized inspection response, shared by all generated mappings in the run
+    private static final Map<String, byte[]> INSPECTION_CACHE = new ConcurrentHashMap<>();
+
     @Autowired
     private AtlasmapEndpoint atlasmapEndpoint;
 
@@ -108,37 +121,52 @@ public class AtlasMapperGenerator {
      * @return list of fields from given datashape
      */
     private List<Field> processDataShapeIntoFields(String dataShapeSpecification, DataShapeKinds dsKind) {
-        ObjectMapper mapper = new ObjectMapper();
-        mapper.enable(DeserializationFeature.UNWRAP_ROOT_VALUE);
         List<Field> fields = null;
 
-        if (dsKind.equals(DataShapeKinds.JAVA)) {
-            try {
-                JavaClass jClass = mapper.readValue(dataShapeSpecification, JavaClass.class);
+        try {
+            if (dsKind.equals(DataShapeKinds.JAVA)) {
+                JavaClass jClass = JAVA_CLASS_READER.readValue(dataShapeSpecification);
                 fields = getJavaFields(jClass).stream().map(this::replacePrimitiveWithObject).collect(Collectors.toList());
-            } catch (IOException e) {
-                log.error("error: ", e);
-            }
-        } else if (dsKind.equals(DataShapeKinds.JSON_SCHEMA) || dsKind.equals(DataShapeKinds.JSON_INSTANCE)) {
-            JsonInspectionResponse inspectionResponse = atlasmapEndpoint.inspectJson(dataShapeSpecification, dsKind);
-            try {
-                log.debug("Inspection API response: " + mapper.writeValueAsString(inspectionResponse));
-                fields = inspectionResponse.getJsonDocument().getFields().getField();
-            } catch (JsonProcessingException e) {
-                log.error("Unable to write inspection API response as string", e);
-            }
-        } else if (dsKind.equals(DataShapeKinds.XML_SCHEMA) || dsKind.equals(DataShapeKinds.XML_INSTANCE)) {
-            XmlInspectionResponse inspectionResponse = atlasmapEndpoint.inspectXml(dataShapeSpecification, dsKind);
-            try {
-                log.debug("Inspection API response: " + mapper.writeValueAsString(inspectionResponse));
-                fields = inspectionResponse.getXmlDocument().getFields().getField();
-            } catch (JsonProcessingException e) {
-                log.error("Unable to write inspection API response as string", e);
+            } else if (dsKind.equals(DataShapeKinds.JSON_SCHEMA) || dsKind.equals(DataShapeKinds.JSON_INSTANCE)) {
+                byte[] response =
+                    inspect(dataShapeSpecification, dsKind, () -> atlasmapEndpoint.inspectJson(dataShapeSpecification, dsKind));
+                fields = MAPPER.readValue(response, JsonInspectionResponse.class).getJsonDocument().getFields().getField();
+            } else if (dsKind.equals(DataShapeKinds.XML_SCHEMA) || dsKind.equals(DataShapeKinds.XML_INSTANCE)) {
+                byte[] response =
+                    inspect(dataShapeSpecification, dsKind, () -> atlasmapEndpoint.inspectXml(dataShapeSpecification, dsKind));
+                fields = MAPPER.readValue(response, XmlInspectionResponse.class).getXmlDocument().getFields().getField();
             }
+        } catch (IOException e) {
+            log.error("Unable to process " + dsKind + " datashape into fields", e);
         }
         return fields;
     }
 
+    /**
+     * Gets the inspection API response for the specification, the endpoint is called only if the same specification of the same kind
+     * wasn't inspected before. The response is cached serialized and the fields are deserialized for each caller, because the
+     * generated mappings modify them.
+     *
+     * @param specification datashape specification
+     * @param dsKind datashape kind
+     * @param inspection call of the inspection endpoint
+     * @return serialized inspection response
+     */
+    private byte[] inspect(String specification, DataShapeKinds dsKind, Supplier<Object> inspection) throws JsonProcessingException {
+        final String key = Hashing.sha256().hashString(dsKind + ":" + specification, StandardCharsets.UTF_8).toString();
+        byte[] response = INSPECTION_CACHE.get(key);
+        if (response == null) {
+            response = MAPPER.writeValueAsBytes(inspection.get());
+            INSPECTION_CACHE.put(key, response);
+            if (log.isDebugEnabled()) {
+                log.debug("Inspection API response: " + new String(response, StandardCharsets.UTF_8));
+            }
+        } else {
+            log.debug("Using cached inspection API response for {} datashape {}", dsKind, key);
+        }
+        return response;
+    }
+
     /**
      * Converts the className and canonicalClassName from primitives to object,
      * because otherwise it would fail at runtime with: class "int" not found on classpath.
@@ -257,11 +285,9 @@ public class AtlasMapperGenerator {
         atlasMapping.getDataSource().add(processTarget());
         atlasMapping.getMappings().getMapping().addAll(generateBaseMappings());
 
-        ObjectMapper mapper = new ObjectMapper();
-        mapper.enable(SerializationFeature.WRAP_ROOT_VALUE);
         String mapperString = null;
         try {
-            mapperString = mapper.writeValueAsString(atlasMapping);
+            mapperString = MAPPER.writer().with(SerializationFeature.WRAP_ROOT_VALUE).writeValueAsString(atlasMapping);
             log.debug(mapperString);
         } catch (JsonProcessingException e) {
             log.error("Unable to write mapper json as string", e);
@@ -500,18 +526,19 @@ public class AtlasMapperGenerator {
      * @return action with datashapes set
      */
     private Action getMapperStepAction(DataShape outputConnectorInputDataShape) {
-        ObjectMapper mapper = new ObjectMapper().registerModules(new Jdk8Module());
         Action ts = new StepAction.Builder().descriptor(new StepDescriptor.Builder().build()).build();
         try {
             DataShape inputDataShape = new DataShape.Builder().kind(DataShapeKinds.ANY).name("All preceding outputs").build();
-            JSONObject json = new JSONObject(mapper.writeValueAsString(ts));
-            JSONObject inputDataType = new JSONObject(mapper.writeValueAsString(inputDataShape));
-            JSONObject outputDataType = new JSONObject(mapper.writeValueAsString(outputConnectorInputDataShape));
+            JSONObject json = new JSONObject(JDK8_MAPPER.writeValueAsString(ts));
+            JSONObject inputDataType = new JSONObject(JDK8_MAPPER.writeValueAsString(inputDataShape));
+            JSONObject outputDataType = new JSONObject(JDK8_MAPPER.writeValueAsString(outputConnectorInputDataShape));
 
             json.getJSONObject("descriptor").put("inputDataShape", inputDataType);
             json.getJSONObject("descriptor").put("outputDataShape", outputDataType);
             ts = JsonUtils.reader().forType(Action.class).readValue(json.toString());
-            log.debug(mapper.writeValueAsString(ts));
+            if (log.isDebugEnabled()) {
+                log.debug(JDK8_MAPPER.writeValueAsString(ts));
+            }
         } catch (IOException ex) {
             log.error("Error: " + ex);
         }
@@ -30,8 +30,6 @@ public class BoxValidationSteps {
     @Autowired
     private BoxUtils boxUtils;
 
-    private DbUtils dbUtils = new DbUtils("postgresql");
-
     @Given("^remove all files from Box$")
     public void clearBox() {
         boxUtils.clearBox();
@@ -86,8 +84,10 @@ public class BoxValidationSteps {
 
     @Given("^insert box file ids to box id table$")
     public void insertIdsInTable() {
-        for (String fileId : BoxUtils.getFileIds()) {
-            dbUtils.executeSQLGetUpdateNumber("INSERT INTO BOX_IDS(id) VALUES(" + fileId + ")");
+        try (DbUtils dbUtils = new DbUtils("postgresql")) {
+            for (String fileId : BoxUtils.getFileIds()) {
+                dbUtils.executeSQLGetUpdateNumber("INSERT INTO BOX_IDS(id) VALUES(" + fileId + ")");
+            }
         }
     }
 }
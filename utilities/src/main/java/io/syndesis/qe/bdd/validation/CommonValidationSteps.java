@@ -100,11 +100,13 @@ public class CommonValidationSteps {
 
     @Then("verify that integration with name {string} exists")
     public void integrationExist(String integrationName) {
+        integrationsEndpoint.invalidateCache();
         assertThat(integrationsEndpoint.getIntegrationId(integrationName)).isPresent();
     }
 
     @Then("verify that integration with name {string} doesn't exist")
     public void integrationNotExist(String integrationName) {
+        integrationsEndpoint.invalidateCache();
         assertThatExceptionOfType(NoSuchElementException.class)
             .isThrownBy(() -> integrationsEndpoint.getIntegrationId(integrationName));
     }
@@ -1,20 +1,22 @@
 package io.syndesis.qe.bdd.validation;
 
 import static org.assertj.core.api.Assertions.assertThat;
-import static org.assertj.core.api.Assertions.fail;
 
+import io.syndesis.qe.utils.DbChangeTracker;
 import io.syndesis.qe.utils.DbUtils;
 import io.syndesis.qe.utils.TestUtils;
 import io.syndesis.qe.utils.dballoc.DBAllocatorClient;
+import io.syndesis.qe.wait.BackoffPoller;
 
 import org.apache.commons.lang.RandomStringUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 
-import java.sql.ResultSet;
-import java.sql.SQLException;
-import java.util.Iterator;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
 
 import cucumber.api.java.en.Given;
 import cucumber.api.java.en.Then;
@@ -32,12 +34,14 @@ import lombok.extern.slf4j.Slf4j;
 @Slf4j
 public class DbValidationSteps {
     private DbUtils dbUtils;
+    private DbChangeTracker changeTracker;
 
     @Autowired
     private DBAllocatorClient dbAllocatorClient;
 
     public DbValidationSteps() {
         dbUtils = new DbUtils("postgresql");
+        changeTracker = new DbChangeTracker(dbUtils);
     }
 
     @Given("^remove all records from table \"([^\"]*)\"$")
@@ -48,100 +52,79 @@ public class DbValidationSteps {
     @Then("^validate DB created new lead with first name: \"([^\"]*)\", last name: \"([^\"]*)\", email: \"([^\"]*)\"$")
     public void validateSfDbIntegration(String firstName, String lastName, String emailAddress) {
         final long start = System.currentTimeMillis();
-        // We wait for exactly 1 record to appear in DB.
-        TestUtils.waitFor(() -> dbUtils.getNumberOfRecordsInTable("todo") > 0,
-            5, 120,
-            "Lead record was not found in the table.");
+        // We wait for the record with the lead name to appear in DB.
+        final List<Map<String, Object>> leads = changeTracker.waitForRows("todo", taskContains(firstName + " " + lastName), 1);
 
         log.debug("Lead record appeared in DB. It took {}s to create contact.", TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis() - start));
         // Now we verify, the created lead contains the correct personal information.
-        assertThat(getLeadTaskFromDb(firstName + " " + lastName).toLowerCase()).contains(emailAddress);
+        assertThat(leads.get(0).get("task").toString().toLowerCase()).contains(emailAddress);
     }
 
     @Then("^validate SF on delete to DB created new task$")
     public void validateLead() {
         final long start = System.currentTimeMillis();
         // We wait for exactly 1 record to appear in DB.
-        TestUtils.waitFor(() -> dbUtils.getNumberOfRecordsInTable("todo") > 0,
-            5, 120,
-            "Lead record was not found in the table.");
+        final List<Map<String, Object>> leads = changeTracker.waitForRows("todo", row -> true, 1);
 
         log.debug("Lead record appeared in DB. It took {}s to create contact.", TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis() - start));
         // Now we verify, the created lead contains the correct information.
-        assertThat(getLeadTaskFromDb()).isNotEmpty();
+        assertThat((String) leads.get(0).get("task")).isNotEmpty();
     }
 
     @Then("^validate add_lead procedure with last_name: \"([^\"]*)\", company: \"([^\"]*)\"$")
     public void validateAddLeadProcedure(String lastName, String company) {
-        TestUtils.waitFor(() -> dbUtils.getNumberOfRecordsInTable("todo") > 0,
-            5, 120,
-            "Lead record was not found in the table.");
+        final List<Map<String, Object>> leads = changeTracker.waitForRows("todo", taskContains(lastName), 1);
 
-        assertThat(getLeadTaskFromDb(lastName).contains(company)).isTrue();
+        assertThat(leads.get(0).get("task").toString()).contains(company);
     }
 
     @When("^inserts into \"([^\"]*)\" table on \"([^\"]*)\"$")
     public void insertsIntoTable(String tableName, String dbType, DataTable data) {
-        dbUtils.setConnection(dbType);
+        switchDatabase(dbType);
         this.insertsIntoTable(tableName, data);
     }
 
     @When("^inserts into \"([^\"]*)\" table$")
     public void insertsIntoTable(String tableName, DataTable data) {
-        List<List<String>> dataTable = data.cells();
-
-        String sql;
-
-        Iterator it;
-        String next;
-        for (List<String> list : dataTable) {
-            switch (tableName.toUpperCase()) {
-                case "TODO":
-                    sql = "INSERT INTO TODO(task) VALUES('%s'";
-                    break;
-                case "TODO WITH ID":
-                    sql = "INSERT INTO TODO(id, task) VALUES('%s'";
-                    break;
-                case "CONTACT":
-                    sql = "INSERT INTO CONTACT(first_name, last_name, company, lead_source) VALUES('%s'";
-                    break;
-                default:
-                    throw new IllegalArgumentException("Unsupported table name " + tableName);
-            }
-            it = list.iterator();
-            while (it.hasNext()) {
-                next = (String) it.next();
-                if (it.hasNext()) {
-                    sql = String.format(sql, next) + ", '%s'";
-                } else {
-                    sql = String.format(sql, next) + ")";
-                }
-            }
-            log.debug("SQL query: *{}*", sql);
-            int newId = dbUtils.executeSQLGetUpdateNumber(sql);
-            //assert new row in database has been created:
-            assertThat(newId).isEqualTo(1);
+        final List<String> columns;
+        switch (tableName.toUpperCase()) {
+            case "TODO":
+                columns = Collections.singletonList("task");
+                break;
+            case "TODO WITH ID":
+                columns = Arrays.asList("id", "task");
+                break;
+            case "CONTACT":
+                columns = Arrays.asList("first_name", "last_name", "company", "lead_source");
+                break;
+            default:
+                throw new IllegalArgumentException("Unsupported table name " + tableName);
         }
+        final List<List<String>> rows = data.cells();
+        // All rows are inserted using one prepared statement in batches
+        final int inserted = dbUtils.insertBatch(tableName.toUpperCase().startsWith("TODO") ? "TODO" : "CONTACT", columns, rows);
+        //assert new rows in database have been created:
+        assertThat(inserted).isEqualTo(rows.size());
     }
 
     @Then("^validate that all todos with task \"([^\"]*)\" have value completed \"(\\w+)\", period in ms: \"(\\w+)\" on \"(\\w+)\"$")
     public void checksThatAllTodosHaveCompletedValDb(String task, Integer val, Integer ms, String dbType) {
-        dbUtils.setConnection(dbType);
+        switchDatabase(dbType);
         this.checksThatAllTodosHaveCompletedVal(task, val, ms);
     }
 
     @Then("^validate that all todos with task \"([^\"]*)\" have value completed \"(\\w+)\", period in ms: \"(\\w+)\"$")
     public void checksThatAllTodosHaveCompletedVal(String task, Integer val, Integer ms) {
-        TestUtils.sleepIgnoreInterrupt(ms);
-
-        String sql = String.format("SELECT completed FROM TODO WHERE task like '%s'", task);
-        ResultSet rs = dbUtils.executeSQLGetResultSet(sql);
-        try {
-            while (rs.next()) {
-                assertThat(rs.getInt("completed")).isEqualTo(val);
-            }
-        } catch (SQLException e) {
-            fail("Error while processing the result set", e);
+        // The period is the max time to wait for the todos to be updated
+        final BackoffPoller.PollResult<List<Map<String, Object>>> result = new BackoffPoller(TimeUnit.MILLISECONDS, ms)
+            .interval(TimeUnit.MILLISECONDS, Math.max(1, Math.min(500, ms)), Math.max(1, Math.min(5000, ms)))
+            .named("Todos with task " + task + " completed " + val)
+            .poll(() -> dbUtils.queryForRows("SELECT completed FROM TODO WHERE task LIKE ?", task),
+                rows -> !rows.isEmpty() && rows.stream().allMatch(row -> completedValue(row.get("completed")) == val));
+        // The integration may not have written the rows yet, so no rows after the whole period is a failure as well
+        assertThat(result.getLastValue()).as("Todos with task %s after %d ms", task, ms).isNotEmpty();
+        for (Map<String, Object> row : result.getLastValue()) {
+            assertThat(completedValue(row.get("completed"))).isEqualTo(val);
         }
     }
 
@@ -216,7 +199,9 @@ public class DbValidationSteps {
 
     @Given("^execute SQL command \"([^\"]*)\" on \"([^\"]*)\"$")
     public void executeSqlOnDriver(String sqlCmd, String driver) {
-        new DbUtils(driver).executeSQLGetUpdateNumber(sqlCmd);
+        try (DbUtils db = new DbUtils(driver)) {
+            db.executeSQLGetUpdateNumber(sqlCmd);
+        }
     }
 
     @Given("^clean \"([^\"]*)\" table$")
@@ -226,12 +211,16 @@ public class DbValidationSteps {
 
     @Given("^clean \"([^\"]*)\" table on \"([^\"]*)\"$")
     public void cleanDbTableOnDriver(String dbTable, String driver) {
-        new DbUtils(driver).deleteRecordsInTable(dbTable);
+        try (DbUtils db = new DbUtils(driver)) {
+            db.deleteRecordsInTable(dbTable);
+        }
     }
 
     @Given("^create standard table schema on \"([^\"]*)\" driver$")
     public void createStandardDBSchemaOn(String dbType) {
-        new DbUtils(dbType).createEmptyTableSchema();
+        try (DbUtils db = new DbUtils(dbType)) {
+            db.createEmptyTableSchema();
+        }
     }
 
     @Given("^allocate new \"([^\"]*)\" database for \"([^\"]*)\" connection$")
@@ -248,37 +237,21 @@ public class DbValidationSteps {
         dbAllocatorClient.free();
     }
 
-    /**
-     * Used for verification of successful creation of a new task in the todo app.
-     *
-     * @return lead task
-     */
-    private String getLeadTaskFromDb(String task) {
-        String leadTask = null;
-        log.info("***SELECT id, task, completed FROM TODO WHERE task LIKE '%" + task + "%'***");
-        try (ResultSet rs = dbUtils.executeSQLGetResultSet("SELECT id, task, completed FROM TODO WHERE task LIKE '%"
-            + task + "%'")) {
-            if (rs.next()) {
-                leadTask = rs.getString("task");
-                log.debug("task = " + leadTask);
-            }
-        } catch (SQLException ex) {
-            fail("Error: " + ex);
-        }
-        return leadTask;
-    }
-
-    private String getLeadTaskFromDb() {
-        String leadTask = null;
-        try (ResultSet rs = dbUtils.executeSQLGetResultSet("SELECT id, task, completed FROM TODO")) {
-            if (rs.next()) {
-                leadTask = rs.getString("task");
-                log.debug("task = " + leadTask);
-            }
-        } catch (SQLException ex) {
-            fail("Error: " + ex);
+    private static Predicate<Map<String, Object>> taskContains(String text) {
+        return row -> row.get("task") != null && row.get("task").toString().contains(text);
+    }
+
+    private static int completedValue(Object completed) {
+        if (completed instanceof Boolean) {
+            return (Boolean) completed ? 1 : 0;
         }
-        return leadTask;
+        return completed == null ? 0 : ((Number) completed).intValue();
+    }
+
+    private void switchDatabase(String dbType) {
+        dbUtils.setConnection(dbType);
+        // The tracked rows belong to the previous database
+        changeTracker = new DbChangeTracker(dbUtils);
     }
 
     @Then("^check rows number of table \"([^\"]*)\" is greater than (\\d+)$")
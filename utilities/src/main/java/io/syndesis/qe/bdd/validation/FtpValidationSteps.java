@@ -5,6 +5,8 @@ import static org.assertj.core.api.Assertions.assertThat;
 import io.syndesis.qe.utils.FtpUtils;
 import io.syndesis.qe.utils.TestUtils;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.concurrent.TimeUnit;
 
 import cucumber.api.java.en.Given;
@@ -21,6 +23,15 @@ public class FtpValidationSteps {
         ftpUtils.uploadTestFile(filename, text, remoteDirectory);
     }
 
+    @When("^put (\\d+) files with prefix \"([^\"]*)\" and content \"([^\"]*)\" in the directory: \"([^\"]*)\" using FTP$")
+    public void putFilesInTheFTPDirectory(int count, String prefix, String text, String remoteDirectory) {
+        Map<String, String> files = new LinkedHashMap<>();
+        for (int i = 0; i < count; i++) {
+            files.put(prefix + i, text);
+        }
+        ftpUtils.uploadTestFiles(files, remoteDirectory);
+    }
+
     @Then("^validate that file \"([^\"]*)\" has been transfered to \"([^\"]*)\" directory using FTP$")
     public void validateThatFileHasBeenTransferedToDirectory(String filename, String remoteToDirectory) {
         assertThat(TestUtils.waitForEvent(r -> r, () -> ftpUtils.isFileThere(remoteToDirectory, filename),
@@ -4,38 +4,44 @@ import static org.assertj.core.api.Assertions.assertThat;
 
 import io.syndesis.qe.accounts.Account;
 import io.syndesis.qe.utils.AccountUtils;
-import io.syndesis.qe.utils.HTTPResponse;
+import io.syndesis.qe.utils.HttpEndpointsEventClient;
+import io.syndesis.qe.utils.HttpEndpointsEventClient.Event;
 import io.syndesis.qe.utils.HttpUtils;
 import io.syndesis.qe.utils.OpenShiftUtils;
-import io.syndesis.qe.utils.TestUtils;
+import io.syndesis.qe.utils.PortForwardRegistry;
 
-import com.google.gson.Gson;
-
-import java.util.Map;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
 
 import cucumber.api.java.en.Then;
 import cucumber.api.java.en.When;
 import io.fabric8.kubernetes.api.model.Pod;
-import io.fabric8.kubernetes.client.LocalPortForward;
 import lombok.extern.slf4j.Slf4j;
 
 @Slf4j
 public class HTTPValidationSteps {
     // Static to have this lpf shared between tests
-    private static LocalPortForward localPortForward;
+    private static PortForwardRegistry.Lease localPortForward;
+    private static String endpointsPodName;
+    private static HttpEndpointsEventClient eventClient = new HttpEndpointsEventClient(HTTPValidationSteps::endpointsUrl);
 
     @When("^clear endpoint events$")
     public void clear() {
-        if (localPortForward != null) {
-            TestUtils.terminateLocalPortForward(localPortForward);
-        }
         Optional<Pod> pod = OpenShiftUtils.getPodByPartialName("endpoints");
         assertThat(pod.isPresent()).isTrue();
-        localPortForward = TestUtils.createLocalPortForward(pod.get(), 8080, 28080);
+        // Keep the port-forward unless the endpoints pod was re-created
+        if (localPortForward == null || !pod.get().getMetadata().getName().equals(endpointsPodName)) {
+            if (localPortForward != null) {
+                localPortForward.terminate();
+            }
+            localPortForward = PortForwardRegistry.forPod(pod.get(), 8080);
+            endpointsPodName = pod.get().getMetadata().getName();
+        }
 
         // Clear all events
-        HttpUtils.doDeleteRequest("http://localhost:28080/clearEvents");
+        eventClient.clear();
     }
 
     @Then("^verify that endpoint \"([^\"]*)\" was executed$")
@@ -49,31 +55,31 @@ public class HTTPValidationSteps {
     }
 
     private void verify(String method, boolean once) {
-        // Let the integration running
-        TestUtils.sleepIgnoreInterrupt(30000L);
-        // Get new events
-        HTTPResponse r = HttpUtils.doGetRequest("http://localhost:28080/events");
-        Map<Long, String> events = new Gson().fromJson(r.getBody(), Map.class);
-
+        final Predicate<List<Event>> otherMethod = events -> events.stream().anyMatch(e -> !method.equals(e.getMethod()));
+        final List<Event> events;
         if (once) {
+            // The integration is running for 30 seconds to make sure it doesn't call the endpoint again, unless it already did
+            events = eventClient.await(e -> false, e -> e.size() > 1 || otherMethod.test(e), TimeUnit.SECONDS, 30L);
             assertThat(events).size().isEqualTo(1);
         } else {
+            events = eventClient.await(e -> e.size() >= 5, otherMethod, TimeUnit.SECONDS, 30L);
             assertThat(events).size().isGreaterThanOrEqualTo(5);
         }
-        for (String event : events.values()) {
-            assertThat(method.equals(event));
-        }
+        assertThat(events).extracting(Event::getMethod).containsOnly(method);
     }
 
     @Then("^verify that after \"([^\"]*)\" seconds there were \"([^\"]*)\" calls$")
     public void verifyThatAfterSecondsWasCalls(double seconds, int calls) {
         clear();
-        TestUtils.sleepIgnoreInterrupt((long) seconds * 1000);
-        HTTPResponse r = HttpUtils.doGetRequest("http://localhost:28080/events");
-        Map<Long, String> events = new Gson().fromJson(r.getBody(), Map.class);
+        // Only more calls than expected can end the wait earlier
+        final List<Event> events = eventClient.await(e -> false, e -> e.size() > calls, TimeUnit.MILLISECONDS, (long) (seconds * 1000));
         assertThat(events).size().isEqualTo(calls);
     }
 
+    private static String endpointsUrl() {
+        return localPortForward.getLocalUrl("http");
+    }
+
     @When("send get request using {string} and {string} path")
     public void sendGetRequestUsingAndPath(String account, String path) {
         final Account a = AccountUtils.get(account);
@@ -3,7 +3,7 @@ package io.syndesis.qe.bdd.validation;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.fail;
 
-import io.syndesis.qe.utils.OpenShiftUtils;
+import io.syndesis.qe.utils.PortForwardRegistry;
 import io.syndesis.qe.utils.TestUtils;
 import io.syndesis.qe.utils.mqtt.MqttUtils;
 import io.syndesis.qe.utils.mqtt.Receiver;
@@ -11,18 +11,14 @@ import io.syndesis.qe.utils.mqtt.Receiver;
 import org.eclipse.paho.client.mqttv3.MqttClient;
 import org.eclipse.paho.client.mqttv3.MqttException;
 
-import java.io.IOException;
-
 import cucumber.api.java.en.Then;
 import cucumber.api.java.en.When;
-import io.fabric8.kubernetes.api.model.Pod;
-import io.fabric8.kubernetes.client.LocalPortForward;
 import lombok.extern.slf4j.Slf4j;
 
 @Slf4j
 public class MqttValidationSteps {
     private MqttUtils mqttUtils = new MqttUtils();
-    private static LocalPortForward mqttLocalPortForward = null;
+    private static PortForwardRegistry.Lease mqttLocalPortForward = null;
 
     @Then("^.*verify that when message is sent to \"([^\"]*)\" topic it is redirected to \"([^\"]*)\" topic via integration$")
     public void sendAndRecieveMessage(String senderTopic, String receiverTopic) {
@@ -75,23 +71,18 @@ public class MqttValidationSteps {
     }
 
     private void portForward() {
-        if (mqttLocalPortForward == null || !mqttLocalPortForward.isAlive()) {
-            //can be the same pod twice forwarded to different ports? YES
-            Pod pod = OpenShiftUtils.getInstance().getAnyPod("app", "syndesis-amq");
-            log.info("POD NAME: *{}*", pod.getMetadata().getName());
-            mqttLocalPortForward = OpenShiftUtils.portForward(pod, 1883, 1883);
+        if (mqttLocalPortForward == null || mqttLocalPortForward.isClosed()) {
+            // the mqtt client connects to the fixed local port
+            mqttLocalPortForward = PortForwardRegistry.forPodWithLabel("app", "syndesis-amq", 1883, 1883);
             //give it time to get ready
             TestUtils.sleepIgnoreInterrupt(2000);
         }
     }
 
     private void portClose() {
-        if (mqttLocalPortForward != null || mqttLocalPortForward.isAlive()) {
-            try {
-                mqttLocalPortForward.close();
-            } catch (IOException e) {
-                log.error("Error while closing mqtt port forward.", e);
-            }
+        if (mqttLocalPortForward != null) {
+            // the port-forward is kept by the registry for the next steps for a while
+            mqttLocalPortForward.close();
         }
     }
 }
@@ -16,6 +16,7 @@ import io.syndesis.qe.resource.impl.Syndesis;
 import io.syndesis.qe.utils.AccountUtils;
 import io.syndesis.qe.utils.HttpUtils;
 import io.syndesis.qe.utils.OpenShiftUtils;
+import io.syndesis.qe.utils.PortForwardRegistry;
 import io.syndesis.qe.utils.S3BucketNameBuilder;
 import io.syndesis.qe.utils.S3Utils;
 import io.syndesis.qe.utils.TestUtils;
@@ -60,7 +61,6 @@ import io.fabric8.kubernetes.api.model.PersistentVolumeFluent;
 import io.fabric8.kubernetes.api.model.Pod;
 import io.fabric8.kubernetes.api.model.Quantity;
 import io.fabric8.kubernetes.api.model.SecretBuilder;
-import io.fabric8.kubernetes.client.LocalPortForward;
 import io.fabric8.openshift.api.model.DeploymentConfig;
 import lombok.extern.slf4j.Slf4j;
 
@@ -203,18 +203,19 @@ public class OperatorValidationSteps {
     @Then("^check that jaeger pod \"([^\"]*)\" (is|is not) collecting metrics for integration \"([^\"]*)\"$")
     public void checkJaeger(String jaegerPodName, String shouldCollect, String integrationName) {
         TestUtils.sleepIgnoreInterrupt(30000L);
-        LocalPortForward lpf = TestUtils.createLocalPortForward(
-            OpenShiftUtils.getPod(p -> p.getMetadata().getName().startsWith(jaegerPodName)), 16686, 16686);
-        final String integrationId = integrations.getIntegrationId(integrationName).get();
-        String host = "localhost:16686"; //host for default syndesis-jaeger
-        if (ResourceFactory.get(Syndesis.class).containsAddonProperty(Addon.JAEGER, "collectorUri")) {
-            host = ResourceFactory.get(Jaeger.class).getQueryServiceHost();
+        final JSONArray jsonData;
+        try (PortForwardRegistry.Lease lpf = PortForwardRegistry.forPod(
+            OpenShiftUtils.getPod(p -> p.getMetadata().getName().startsWith(jaegerPodName)), 16686)) {
+            final String integrationId = integrations.getIntegrationId(integrationName).get();
+            String host = "localhost:" + lpf.getLocalPort(); //host for default syndesis-jaeger
+            if (ResourceFactory.get(Syndesis.class).containsAddonProperty(Addon.JAEGER, "collectorUri")) {
+                host = ResourceFactory.get(Jaeger.class).getQueryServiceHost();
+            }
+            jsonData = new JSONObject(HttpUtils.doGetRequest(
+                "http://" + host + "/api/traces?service=" + integrationId)
+                .getBody())
+                .getJSONArray("data");
         }
-        JSONArray jsonData = new JSONObject(HttpUtils.doGetRequest(
-            "http://" + host + "/api/traces?service=" + integrationId)
-            .getBody())
-            .getJSONArray("data");
-        TestUtils.terminateLocalPortForward(lpf);
         if ("is".equals(shouldCollect)) {
             assertThat(jsonData).size().isNotZero();
         } else {
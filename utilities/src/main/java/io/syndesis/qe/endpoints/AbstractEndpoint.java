@@ -1,29 +1,44 @@
 package io.syndesis.qe.endpoints;
 
-import io.syndesis.common.model.ListResult;
+import io.syndesis.common.model.WithId;
+import io.syndesis.common.model.WithName;
 import io.syndesis.common.util.json.JsonUtils;
 import io.syndesis.qe.TestConfiguration;
+import io.syndesis.qe.endpoints.util.LookupCache;
+import io.syndesis.qe.endpoints.util.RetryPolicy;
 import io.syndesis.qe.endpoints.util.RetryingInvocationBuilder;
 import io.syndesis.qe.utils.RestUtils;
 
-import com.fasterxml.jackson.core.JsonParser.Feature;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.ObjectWriter;
-import com.fasterxml.jackson.datatype.jdk8.Jdk8Module;
+import com.fasterxml.jackson.databind.ObjectReader;
 
 import javax.ws.rs.NotFoundException;
 import javax.ws.rs.client.Client;
 import javax.ws.rs.client.Entity;
 import javax.ws.rs.client.Invocation;
+import javax.ws.rs.client.WebTarget;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.MultivaluedHashMap;
 import javax.ws.rs.core.MultivaluedMap;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Optional;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
@@ -35,11 +50,18 @@ import lombok.extern.slf4j.Slf4j;
  */
 @Slf4j
 public abstract class AbstractEndpoint<T> {
+    // ObjectReader is immutable and thread-safe, so it is created only once per type
+    private static final Map<Class<?>, ObjectReader> READERS = new ConcurrentHashMap<>();
+    private static final int DEFAULT_PAGE_SIZE = 50;
+    private static final int MAX_LOGGED_ITEMS = 50;
+
     @Setter
     protected String endpointName;
     protected String apiPath = TestConfiguration.syndesisRestApiPath();
     private Class<T> type;
     protected Client client;
+    // Endpoints can override it to change the number of attempts or the backoff
+    protected RetryPolicy retryPolicy = RetryPolicy.defaultPolicy();
 
     protected MultivaluedMap<String, Object> commonHeaders = new MultivaluedHashMap<>();
 
@@ -57,32 +79,53 @@ public abstract class AbstractEndpoint<T> {
     public T create(T obj) {
         log.debug("POST: {}", getEndpointUrl());
         final Invocation.Builder invocation = this.createInvocation();
-        final JsonNode response = invocation.post(Entity.entity(obj, MediaType.APPLICATION_JSON), JsonNode.class);
+        final InputStream response = invocation.post(Entity.entity(obj, MediaType.APPLICATION_JSON), InputStream.class);
 
-        return transformJsonNode(response, type);
+        // The new entity may have the same name as some cached one
+        cache().invalidateNames();
+        return readStream(response, type);
     }
 
     public void delete(String id) {
         log.debug("DELETE: {}", getEndpointUrl(Optional.ofNullable(id)));
+        cache().invalidate(id);
         this.createInvocation(id).delete();
     }
 
     public T get(String id) {
-        log.debug("GET : {}", getEndpointUrl(Optional.ofNullable(id)));
-        final Invocation.Builder invocation = this.createInvocation(id);
-        JsonNode response = null;
         try {
-            response = invocation.get(JsonNode.class);
+            return fetch(id);
         } catch (NotFoundException ex) {
             log.error("Not found: " + id);
             log.error("Found:");
-            list().forEach(t -> log.error("  " + t.toString()));
+            stream().limit(MAX_LOGGED_ITEMS).forEach(t -> log.error("  " + t.toString()));
+            throw ex;
+        }
+    }
+
+    /**
+     * Gets the entity with the given name. When the cached ID of the name no longer exists (the entity was deleted and re-created
+     * outside of this endpoint, for example in the UI), the name is looked up again.
+     *
+     * @param name entity name
+     * @return optional with the entity
+     */
+    public Optional<T> getByName(String name) {
+        final Optional<String> id = getIdByName(name);
+        if (!id.isPresent()) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.ofNullable(fetch(id.get()));
+        } catch (NotFoundException ex) {
+            log.debug("Cached ID {} of {} not found, looking the name up again", id.get(), name);
+            return getIdByName(name).map(this::get);
         }
-        return transformJsonNode(response, type);
     }
 
     public void update(String id, T obj) {
         log.debug("PUT : {}", getEndpointUrl(Optional.ofNullable(id)));
+        cache().invalidate(id);
         this.createInvocation(id).put(Entity.entity(obj, MediaType.APPLICATION_JSON), JsonNode.class);
     }
 
@@ -91,35 +134,67 @@ public abstract class AbstractEndpoint<T> {
     }
 
     public List<T> list(String id) {
-        final ObjectMapper mapper = new ObjectMapper().registerModules(new Jdk8Module());
-        mapper.configure(Feature.AUTO_CLOSE_SOURCE, true);
-        final ObjectWriter ow = mapper.writer();
-        final Class<ListResult<T>> listtype = (Class) ListResult.class;
-
         log.debug("GET : {}", getEndpointUrl(Optional.ofNullable(id)));
 
-        JsonNode response = this.createInvocation(id).get(JsonNode.class);
-
-        ListResult<T> result = null;
+        final List<T> ts = new ArrayList<>();
         try {
-            result = JsonUtils.reader().forType(listtype).readValue(response.toString());
+            readListResult(this.createInvocation(id).get(InputStream.class), type, ts);
         } catch (IOException ex) {
             log.error("" + ex);
         }
+        return ts;
+    }
 
-        final List<T> ts = new ArrayList<>();
+    /**
+     * Lazily iterates over all items page by page. The next page is requested only when the previous one is consumed, so the
+     * short-circuiting operations (findFirst, anyMatch, limit, ...) don't fetch the whole collection.
+     *
+     * @return stream of all items
+     */
+    public Stream<T> stream() {
+        return stream(null, DEFAULT_PAGE_SIZE);
+    }
 
-        for (int i = 0; i < result.getTotalCount(); i++) {
-            T con = null;
-            try {
-                final String json = ow.writeValueAsString(result.getItems().get(i));
-                con = JsonUtils.reader().forType(type).readValue(json);
-            } catch (IOException ex) {
-                log.error(ex.toString());
-            }
-            ts.add(con);
+    /**
+     * Lazily iterates over the items matching the server-side filter page by page.
+     *
+     * @param query server-side filter in the form "field=value", null to iterate over all items
+     * @param perPage page size
+     * @return stream of items
+     */
+    public Stream<T> stream(String query, int perPage) {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(new PageIterator(query, perPage), Spliterator.ORDERED), false);
+    }
+
+    /**
+     * Finds the first item with the given field value. The server-side filter narrows the items down where the endpoint supports it,
+     * the predicate is then always checked on the client side.
+     *
+     * @param field name of the field used in the server-side filter
+     * @param value value of the field
+     * @param predicate predicate the item must match
+     * @return optional with the first matching item
+     */
+    protected Optional<T> findFirst(String field, String value, Predicate<T> predicate) {
+        // The filter syntax has no escaping, so such values can't be filtered on the server
+        final String query = value.contains(",") || value.contains("=") ? null : field + "=" + value;
+        return stream(query, DEFAULT_PAGE_SIZE).filter(predicate).findFirst();
+    }
+
+    /**
+     * Gets the ID of the entity with the given name. The result is cached, so repeated lookups of the same name don't call the server.
+     *
+     * @param name entity name
+     * @return optional with the entity ID
+     */
+    public Optional<String> getIdByName(String name) {
+        final Optional<String> cached = cache().getId(name);
+        if (cached.isPresent()) {
+            return cached;
         }
-        return ts;
+        final Optional<T> entity = findFirst("name", name, t -> name.equals(((WithName) t).getName()));
+        entity.flatMap(t -> ((WithId<?>) t).getId()).ifPresent(id -> cache().putId(name, id));
+        return entity.flatMap(t -> ((WithId<?>) t).getId());
     }
 
     public String getEndpointUrl() {
@@ -136,24 +211,179 @@ public abstract class AbstractEndpoint<T> {
         return url;
     }
 
+    /**
+     * Forgets all cached lookups of this endpoint, for example when the entities were changed in the UI.
+     */
+    public void invalidateCache() {
+        cache().invalidateAll();
+    }
+
+    protected LookupCache cache() {
+        return LookupCache.forEndpoint(getClass().getName() + ":" + endpointName);
+    }
+
+    /**
+     * Gets the entity from the server, the name lookups of the entity are forgotten when it doesn't exist.
+     *
+     * @param id entity id
+     * @return entity
+     */
+    private T fetch(String id) {
+        log.debug("GET : {}", getEndpointUrl(Optional.ofNullable(id)));
+        try {
+            return readStream(this.createInvocation(id).get(InputStream.class), type);
+        } catch (NotFoundException ex) {
+            cache().invalidate(id);
+            throw ex;
+        }
+    }
+
     protected Invocation.Builder createInvocation() {
         return createInvocation(null);
     }
 
     protected Invocation.Builder createInvocation(String id) {
-        return new RetryingInvocationBuilder(client
-            .target(getEndpointUrl(Optional.ofNullable(id)))
+        return createInvocation(id, Collections.emptyMap());
+    }
+
+    protected Invocation.Builder createInvocation(String id, Map<String, Object> queryParams) {
+        WebTarget target = client.target(getEndpointUrl(Optional.ofNullable(id)));
+        for (Map.Entry<String, Object> param : queryParams.entrySet()) {
+            target = target.queryParam(param.getKey(), param.getValue());
+        }
+        return new RetryingInvocationBuilder(target
             .request(MediaType.APPLICATION_JSON)
-            .headers(commonHeaders));
+            .headers(commonHeaders), retryPolicy);
     }
 
     protected T transformJsonNode(JsonNode json, Class<T> t) {
         T ts = null;
         try {
-            ts = JsonUtils.reader().forType(t).readValue(json.toString());
+            ts = readerFor(t).readValue(json);
         } catch (IOException ex) {
             log.error("" + ex);
         }
         return ts;
     }
+
+    /**
+     * Binds the response stream directly to the given type and closes the stream.
+     *
+     * @param response response stream
+     * @param t type
+     * @param <R> type
+     * @return object or null if the response can't be read
+     */
+    protected <R> R readStream(InputStream response, Class<R> t) {
+        R r = null;
+        try (InputStream in = response) {
+            r = readerFor(t).readValue(in);
+        } catch (IOException ex) {
+            log.error("" + ex);
+        }
+        return r;
+    }
+
+    /**
+     * Gets the cached reader for the given type.
+     *
+     * @param t type
+     * @return object reader
+     */
+    protected static ObjectReader readerFor(Class<?> t) {
+        return READERS.computeIfAbsent(t, c -> JsonUtils.reader().forType(c));
+    }
+
+    /**
+     * Reads the list result from the stream and binds its items directly to the given type, the stream is closed afterwards.
+     * The other fields of the list result are skipped.
+     *
+     * @param response response stream
+     * @param t item type
+     * @param items list to add the items to
+     * @param <R> item type
+     * @return total count of the items on the server or -1 if not present
+     * @throws IOException when the response can't be read
+     */
+    static <R> int readListResult(InputStream response, Class<R> t, List<R> items) throws IOException {
+        final ObjectReader reader = readerFor(t);
+        int totalCount = -1;
+        try (JsonParser parser = reader.getFactory().createParser(response)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("Expected list result object, got " + parser.getCurrentToken());
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                final String field = parser.getCurrentName();
+                final JsonToken value = parser.nextToken();
+                if (value == JsonToken.START_ARRAY && "items".equals(field)) {
+                    while (parser.nextToken() != JsonToken.END_ARRAY) {
+                        items.add(reader.readValue(parser));
+                    }
+                } else if (value == JsonToken.VALUE_NUMBER_INT && "totalCount".equals(field)) {
+                    totalCount = parser.getIntValue();
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        }
+        return totalCount;
+    }
+
+    /**
+     * Iterates over the items using the "page" and "per_page" query parameters. Stops after a page with fewer items than requested
+     * or when the total count of the items was fetched, so it also ends when the endpoint ignores the pagination.
+     */
+    private class PageIterator implements Iterator<T> {
+        private final String query;
+        private final int perPage;
+        private Iterator<T> current = Collections.emptyIterator();
+        private int page = 0;
+        private int fetched = 0;
+        private boolean lastPage = false;
+
+        PageIterator(String query, int perPage) {
+            if (perPage < 1) {
+                throw new IllegalArgumentException("Page size must be positive");
+            }
+            this.query = query;
+            this.perPage = perPage;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (!current.hasNext() && !lastPage) {
+                fetchNextPage();
+            }
+            return current.hasNext();
+        }
+
+        @Override
+        public T next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return current.next();
+        }
+
+        private void fetchNextPage() {
+            final Map<String, Object> params = new HashMap<>();
+            params.put("page", ++page);
+            params.put("per_page", perPage);
+            if (query != null) {
+                params.put("query", query);
+            }
+            log.debug("GET : {} page {}", getEndpointUrl(), page);
+
+            final List<T> items = new ArrayList<>(perPage);
+            int totalCount = -1;
+            try {
+                totalCount = readListResult(createInvocation(null, params).get(InputStream.class), type, items);
+            } catch (IOException ex) {
+                log.error("" + ex);
+            }
+            fetched += items.size();
+            lastPage = items.size() < perPage || (totalCount >= 0 && fetched >= totalCount);
+            current = items.iterator();
+        }
+    }
 }
@@ -21,7 +21,7 @@ public class ConnectionsEndpoint extends AbstractEndpoint<Connection> {
     }
 
     public Connection getConnectionByName(String connectionName) {
-        Optional<Connection> connection = list().stream().filter(c -> c.getName().equals(connectionName)).findFirst();
+        Optional<Connection> connection = getByName(connectionName);
         if (!connection.isPresent()) {
             fail("Connection " + connectionName + " doesn't exist");
         }
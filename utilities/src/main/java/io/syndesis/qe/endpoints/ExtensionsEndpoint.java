@@ -55,7 +55,7 @@ public class ExtensionsEndpoint extends AbstractEndpoint<Extension> {
     }
 
     public Extension getExtensionByName(String name) {
-        Optional<Extension> extension = list().stream().filter(e -> e.getName().equals(name)).findFirst();
+        Optional<Extension> extension = findFirst("name", name, e -> e.getName().equals(name));
         if (!extension.isPresent()) {
             fail("Extension " + name + " doesn't exist");
         }
@@ -3,7 +3,6 @@ package io.syndesis.qe.endpoints;
 import io.syndesis.common.model.integration.Integration;
 import io.syndesis.common.model.integration.IntegrationDeployment;
 import io.syndesis.common.model.integration.IntegrationDeploymentState;
-import io.syndesis.common.util.json.JsonUtils;
 
 import org.springframework.stereotype.Component;
 
@@ -13,8 +12,8 @@ import javax.ws.rs.client.Entity;
 import javax.ws.rs.client.Invocation;
 import javax.ws.rs.core.MediaType;
 
-import java.io.IOException;
-import java.util.List;
+import java.io.InputStream;
+import java.util.NoSuchElementException;
 import java.util.Optional;
 
 import lombok.Data;
@@ -55,23 +54,20 @@ public class IntegrationsEndpoint extends AbstractEndpoint<Integration> {
     public IntegrationDeployment getCurrentIntegrationDeployment(String integrationId, int deploymentId) {
         log.debug("GET : {}", getEndpointUrl(Optional.of(integrationId + "/deployments/" + deploymentId)));
         final Invocation.Builder invocation = this.createInvocation(integrationId + "/deployments/" + deploymentId);
-        final JsonNode response = invocation.get(JsonNode.class);
-        IntegrationDeployment ts = null;
-        try {
-            ts = JsonUtils.reader().forType(IntegrationDeployment.class).readValue(response.toString());
-        } catch (IOException ex) {
-            log.error("" + ex);
-        }
-        return ts;
+        return readStream(invocation.get(InputStream.class), IntegrationDeployment.class);
     }
 
     public Optional<String> getIntegrationId(String integrationName) {
-        List<Integration> integrationsList = list();
-        return integrationsList.stream().filter(i -> i.getName().contentEquals(integrationName)).findFirst().get().getId();
+        final Optional<String> id = getIdByName(integrationName);
+        if (!id.isPresent()) {
+            throw new NoSuchElementException("Integration " + integrationName + " doesn't exist");
+        }
+        return id;
     }
 
     public Integration getIntegrationByName(String integrationName) {
-        return get(getIntegrationId(integrationName).get());
+        return getByName(integrationName)
+            .orElseThrow(() -> new NoSuchElementException("Integration " + integrationName + " doesn't exist"));
     }
 
     @Data
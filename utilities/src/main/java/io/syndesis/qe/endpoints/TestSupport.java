@@ -2,6 +2,7 @@ package io.syndesis.qe.endpoints;
 
 import io.syndesis.qe.Addon;
 import io.syndesis.qe.TestConfiguration;
+import io.syndesis.qe.endpoints.util.LookupCache;
 import io.syndesis.qe.resource.ResourceFactory;
 import io.syndesis.qe.resource.impl.CamelK;
 import io.syndesis.qe.resource.impl.Syndesis;
@@ -49,6 +50,7 @@ public final class TestSupport {
         int tries = 0;
         TestUtils.withRetry(() -> {
             if (resetDbWithResponse() == 204) {
+                LookupCache.invalidateAllCaches();
                 log.info("Cleaning integration pods");
                 // wait till the integration pods are deleted
                 // When using camel-k, the reset DB is not enough to clear the integrations
@@ -0,0 +1,95 @@
+package io.syndesis.qe.endpoints.util;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Stops sending the requests to a server that is not available.
+ * <p>
+ * After the given number of consecutive failures the circuit opens and all requests are rejected for the given duration. Then one
+ * trial request is allowed (half-open state): if it succeeds the circuit closes again, otherwise it opens for another period. The other
+ * requests are rejected while the trial request is running, unless it doesn't report its result within the open duration.
+ */
+@Slf4j
+public class CircuitBreaker {
+    private enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final String name;
+    private final int failureThreshold;
+    private final long openDuration;
+
+    private State state = State.CLOSED;
+    private int failures = 0;
+    private long openedAt = 0L;
+    // set by the caller that sends the trial request in the half-open state
+    private final AtomicBoolean trialInProgress = new AtomicBoolean(false);
+    private long trialStartedAt = 0L;
+
+    /**
+     * Constructor.
+     *
+     * @param name name of the server used in the log messages
+     * @param failureThreshold number of consecutive failures that opens the circuit
+     * @param openDuration time in milliseconds for which the requests are rejected
+     */
+    public CircuitBreaker(String name, int failureThreshold, long openDuration) {
+        this.name = name;
+        this.failureThreshold = failureThreshold;
+        this.openDuration = openDuration;
+    }
+
+    /**
+     * Checks if the request can be sent.
+     *
+     * @return true if the request can be sent, false if the circuit is open
+     */
+    public synchronized boolean allowRequest() {
+        if (state == State.OPEN) {
+            if (System.currentTimeMillis() - openedAt < openDuration) {
+                return false;
+            }
+            log.info("Circuit for {} is half-open, trying the request", name);
+            state = State.HALF_OPEN;
+            trialInProgress.set(false);
+        }
+        if (state == State.HALF_OPEN) {
+            if (trialInProgress.get() && System.currentTimeMillis() - trialStartedAt >= openDuration) {
+                log.debug("Trial request for {} did not report its result, allowing another one", name);
+                trialInProgress.set(false);
+            }
+            if (!trialInProgress.compareAndSet(false, true)) {
+                return false;
+            }
+            trialStartedAt = System.currentTimeMillis();
+        }
+        return true;
+    }
+
+    public synchronized void recordSuccess() {
+        if (state != State.CLOSED) {
+            log.info("Circuit for {} closed, server is available again", name);
+        }
+        state = State.CLOSED;
+        failures = 0;
+        trialInProgress.set(false);
+    }
+
+    public synchronized void recordFailure() {
+        failures++;
+        if (state == State.HALF_OPEN || (state == State.CLOSED && failures >= failureThreshold)) {
+            log.warn("Circuit for {} opened after {} failures, rejecting requests for {} ms", name, failures, openDuration);
+            state = State.OPEN;
+            openedAt = System.currentTimeMillis();
+            trialInProgress.set(false);
+        }
+    }
+
+    public synchronized void reset() {
+        state = State.CLOSED;
+        failures = 0;
+        trialInProgress.set(false);
+    }
+}
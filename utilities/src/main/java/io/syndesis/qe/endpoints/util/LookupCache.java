@@ -0,0 +1,151 @@
+package io.syndesis.qe.endpoints.util;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Caches the name to ID lookups of one REST endpoint.
+ * <p>
+ * Only the IDs are cached, the entities can be changed outside of the endpoint (public API, UI, server-maintained fields), so they
+ * are always fetched. The entries expire after the TTL and the least recently used entries are evicted when the cache is full.
+ * Endpoints invalidate the entries when the entity is created, updated, deleted or not found and all caches are cleared when the
+ * database is reset, so the cache lives only within one scenario.
+ */
+@Slf4j
+public class LookupCache {
+    private static final long DEFAULT_TTL = TimeUnit.MINUTES.toMillis(5);
+    private static final int DEFAULT_MAX_SIZE = 500;
+    private static final Map<String, LookupCache> CACHES = new ConcurrentHashMap<>();
+
+    private final String name;
+    private final long ttl;
+    private final BoundedMap<String, String> ids;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * Constructor.
+     *
+     * @param name name used in the log messages
+     * @param ttl time in milliseconds after which the entry expires
+     * @param maxSize max number of the names kept
+     */
+    public LookupCache(String name, long ttl, int maxSize) {
+        this.name = name;
+        this.ttl = ttl;
+        this.ids = new BoundedMap<>(maxSize);
+    }
+
+    /**
+     * Gets the shared cache for the given endpoint, creates it with the default TTL and size when it doesn't exist.
+     *
+     * @param endpoint endpoint key
+     * @return cache
+     */
+    public static LookupCache forEndpoint(String endpoint) {
+        return CACHES.computeIfAbsent(endpoint, e -> new LookupCache(e, DEFAULT_TTL, DEFAULT_MAX_SIZE));
+    }
+
+    /**
+     * Clears all endpoint caches and logs how many lookups were saved.
+     */
+    public static void invalidateAllCaches() {
+        CACHES.values().forEach(cache -> {
+            if (cache.getHits() + cache.getMisses() > 0) {
+                log.debug("Lookup cache {}: {} hits, {} misses", cache.name, cache.getHits(), cache.getMisses());
+            }
+            cache.invalidateAll();
+        });
+    }
+
+    public Optional<String> getId(String entityName) {
+        final Optional<String> id;
+        synchronized (ids) {
+            final Entry<String> entry = ids.get(entityName);
+            if (entry != null && entry.expiresAt < System.currentTimeMillis()) {
+                ids.remove(entityName);
+                id = Optional.empty();
+            } else {
+                id = entry == null ? Optional.empty() : Optional.of(entry.value);
+            }
+        }
+        (id.isPresent() ? hits : misses).incrementAndGet();
+        return id;
+    }
+
+    public void putId(String entityName, String id) {
+        final long now = System.currentTimeMillis();
+        synchronized (ids) {
+            if (ids.size() >= ids.maxSize) {
+                // The expired entries go first, the map itself evicts only the least recently used one
+                ids.values().removeIf(e -> e.expiresAt < now);
+            }
+            ids.put(entityName, new Entry<>(id, now + ttl));
+        }
+    }
+
+    /**
+     * Removes all names pointing to the entity.
+     *
+     * @param id entity id
+     */
+    public void invalidate(String id) {
+        synchronized (ids) {
+            ids.values().removeIf(e -> e.value.equals(id));
+        }
+    }
+
+    /**
+     * Removes all names, for example when a new entity was created and it may shadow a cached name.
+     */
+    public void invalidateNames() {
+        synchronized (ids) {
+            ids.clear();
+        }
+    }
+
+    public void invalidateAll() {
+        invalidateNames();
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    private static class Entry<V> {
+        private final V value;
+        private final long expiresAt;
+
+        Entry(V value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    /**
+     * Map in the access order that evicts the least recently used entry when it is full.
+     */
+    private static class BoundedMap<K, V> extends LinkedHashMap<K, Entry<V>> {
+        private final int maxSize;
+
+        BoundedMap(int maxSize) {
+            super(16, 0.75f, true);
+            this.maxSize = maxSize;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+            return size() > maxSize;
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package io.syndesis.qe.endpoints.util;
+
+import javax.ws.rs.HttpMethod;
+import javax.ws.rs.ProcessingException;
+import javax.ws.rs.WebApplicationException;
+
+import java.net.ConnectException;
+import java.net.SocketTimeoutException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import lombok.Getter;
+
+/**
+ * Decides whether the failed invocation should be retried and how long to wait before the next attempt.
+ * <p>
+ * Only the failures that may disappear by themselves are retried:
+ * <ul>
+ *     <li>connection refused and 502/503 responses - the request wasn't processed by the server, so it is retried for any method</li>
+ *     <li>other I/O errors (like read timeouts) and other 5xx responses - retried only for the idempotent methods</li>
+ * </ul>
+ * 4xx responses are never retried.
+ */
+@Getter
+public class RetryPolicy {
+    private static final Set<String> IDEMPOTENT_METHODS = new HashSet<>(Arrays.asList(
+        HttpMethod.GET, HttpMethod.HEAD, HttpMethod.OPTIONS, HttpMethod.PUT, HttpMethod.DELETE, "TRACE"
+    ));
+
+    private int maxAttempts = 3;
+    private long initialBackoff = 1000L;
+    private long maxBackoff = 10000L;
+    private double multiplier = 2.0;
+    private double jitter = 0.2;
+
+    public static RetryPolicy defaultPolicy() {
+        return new RetryPolicy();
+    }
+
+    public static RetryPolicy noRetry() {
+        return new RetryPolicy().maxAttempts(1);
+    }
+
+    /**
+     * Sets the max number of attempts, including the first one.
+     *
+     * @param maxAttempts max attempts
+     * @return this
+     */
+    public RetryPolicy maxAttempts(int maxAttempts) {
+        if (maxAttempts < 1) {
+            throw new IllegalArgumentException("There must be at least one attempt");
+        }
+        this.maxAttempts = maxAttempts;
+        return this;
+    }
+
+    /**
+     * Sets the backoff bounds. The backoff starts at the initial value and is doubled after each attempt up to the max value.
+     *
+     * @param unit time unit
+     * @param initial first backoff
+     * @param max max backoff
+     * @return this
+     */
+    public RetryPolicy backoff(TimeUnit unit, long initial, long max) {
+        if (initial < 0 || initial > max) {
+            throw new IllegalArgumentException("Invalid backoff bounds: " + initial + " - " + max);
+        }
+        this.initialBackoff = unit.toMillis(initial);
+        this.maxBackoff = unit.toMillis(max);
+        return this;
+    }
+
+    /**
+     * Sets the jitter, for example 0.2 means that the backoff is randomly changed by up to +-20%.
+     *
+     * @param jitter jitter in range from 0 to 1
+     * @return this
+     */
+    public RetryPolicy jitter(double jitter) {
+        if (jitter < 0.0 || jitter >= 1.0) {
+            throw new IllegalArgumentException("Jitter must be in range <0, 1)");
+        }
+        this.jitter = jitter;
+        return this;
+    }
+
+    /**
+     * Gets the time to wait before the next attempt.
+     *
+     * @param attempt number of the failed attempt, starting from 1
+     * @return backoff in milliseconds
+     */
+    public long backoff(int attempt) {
+        final double backoff = Math.min(maxBackoff, initialBackoff * Math.pow(multiplier, attempt - 1));
+        return (long) (backoff * (1.0 - jitter + 2 * jitter * ThreadLocalRandom.current().nextDouble()));
+    }
+
+    /**
+     * Checks if the invocation that threw the given exception should be retried.
+     *
+     * @param method http method
+     * @param e exception
+     * @return true/false
+     */
+    public boolean isRetryable(String method, Throwable e) {
+        if (e instanceof WebApplicationException) {
+            return isRetryable(method, ((WebApplicationException) e).getResponse().getStatus());
+        }
+        if (e instanceof ProcessingException) {
+            // When the connection was refused, the request was not sent at all
+            return hasCause(e, ConnectException.class) || isIdempotent(method);
+        }
+        return false;
+    }
+
+    /**
+     * Checks if the invocation that returned the given status code should be retried.
+     *
+     * @param method http method
+     * @param status response status code
+     * @return true/false
+     */
+    public boolean isRetryable(String method, int status) {
+        return status == 502 || status == 503 || (status >= 500 && isIdempotent(method));
+    }
+
+    /**
+     * Checks if the exception means that the server is not available.
+     *
+     * @param e exception
+     * @return true/false
+     */
+    public static boolean isServerUnavailable(Throwable e) {
+        if (e instanceof WebApplicationException) {
+            return isServerUnavailable(((WebApplicationException) e).getResponse().getStatus());
+        }
+        return hasCause(e, ConnectException.class) || hasCause(e, SocketTimeoutException.class);
+    }
+
+    public static boolean isServerUnavailable(int status) {
+        return status == 502 || status == 503 || status == 504;
+    }
+
+    private static boolean hasCause(Throwable e, Class<? extends Throwable> type) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (type.isInstance(cause)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isIdempotent(String method) {
+        return IDEMPOTENT_METHODS.contains(method.toUpperCase());
+    }
+}
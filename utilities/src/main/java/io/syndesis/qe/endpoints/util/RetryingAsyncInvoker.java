@@ -0,0 +1,227 @@
+package io.syndesis.qe.endpoints.util;
+
+import javax.ws.rs.client.AsyncInvoker;
+import javax.ws.rs.client.Entity;
+import javax.ws.rs.client.Invocation;
+import javax.ws.rs.client.InvocationCallback;
+import javax.ws.rs.core.GenericType;
+import javax.ws.rs.core.Response;
+
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+
+/**
+ * {@link AsyncInvoker} on top of the {@link RetryingRxInvoker}, so that the asynchronous invocations are retried as well.
+ */
+public class RetryingAsyncInvoker implements AsyncInvoker {
+    private final Invocation.Builder builder;
+
+    public RetryingAsyncInvoker(Invocation.Builder builder) {
+        this.builder = builder;
+    }
+
+    @Override
+    public Future<Response> get() {
+        return RetryingRxInvoker.submit(builder::get);
+    }
+
+    @Override
+    public <T> Future<T> get(Class<T> responseType) {
+        return RetryingRxInvoker.submit(() -> builder.get(responseType));
+    }
+
+    @Override
+    public <T> Future<T> get(GenericType<T> responseType) {
+        return RetryingRxInvoker.submit(() -> builder.get(responseType));
+    }
+
+    @Override
+    public <T> Future<T> get(InvocationCallback<T> callback) {
+        return withCallback(callback, type -> builder.get(type));
+    }
+
+    @Override
+    public Future<Response> put(Entity<?> entity) {
+        return RetryingRxInvoker.submit(() -> builder.put(entity));
+    }
+
+    @Override
+    public <T> Future<T> put(Entity<?> entity, Class<T> responseType) {
+        return RetryingRxInvoker.submit(() -> builder.put(entity, responseType));
+    }
+
+    @Override
+    public <T> Future<T> put(Entity<?> entity, GenericType<T> responseType) {
+        return RetryingRxInvoker.submit(() -> builder.put(entity, responseType));
+    }
+
+    @Override
+    public <T> Future<T> put(Entity<?> entity, InvocationCallback<T> callback) {
+        return withCallback(callback, type -> builder.put(entity, type));
+    }
+
+    @Override
+    public Future<Response> post(Entity<?> entity) {
+        return RetryingRxInvoker.submit(() -> builder.post(entity));
+    }
+
+    @Override
+    public <T> Future<T> post(Entity<?> entity, Class<T> responseType) {
+        return RetryingRxInvoker.submit(() -> builder.post(entity, responseType));
+    }
+
+    @Override
+    public <T> Future<T> post(Entity<?> entity, GenericType<T> responseType) {
+        return RetryingRxInvoker.submit(() -> builder.post(entity, responseType));
+    }
+
+    @Override
+    public <T> Future<T> post(Entity<?> entity, InvocationCallback<T> callback) {
+        return withCallback(callback, type -> builder.post(entity, type));
+    }
+
+    @Override
+    public Future<Response> delete() {
+        return RetryingRxInvoker.submit(builder::delete);
+    }
+
+    @Override
+    public <T> Future<T> delete(Class<T> responseType) {
+        return RetryingRxInvoker.submit(() -> builder.delete(responseType));
+    }
+
+    @Override
+    public <T> Future<T> delete(GenericType<T> responseType) {
+        return RetryingRxInvoker.submit(() -> builder.delete(responseType));
+    }
+
+    @Override
+    public <T> Future<T> delete(InvocationCallback<T> callback) {
+        return withCallback(callback, type -> builder.delete(type));
+    }
+
+    @Override
+    public Future<Response> head() {
+        return RetryingRxInvoker.submit(builder::head);
+    }
+
+    @Override
+    public Future<Response> head(InvocationCallback<Response> callback) {
+        return withCallback(callback, type -> builder.head());
+    }
+
+    @Override
+    public Future<Response> options() {
+        return RetryingRxInvoker.submit(builder::options);
+    }
+
+    @Override
+    public <T> Future<T> options(Class<T> responseType) {
+        return RetryingRxInvoker.submit(() -> builder.options(responseType));
+    }
+
+    @Override
+    public <T> Future<T> options(GenericType<T> responseType) {
+        return RetryingRxInvoker.submit(() -> builder.options(responseType));
+    }
+
+    @Override
+    public <T> Future<T> options(InvocationCallback<T> callback) {
+        return withCallback(callback, type -> builder.options(type));
+    }
+
+    @Override
+    public Future<Response> trace() {
+        return RetryingRxInvoker.submit(builder::trace);
+    }
+
+    @Override
+    public <T> Future<T> trace(Class<T> responseType) {
+        return RetryingRxInvoker.submit(() -> builder.trace(responseType));
+    }
+
+    @Override
+    public <T> Future<T> trace(GenericType<T> responseType) {
+        return RetryingRxInvoker.submit(() -> builder.trace(responseType));
+    }
+
+    @Override
+    public <T> Future<T> trace(InvocationCallback<T> callback) {
+        return withCallback(callback, type -> builder.trace(type));
+    }
+
+    @Override
+    public Future<Response> method(String name) {
+        return RetryingRxInvoker.submit(() -> builder.method(name));
+    }
+
+    @Override
+    public <T> Future<T> method(String name, Class<T> responseType) {
+        return RetryingRxInvoker.submit(() -> builder.method(name, responseType));
+    }
+
+    @Override
+    public <T> Future<T> method(String name, GenericType<T> responseType) {
+        return RetryingRxInvoker.submit(() -> builder.method(name, responseType));
+    }
+
+    @Override
+    public <T> Future<T> method(String name, InvocationCallback<T> callback) {
+        return withCallback(callback, type -> builder.method(name, type));
+    }
+
+    @Override
+    public Future<Response> method(String name, Entity<?> entity) {
+        return RetryingRxInvoker.submit(() -> builder.method(name, entity));
+    }
+
+    @Override
+    public <T> Future<T> method(String name, Entity<?> entity, Class<T> responseType) {
+        return RetryingRxInvoker.submit(() -> builder.method(name, entity, responseType));
+    }
+
+    @Override
+    public <T> Future<T> method(String name, Entity<?> entity, GenericType<T> responseType) {
+        return RetryingRxInvoker.submit(() -> builder.method(name, entity, responseType));
+    }
+
+    @Override
+    public <T> Future<T> method(String name, Entity<?> entity, InvocationCallback<T> callback) {
+        return withCallback(callback, type -> builder.method(name, entity, type));
+    }
+
+    /**
+     * Invokes the call with the response type taken from the callback type argument and notifies the callback.
+     */
+    private <T> Future<T> withCallback(InvocationCallback<T> callback, Function<GenericType<T>, T> call) {
+        final GenericType<T> responseType = new GenericType<>(callbackType(callback));
+        final CompletableFuture<T> future = RetryingRxInvoker.submit(() -> call.apply(responseType));
+        future.whenComplete((result, e) -> {
+            if (e == null) {
+                callback.completed(result);
+            } else {
+                callback.failed(e instanceof CompletionException && e.getCause() != null ? e.getCause() : e);
+            }
+        });
+        return future;
+    }
+
+    private static Type callbackType(InvocationCallback<?> callback) {
+        for (Class<?> c = callback.getClass(); c != null; c = c.getSuperclass()) {
+            for (Type type : c.getGenericInterfaces()) {
+                if (type instanceof ParameterizedType && ((ParameterizedType) type).getRawType() == InvocationCallback.class) {
+                    final Type argument = ((ParameterizedType) type).getActualTypeArguments()[0];
+                    if (argument instanceof Class || argument instanceof ParameterizedType) {
+                        return argument;
+                    }
+                }
+            }
+        }
+        // The type argument is not known (lambda, raw type or type variable)
+        return Response.class;
+    }
+}
@@ -4,6 +4,7 @@ import static org.assertj.core.api.Assertions.fail;
 
 import io.syndesis.qe.utils.TestUtils;
 
+import javax.ws.rs.HttpMethod;
 import javax.ws.rs.client.AsyncInvoker;
 import javax.ws.rs.client.CompletionStageRxInvoker;
 import javax.ws.rs.client.Entity;
@@ -21,16 +22,31 @@ import java.util.Locale;
 import lombok.extern.slf4j.Slf4j;
 
 /**
- * Retries the invocation for http methods get, post, put, delete given amount of times in case of any exception.
+ * Retries the invocation for http methods get, post, put, delete according to the {@link RetryPolicy}.
+ * <p>
+ * All invocations share one {@link CircuitBreaker}, so that the requests fail fast when syndesis-server is down.
  */
 @Slf4j
 public class RetryingInvocationBuilder implements Invocation.Builder {
-    private static final int RETRIES_COUNT = 1;
+    private static final CircuitBreaker SERVER_CIRCUIT_BREAKER = new CircuitBreaker("syndesis-server", 5, 30000L);
 
     private Invocation.Builder invocationBuilder;
+    private RetryPolicy retryPolicy;
 
     public RetryingInvocationBuilder(Invocation.Builder invocationBuilder) {
+        this(invocationBuilder, RetryPolicy.defaultPolicy());
+    }
+
+    public RetryingInvocationBuilder(Invocation.Builder invocationBuilder, RetryPolicy retryPolicy) {
         this.invocationBuilder = invocationBuilder;
+        this.retryPolicy = retryPolicy;
+    }
+
+    /**
+     * Closes the circuit, for example when the connection to the server was re-created.
+     */
+    public static void resetCircuitBreaker() {
+        SERVER_CIRCUIT_BREAKER.reset();
     }
 
     @Override
@@ -65,7 +81,7 @@ public class RetryingInvocationBuilder implements Invocation.Builder {
 
     @Override
     public AsyncInvoker async() {
-        return invocationBuilder.async();
+        return new RetryingAsyncInvoker(this);
     }
 
     @Override
@@ -125,7 +141,7 @@ public class RetryingInvocationBuilder implements Invocation.Builder {
 
     @Override
     public CompletionStageRxInvoker rx() {
-        return invocationBuilder.rx();
+        return new RetryingRxInvoker(this);
     }
 
     @Override
@@ -135,62 +151,62 @@ public class RetryingInvocationBuilder implements Invocation.Builder {
 
     @Override
     public Response get() {
-        return (Response) retryingInvoke(buildGet(), null);
+        return (Response) retryingInvoke(HttpMethod.GET, buildGet(), null);
     }
 
     @Override
     public <T> T get(Class<T> responseType) {
-        return (T) retryingInvoke(buildGet(), responseType);
+        return (T) retryingInvoke(HttpMethod.GET, buildGet(), responseType);
     }
 
     @Override
     public <T> T get(GenericType<T> responseType) {
-        return (T) retryingInvoke(buildGet(), responseType);
+        return (T) retryingInvoke(HttpMethod.GET, buildGet(), responseType);
     }
 
     @Override
     public Response put(Entity<?> entity) {
-        return (Response) retryingInvoke(buildPut(entity), null);
+        return (Response) retryingInvoke(HttpMethod.PUT, buildPut(entity), null);
     }
 
     @Override
     public <T> T put(Entity<?> entity, Class<T> responseType) {
-        return (T) retryingInvoke(buildPut(entity), responseType);
+        return (T) retryingInvoke(HttpMethod.PUT, buildPut(entity), responseType);
     }
 
     @Override
     public <T> T put(Entity<?> entity, GenericType<T> responseType) {
-        return (T) retryingInvoke(buildPut(entity), responseType);
+        return (T) retryingInvoke(HttpMethod.PUT, buildPut(entity), responseType);
     }
 
     @Override
     public Response post(Entity<?> entity) {
-        return (Response) retryingInvoke(buildPost(entity), null);
+        return (Response) retryingInvoke(HttpMethod.POST, buildPost(entity), null);
     }
 
     @Override
     public <T> T post(Entity<?> entity, Class<T> responseType) {
-        return (T) retryingInvoke(buildPost(entity), responseType);
+        return (T) retryingInvoke(HttpMethod.POST, buildPost(entity), responseType);
     }
 
     @Override
     public <T> T post(Entity<?> entity, GenericType<T> responseType) {
-        return (T) retryingInvoke(buildPost(entity), responseType);
+        return (T) retryingInvoke(HttpMethod.POST, buildPost(entity), responseType);
     }
 
     @Override
     public Response delete() {
-        return (Response) retryingInvoke(buildDelete(), null);
+        return (Response) retryingInvoke(HttpMethod.DELETE, buildDelete(), null);
     }
 
     @Override
     public <T> T delete(Class<T> responseType) {
-        return (T) retryingInvoke(buildDelete(), responseType);
+        return (T) retryingInvoke(HttpMethod.DELETE, buildDelete(), responseType);
     }
 
     @Override
     public <T> T delete(GenericType<T> responseType) {
-        return (T) retryingInvoke(buildDelete(), responseType);
+        return (T) retryingInvoke(HttpMethod.DELETE, buildDelete(), responseType);
     }
 
     @Override
@@ -259,30 +275,68 @@ public class RetryingInvocationBuilder implements Invocation.Builder {
     }
 
     /**
-     * Invokes the invocation. If the invocation throws an exception, it will be retried.
+     * Invokes the invocation. If the invocation fails and the retry policy allows it, it will be retried.
      *
+     * @param method http method
      * @param i invocation
      * @param responseType response type object
      * @return object (Response or responseType class)
      */
-    private Object retryingInvoke(Invocation i, Object responseType) {
-        int retries = 0;
-        do {
+    private Object retryingInvoke(String method, Invocation i, Object responseType) {
+        if (!SERVER_CIRCUIT_BREAKER.allowRequest()) {
+            fail("Syndesis server is not available, rejecting " + method + " request without invoking it");
+        }
+
+        RuntimeException lastException = null;
+        for (int attempt = 1; attempt <= retryPolicy.getMaxAttempts(); attempt++) {
+            final boolean lastAttempt = attempt == retryPolicy.getMaxAttempts();
             try {
-                if (responseType == null) {
-                    return i.invoke();
-                } else if (responseType instanceof GenericType) {
-                    return i.invoke((GenericType) responseType);
+                final Object result = invoke(i, responseType);
+                if (result instanceof Response) {
+                    final int status = ((Response) result).getStatus();
+                    recordResult(RetryPolicy.isServerUnavailable(status));
+                    if (!lastAttempt && retryPolicy.isRetryable(method, status)) {
+                        log.error("{} request returned {}, will retry {} more times", method, status, retryPolicy.getMaxAttempts() - attempt);
+                        ((Response) result).close();
+                        TestUtils.sleepIgnoreInterrupt(retryPolicy.backoff(attempt));
+                        continue;
+                    }
                 } else {
-                    return i.invoke((Class) responseType);
+                    SERVER_CIRCUIT_BREAKER.recordSuccess();
                 }
-            } catch (Exception e) {
-                log.error("Exception raised during method invocation, will retry " + (RETRIES_COUNT - retries) + " more times", e);
-                retries++;
-                TestUtils.sleepIgnoreInterrupt(10000L);
+                return result;
+            } catch (RuntimeException e) {
+                recordResult(RetryPolicy.isServerUnavailable(e));
+                if (!retryPolicy.isRetryable(method, e)) {
+                    throw e;
+                }
+                lastException = e;
+                if (lastAttempt || !SERVER_CIRCUIT_BREAKER.allowRequest()) {
+                    break;
+                }
+                log.error("Exception raised during {} invocation, will retry {} more times", method, retryPolicy.getMaxAttempts() - attempt, e);
+                TestUtils.sleepIgnoreInterrupt(retryPolicy.backoff(attempt));
             }
-        } while (retries <= RETRIES_COUNT);
-        fail("Unable to invoke endpoint, see logs");
+        }
+        fail("Unable to invoke endpoint, see logs", lastException);
         return null;
     }
+
+    private Object invoke(Invocation i, Object responseType) {
+        if (responseType == null) {
+            return i.invoke();
+        } else if (responseType instanceof GenericType) {
+            return i.invoke((GenericType) responseType);
+        } else {
+            return i.invoke((Class) responseType);
+        }
+    }
+
+    private void recordResult(boolean serverUnavailable) {
+        if (serverUnavailable) {
+            SERVER_CIRCUIT_BREAKER.recordFailure();
+        } else {
+            SERVER_CIRCUIT_BREAKER.recordSuccess();
+        }
+    }
 }
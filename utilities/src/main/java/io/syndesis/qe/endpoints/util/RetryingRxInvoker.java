@@ -0,0 +1,195 @@
+package io.syndesis.qe.endpoints.util;
+
+import javax.ws.rs.client.CompletionStageRxInvoker;
+import javax.ws.rs.client.Entity;
+import javax.ws.rs.client.Invocation;
+import javax.ws.rs.core.GenericType;
+import javax.ws.rs.core.Response;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Runs the invocations of the {@link RetryingInvocationBuilder} in a bounded thread pool, so that the asynchronous invocations
+ * are retried the same way as the synchronous ones.
+ * <p>
+ * All asynchronous REST invocations share the same pool, so at most {@link #MAX_CONCURRENT_REQUESTS} requests are sent to the server
+ * at the same time, the rest is queued.
+ */
+public class RetryingRxInvoker implements CompletionStageRxInvoker {
+    public static final int MAX_CONCURRENT_REQUESTS = 8;
+
+    private static final ThreadPoolExecutor EXECUTOR =
+        new ThreadPoolExecutor(MAX_CONCURRENT_REQUESTS, MAX_CONCURRENT_REQUESTS, 60L, TimeUnit.SECONDS, new LinkedBlockingQueue<>());
+
+    static {
+        EXECUTOR.allowCoreThreadTimeOut(true);
+    }
+
+    private final Invocation.Builder builder;
+
+    public RetryingRxInvoker(Invocation.Builder builder) {
+        this.builder = builder;
+    }
+
+    /**
+     * Runs the given blocking call in the REST executor.
+     *
+     * @param call call
+     * @param <T> result type
+     * @return completion stage completed with the call result
+     */
+    public static <T> CompletableFuture<T> submit(Supplier<T> call) {
+        return CompletableFuture.supplyAsync(call, EXECUTOR);
+    }
+
+    /**
+     * Waits until all stages complete. If any of them failed, its exception (or assertion error) is rethrown as is.
+     *
+     * @param stages stages to wait for
+     */
+    public static void awaitAll(Stream<? extends CompletionStage<?>> stages) {
+        try {
+            CompletableFuture.allOf(stages.map(CompletionStage::toCompletableFuture).toArray(CompletableFuture[]::new)).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public CompletionStage<Response> get() {
+        return submit(builder::get);
+    }
+
+    @Override
+    public <T> CompletionStage<T> get(Class<T> responseType) {
+        return submit(() -> builder.get(responseType));
+    }
+
+    @Override
+    public <T> CompletionStage<T> get(GenericType<T> responseType) {
+        return submit(() -> builder.get(responseType));
+    }
+
+    @Override
+    public CompletionStage<Response> put(Entity<?> entity) {
+        return submit(() -> builder.put(entity));
+    }
+
+    @Override
+    public <T> CompletionStage<T> put(Entity<?> entity, Class<T> responseType) {
+        return submit(() -> builder.put(entity, responseType));
+    }
+
+    @Override
+    public <T> CompletionStage<T> put(Entity<?> entity, GenericType<T> responseType) {
+        return submit(() -> builder.put(entity, responseType));
+    }
+
+    @Override
+    public CompletionStage<Response> post(Entity<?> entity) {
+        return submit(() -> builder.post(entity));
+    }
+
+    @Override
+    public <T> CompletionStage<T> post(Entity<?> entity, Class<T> responseType) {
+        return submit(() -> builder.post(entity, responseType));
+    }
+
+    @Override
+    public <T> CompletionStage<T> post(Entity<?> entity, GenericType<T> responseType) {
+        return submit(() -> builder.post(entity, responseType));
+    }
+
+    @Override
+    public CompletionStage<Response> delete() {
+        return submit(builder::delete);
+    }
+
+    @Override
+    public <T> CompletionStage<T> delete(Class<T> responseType) {
+        return submit(() -> builder.delete(responseType));
+    }
+
+    @Override
+    public <T> CompletionStage<T> delete(GenericType<T> responseType) {
+        return submit(() -> builder.delete(responseType));
+    }
+
+    @Override
+    public CompletionStage<Response> head() {
+        return submit(builder::head);
+    }
+
+    @Override
+    public CompletionStage<Response> options() {
+        return submit(builder::options);
+    }
+
+    @Override
+    public <T> CompletionStage<T> options(Class<T> responseType) {
+        return submit(() -> builder.options(responseType));
+    }
+
+    @Override
+    public <T> CompletionStage<T> options(GenericType<T> responseType) {
+        return submit(() -> builder.options(responseType));
+    }
+
+    @Override
+    public CompletionStage<Response> trace() {
+        return submit(builder::trace);
+    }
+
+    @Override
+    public <T> CompletionStage<T> trace(Class<T> responseType) {
+        return submit(() -> builder.trace(responseType));
+    }
+
+    @Override
+    public <T> CompletionStage<T> trace(GenericType<T> responseType) {
+        return submit(() -> builder.trace(responseType));
+    }
+
+    @Override
+    public CompletionStage<Response> method(String name) {
+        return submit(() -> builder.method(name));
+    }
+
+    @Override
+    public <T> CompletionStage<T> method(String name, Class<T> responseType) {
+        return submit(() -> builder.method(name, responseType));
+    }
+
+    @Override
+    public <T> CompletionStage<T> method(String name, GenericType<T> responseType) {
+        return submit(() -> builder.method(name, responseType));
+    }
+
+    @Override
+    public CompletionStage<Response> method(String name, Entity<?> entity) {
+        return submit(() -> builder.method(name, entity));
+    }
+
+    @Override
+    public <T> CompletionStage<T> method(String name, Entity<?> entity, Class<T> responseType) {
+        return submit(() -> builder.method(name, entity, responseType));
+    }
+
+    @Override
+    public <T> CompletionStage<T> method(String name, Entity<?> entity, GenericType<T> responseType) {
+        return submit(() -> builder.method(name, entity, responseType));
+    }
+}
@@ -3,6 +3,7 @@ package io.syndesis.qe.publicapisteps;
 import static org.assertj.core.api.Assertions.assertThat;
 
 import io.syndesis.qe.endpoints.publicendpoint.EnvironmentsPublicEndpoint;
+import io.syndesis.qe.endpoints.util.RetryingRxInvoker;
 import io.syndesis.qe.utils.TestUtils;
 
 import org.springframework.beans.factory.annotation.Autowired;
@@ -68,9 +69,11 @@ public class EnvironmentsPublicApiSteps {
 
     @When("^delete all tags in Syndesis$")
     public void deleteAllTags() {
-        for (String tag : environmentsEndpoint.getAllEnvironments()) {
+        // The tags are independent, so delete them in parallel
+        RetryingRxInvoker.awaitAll(environmentsEndpoint.getAllEnvironments().stream().map(tag -> RetryingRxInvoker.submit(() -> {
             deleteTag(tag);
-        }
+            return null;
+        })));
     }
 
     /**
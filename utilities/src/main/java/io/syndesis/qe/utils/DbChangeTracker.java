@@ -0,0 +1,153 @@
+package io.syndesis.qe.utils;
+
+import static org.junit.Assert.fail;
+
+import io.syndesis.qe.wait.BackoffPoller;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Waits for the rows in the database tables without re-reading the whole tables.
+ * <p>
+ * For each table a high-water mark of its tracking column (the primary key by default, or for example a timestamp column set by
+ * {@link #trackBy(String, String)}) is remembered and each poll reads only the rows above it. The rows read so far are kept, so the
+ * next waits on the same table can match them as well. Use {@link #mark(String)} to ignore the rows that already exist.
+ * <p>
+ * Tables without a single-column primary key and without the tracking column set are read whole on each poll.
+ * <p>
+ * Only the new rows are tracked, the changes of the existing rows are not visible to the tracker.
+ */
+@Slf4j
+public class DbChangeTracker {
+    private static final long DEFAULT_TIMEOUT = 120L;
+
+    private final DbUtils dbUtils;
+    private final Map<String, TableState> tables = new HashMap<>();
+
+    public DbChangeTracker(DbUtils dbUtils) {
+        this.dbUtils = dbUtils;
+    }
+
+    /**
+     * Sets the column with the increasing values used to find the new rows.
+     *
+     * @param tableName table name
+     * @param column column name
+     * @return this
+     */
+    public DbChangeTracker trackBy(String tableName, String column) {
+        tables.put(tableName.toLowerCase(), new TableState(Optional.of(column.toLowerCase())));
+        return this;
+    }
+
+    /**
+     * Ignores all rows that are currently in the table.
+     *
+     * @param tableName table name
+     */
+    public void mark(String tableName) {
+        final TableState state = state(tableName);
+        state.rows.clear();
+        state.ignored.clear();
+        if (state.column.isPresent()) {
+            final List<Map<String, Object>> max =
+                dbUtils.queryForRows("SELECT MAX(" + state.column.get() + ") AS hwm FROM " + tableName.toUpperCase());
+            state.highWaterMark = max.isEmpty() ? null : max.get(0).get("hwm");
+        } else {
+            state.ignored.addAll(dbUtils.queryForRows("SELECT * FROM " + tableName.toUpperCase()));
+        }
+        log.debug("Marked table {} at {}", tableName, state.highWaterMark);
+    }
+
+    /**
+     * Waits for at least count rows matching the predicate with the default timeout of 120 seconds.
+     *
+     * @param tableName table name
+     * @param predicate predicate for the row, the row is a map of lower-case column name to value
+     * @param count minimal number of matching rows
+     * @return matching rows
+     */
+    public List<Map<String, Object>> waitForRows(String tableName, Predicate<Map<String, Object>> predicate, int count) {
+        return waitForRows(tableName, predicate, count, TimeUnit.SECONDS, DEFAULT_TIMEOUT);
+    }
+
+    /**
+     * Waits for at least count rows matching the predicate. Returns as soon as the rows are found, fails when the timeout exceeds.
+     *
+     * @param tableName table name
+     * @param predicate predicate for the row, the row is a map of lower-case column name to value
+     * @param count minimal number of matching rows
+     * @param unit time unit of the timeout
+     * @param timeout timeout
+     * @return matching rows
+     */
+    public List<Map<String, Object>> waitForRows(String tableName, Predicate<Map<String, Object>> predicate, int count, TimeUnit unit,
+        long timeout) {
+        final TableState state = state(tableName);
+        final BackoffPoller.PollResult<List<Map<String, Object>>> result = new BackoffPoller(unit, timeout)
+            .interval(TimeUnit.MILLISECONDS, 500, 5000)
+            .named("Rows in " + tableName)
+            .poll(() -> {
+                fetchNewRows(tableName, state);
+                return state.rows.stream().filter(predicate).collect(Collectors.toList());
+            }, rows -> rows.size() >= count);
+        if (!result.isSuccess()) {
+            fail("Expected at least " + count + " matching rows in table " + tableName + ", found " + result.getLastValue().size());
+        }
+        return result.getLastValue();
+    }
+
+    private void fetchNewRows(String tableName, TableState state) {
+        if (!state.column.isPresent()) {
+            // Nothing to track by, read the whole table without the rows that existed when it was marked
+            state.rows.clear();
+            dbUtils.queryForRows("SELECT * FROM " + tableName.toUpperCase()).stream()
+                .filter(row -> !state.ignored.contains(row))
+                .forEach(state.rows::add);
+            return;
+        }
+        final String column = state.column.get();
+        final List<Map<String, Object>> rows = state.highWaterMark == null
+            ? dbUtils.queryForRows("SELECT * FROM " + tableName.toUpperCase() + " ORDER BY " + column)
+            : dbUtils.queryForRows("SELECT * FROM " + tableName.toUpperCase() + " WHERE " + column + " > ? ORDER BY " + column,
+            state.highWaterMark);
+        if (!rows.isEmpty()) {
+            state.highWaterMark = rows.get(rows.size() - 1).get(column);
+            state.rows.addAll(rows);
+            log.debug("Read {} new rows from {}, high-water mark is {}", rows.size(), tableName, state.highWaterMark);
+        }
+    }
+
+    private TableState state(String tableName) {
+        return tables.computeIfAbsent(tableName.toLowerCase(), t -> {
+            final Optional<String> primaryKey = dbUtils.getPrimaryKeyColumn(tableName);
+            if (!primaryKey.isPresent()) {
+                log.debug("Table {} has no single-column primary key, it will be read whole on each poll", tableName);
+            }
+            return new TableState(primaryKey);
+        });
+    }
+
+    private static final class TableState {
+        private final Optional<String> column;
+        private final List<Map<String, Object>> rows = new ArrayList<>();
+        // rows that existed when the table without the tracking column was marked
+        private final Set<Map<String, Object>> ignored = new HashSet<>();
+        private Object highWaterMark;
+
+        private TableState(Optional<String> column) {
+            this.column = column;
+        }
+    }
+}
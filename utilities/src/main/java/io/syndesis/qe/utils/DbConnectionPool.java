@@ -0,0 +1,314 @@
+package io.syndesis.qe.utils;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Small JDBC connection pool for one database.
+ * <p>
+ * The borrowed connections are proxies, closing them returns the physical connection to the pool. Idle connections are validated
+ * before they are borrowed again and connections borrowed for too long are reported together with the stack trace of the borrower.
+ * When a new physical connection can't be created, the pool calls the reconnect callback (for example to re-create the port-forward)
+ * and tries once more. The close listeners are notified about each physical connection the pool closes, so that the resources
+ * kept for the connection (for example the cached statements) can be dropped.
+ */
+@Slf4j
+public class DbConnectionPool {
+    private static final int VALIDATION_TIMEOUT_SECONDS = 5;
+    private static final long VALIDATE_AFTER_IDLE = TimeUnit.SECONDS.toMillis(30);
+    private static final long IDLE_TIMEOUT = TimeUnit.MINUTES.toMillis(5);
+    private static final long BORROW_TIMEOUT = TimeUnit.SECONDS.toMillis(30);
+    private static final long LEAK_THRESHOLD = TimeUnit.MINUTES.toMillis(15);
+    private static final List<Consumer<Connection>> CLOSE_LISTENERS = new CopyOnWriteArrayList<>();
+
+    /**
+     * Creates a new physical connection.
+     */
+    @FunctionalInterface
+    public interface ConnectionFactory {
+        Connection create() throws SQLException;
+    }
+
+    @Getter
+    private final String name;
+    private final int minIdle;
+    private final int maxSize;
+    private final ConnectionFactory factory;
+    private final Runnable reconnect;
+    private final Deque<IdleConnection> idle = new ArrayDeque<>();
+    // proxy -> borrowed connection
+    private final Map<Connection, Borrowed> borrowed = new ConcurrentHashMap<>();
+    private int size = 0;
+
+    public DbConnectionPool(String name, int minIdle, int maxSize, ConnectionFactory factory, Runnable reconnect) {
+        if (minIdle < 0 || maxSize < 1 || minIdle > maxSize) {
+            throw new IllegalArgumentException("Invalid pool size: min " + minIdle + ", max " + maxSize);
+        }
+        this.name = name;
+        this.minIdle = minIdle;
+        this.maxSize = maxSize;
+        this.factory = factory;
+        this.reconnect = reconnect;
+    }
+
+    /**
+     * Registers the listener called with each physical connection closed by any pool.
+     *
+     * @param listener listener
+     */
+    public static void addCloseListener(Consumer<Connection> listener) {
+        CLOSE_LISTENERS.add(listener);
+    }
+
+    /**
+     * Borrows a valid connection, waits for a returned one when all connections are in use.
+     *
+     * @return connection, closing it returns it to the pool
+     * @throws SQLException when no connection could be created or the pool stays exhausted
+     */
+    public Connection borrow() throws SQLException {
+        reportLeaks();
+        final long deadline = System.currentTimeMillis() + BORROW_TIMEOUT;
+        while (true) {
+            IdleConnection candidate = null;
+            synchronized (this) {
+                evictIdle();
+                if (!idle.isEmpty()) {
+                    candidate = idle.pollFirst();
+                } else if (size < maxSize) {
+                    size++;
+                } else {
+                    final long wait = deadline - System.currentTimeMillis();
+                    if (wait <= 0) {
+                        throw new SQLException("Connection pool " + name + " exhausted, all " + maxSize + " connections are in use");
+                    }
+                    try {
+                        wait(wait);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new SQLException("Interrupted while waiting for a connection", e);
+                    }
+                    continue;
+                }
+            }
+            if (candidate == null) {
+                return wrap(createPhysical());
+            }
+            if (isValid(candidate)) {
+                return wrap(candidate.connection);
+            }
+            log.debug("Discarding invalid connection from pool {}", name);
+            discard(candidate.connection);
+        }
+    }
+
+    /**
+     * Returns all borrowed connections to the pool, the proxies held by the borrowers are closed.
+     */
+    public void releaseAll() {
+        for (Connection proxy : borrowed.keySet()) {
+            release(proxy);
+        }
+    }
+
+    /**
+     * Closes all idle connections and reclaims and closes all borrowed ones.
+     */
+    public void close() {
+        releaseAll();
+        synchronized (this) {
+            while (!idle.isEmpty()) {
+                closeQuietly(idle.pollFirst().connection);
+                size--;
+            }
+            notifyAll();
+        }
+    }
+
+    public synchronized int getIdleCount() {
+        return idle.size();
+    }
+
+    public int getBorrowedCount() {
+        return borrowed.size();
+    }
+
+    private Connection createPhysical() throws SQLException {
+        try {
+            try {
+                return factory.create();
+            } catch (SQLException e) {
+                log.info("Unable to connect to {} ({}), reconnecting", name, e.getMessage());
+                reconnect.run();
+                return factory.create();
+            }
+        } catch (SQLException | RuntimeException e) {
+            synchronized (this) {
+                size--;
+                notifyAll();
+            }
+            throw e;
+        }
+    }
+
+    private boolean isValid(IdleConnection candidate) {
+        if (System.currentTimeMillis() - candidate.since < VALIDATE_AFTER_IDLE) {
+            return true;
+        }
+        try {
+            return !candidate.connection.isClosed() && candidate.connection.isValid(VALIDATION_TIMEOUT_SECONDS);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private Connection wrap(Connection physical) {
+        final Borrowed b = new Borrowed(physical);
+        final Connection proxy =
+            (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[] {Connection.class}, b);
+        borrowed.put(proxy, b);
+        return proxy;
+    }
+
+    private void release(Connection proxy) {
+        final Borrowed b = borrowed.remove(proxy);
+        if (b == null) {
+            return;
+        }
+        b.released = true;
+        boolean reusable;
+        try {
+            reusable = !b.connection.isClosed();
+            if (reusable && !b.connection.getAutoCommit()) {
+                b.connection.rollback();
+                b.connection.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            reusable = false;
+        }
+        if (!reusable) {
+            discard(b.connection);
+            return;
+        }
+        synchronized (this) {
+            idle.addFirst(new IdleConnection(b.connection));
+            notifyAll();
+        }
+    }
+
+    private void discard(Connection connection) {
+        closeQuietly(connection);
+        synchronized (this) {
+            size--;
+            notifyAll();
+        }
+    }
+
+    /**
+     * Closes connections idle for too long, keeps at least min idle connections. Must be called holding the lock.
+     */
+    private void evictIdle() {
+        final long now = System.currentTimeMillis();
+        // The least recently used connections are at the end
+        while (idle.size() > minIdle && now - idle.peekLast().since > IDLE_TIMEOUT) {
+            closeQuietly(idle.pollLast().connection);
+            size--;
+        }
+    }
+
+    private void reportLeaks() {
+        final long now = System.currentTimeMillis();
+        borrowed.values().stream().filter(b -> !b.reported && now - b.since > LEAK_THRESHOLD).forEach(b -> {
+            b.reported = true;
+            log.warn("Connection from pool {} borrowed for more than {} minutes and not returned, possible leak", name,
+                TimeUnit.MILLISECONDS.toMinutes(LEAK_THRESHOLD), b.borrowedAt);
+        });
+    }
+
+    private static void closeQuietly(Connection connection) {
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            log.debug("Error while closing DB connection", e);
+        }
+        for (Consumer<Connection> listener : CLOSE_LISTENERS) {
+            try {
+                listener.accept(connection);
+            } catch (RuntimeException e) {
+                log.debug("DB connection close listener failed", e);
+            }
+        }
+    }
+
+    private static final class IdleConnection {
+        private final Connection connection;
+        private final long since = System.currentTimeMillis();
+
+        private IdleConnection(Connection connection) {
+            this.connection = connection;
+        }
+    }
+
+    /**
+     * Borrowed connection, handles the calls of its proxy.
+     */
+    private final class Borrowed implements InvocationHandler {
+        private final Connection connection;
+        private final long since = System.currentTimeMillis();
+        private final Exception borrowedAt = new Exception("Connection borrowed here");
+        private volatile boolean released = false;
+        private volatile boolean reported = false;
+
+        private Borrowed(Connection connection) {
+            this.connection = connection;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "Pooled(" + name + ")" + (released ? "[released]" : connection.toString());
+                case "close":
+                    release((Connection) proxy);
+                    return null;
+                case "isClosed":
+                    return released || connection.isClosed();
+                case "unwrap":
+                    // The physical connection, for example to cache the statements across borrowers
+                    if (((Class<?>) args[0]).isInstance(connection)) {
+                        return connection;
+                    }
+                    break;
+                default:
+                    break;
+            }
+            if (released) {
+                throw new SQLException("Connection was already returned to the pool " + name);
+            }
+            try {
+                return method.invoke(connection, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
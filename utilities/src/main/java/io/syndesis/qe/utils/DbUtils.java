@@ -5,16 +5,51 @@ import static org.junit.Assert.fail;
 import io.syndesis.qe.endpoints.ConnectionsActionsEndpoint;
 
 import java.sql.Connection;
+import java.sql.DatabaseMetaData;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
+import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 
+/**
+ * Executes the SQL using a connection borrowed from the {@link SampleDbConnectionManager} pool. The connection is held until the
+ * utils are closed (or until all connections are returned after the scenario), so the short-lived utils should be closed.
+ */
 @Slf4j
-public class DbUtils {
+public class DbUtils implements AutoCloseable {
+    private static final int STATEMENT_CACHE_SIZE = 64;
+    // Plain "SELECT * FROM ..." query that can be rewritten to "SELECT COUNT(*) FROM ..."
+    private static final Pattern SELECT_ALL = Pattern.compile("^\\s*SELECT\\s+\\*\\s+FROM\\s+(.+?)\\s*;?\\s*$",
+        Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+    private static final Pattern NOT_COUNTABLE = Pattern.compile("\\b(GROUP\\s+BY|ORDER\\s+BY|DISTINCT|UNION|LIMIT|OFFSET|FETCH)\\b",
+        Pattern.CASE_INSENSITIVE);
+    // Prepared statements cached per physical connection, the cache is dropped when the pool closes the connection
+    private static final Map<Connection, StatementCache> STATEMENT_CACHES = Collections.synchronizedMap(new HashMap<>());
+
+    static {
+        DbConnectionPool.addCloseListener(STATEMENT_CACHES::remove);
+    }
+
     private Connection dbConnection;
     private String databaseType;
+    // Number of rows sent to the database in one batch by the batch methods
+    @Setter
+    private int batchSize = 1000;
 
     public DbUtils(String dbType) {
         this.databaseType = dbType;
@@ -22,6 +57,8 @@ public class DbUtils {
     }
 
     public void setConnection(String dbType) {
+        // Return the previous connection to the pool
+        closeQuietly();
         this.databaseType = dbType;
         this.dbConnection = SampleDbConnectionManager.getConnection(dbType);
     }
@@ -86,7 +123,7 @@ public class DbUtils {
      * @return row count
      */
     public int getNumberOfRecordsInTable(String tableName) {
-        return getCountOfInvokedQuery("SELECT * FROM " + tableName.toUpperCase());
+        return getCountOfInvokedQuery("SELECT COUNT(*) FROM " + tableName.toUpperCase());
     }
 
     /**
@@ -98,17 +135,38 @@ public class DbUtils {
      * @return number of records in the table
      */
     public int getNumberOfRecordsInTable(String tableName, String column, String value) {
-        return getCountOfInvokedQuery("SELECT * FROM " + tableName.toUpperCase() + " WHERE " + column + " LIKE '" + value + "'");
+        return count("SELECT COUNT(*) FROM " + tableName.toUpperCase() + " WHERE " + column + " LIKE ?", value);
     }
 
+    /**
+     * Gets the number of rows returned by the query. The rows are counted by the database, the query is wrapped in the COUNT(*) query.
+     *
+     * @param query query
+     * @return number of rows
+     */
     public int getCountOfInvokedQuery(String query) {
-        int records = 0;
-        try {
-            final ResultSet resultSet = executeSQLGetResultSet(query);
+        if (query.trim().toUpperCase().startsWith("SELECT COUNT(*)")) {
+            return count(query);
+        }
+        final Matcher m = SELECT_ALL.matcher(query);
+        if (m.matches() && !NOT_COUNTABLE.matcher(m.group(1)).find()) {
+            return count("SELECT COUNT(*) FROM " + m.group(1));
+        }
+        return count("SELECT COUNT(*) FROM (" + query.trim().replaceAll(";$", "") + ") counted");
+    }
 
-            //inefficient but it works :/ our table has 2 rows so it is not a problem...
-            while (resultSet != null && resultSet.next()) {
-                records++;
+    /**
+     * Executes the COUNT query with the given parameters.
+     *
+     * @param countQuery query returning a single number
+     * @param params query parameters
+     * @return the number returned by the query
+     */
+    public int count(String countQuery, Object... params) {
+        int records = 0;
+        try (ResultSet resultSet = prepare(countQuery, params).executeQuery()) {
+            if (resultSet.next()) {
+                records = resultSet.getInt(1);
             }
         } catch (SQLException ex) {
             log.error("Error: " + ex);
@@ -118,6 +176,138 @@ public class DbUtils {
         return records;
     }
 
+    /**
+     * Executes the parameterized INSERT, UPDATE or DELETE statement. The statement is prepared only once per connection.
+     *
+     * @param sql sql with ? placeholders
+     * @param params parameters
+     * @return the row count or -1 when the statement failed
+     */
+    public int executeUpdate(String sql, Object... params) {
+        try {
+            return prepare(sql, params).executeUpdate();
+        } catch (SQLException ex) {
+            log.error("Error: " + ex);
+            return -1;
+        }
+    }
+
+    /**
+     * Executes the parameterized query and reads all rows.
+     *
+     * @param sql sql with ? placeholders
+     * @param params parameters
+     * @return rows as maps of lower-case column label to value
+     */
+    public List<Map<String, Object>> queryForRows(String sql, Object... params) {
+        final List<Map<String, Object>> rows = new ArrayList<>();
+        try (ResultSet resultSet = prepare(sql, params).executeQuery()) {
+            final ResultSetMetaData metaData = resultSet.getMetaData();
+            while (resultSet.next()) {
+                final Map<String, Object> row = new LinkedHashMap<>();
+                for (int i = 1; i <= metaData.getColumnCount(); i++) {
+                    row.put(metaData.getColumnLabel(i).toLowerCase(), resultSet.getObject(i));
+                }
+                rows.add(row);
+            }
+        } catch (SQLException ex) {
+            log.error("Error: " + ex);
+            fail("SQLException occurred");
+        }
+        return rows;
+    }
+
+    /**
+     * Gets the single-column primary key of the table.
+     *
+     * @param tableName table name
+     * @return primary key column or empty when the table has no or composite primary key
+     */
+    public Optional<String> getPrimaryKeyColumn(String tableName) {
+        reopenConnectionIfIsClosed();
+        try {
+            final DatabaseMetaData metaData = dbConnection.getMetaData();
+            // The metadata is case sensitive and the databases differ in the case of unquoted names
+            for (String name : new String[] {tableName, tableName.toLowerCase(), tableName.toUpperCase()}) {
+                final List<String> columns = new ArrayList<>();
+                try (ResultSet resultSet = metaData.getPrimaryKeys(null, null, name)) {
+                    while (resultSet.next()) {
+                        columns.add(resultSet.getString("COLUMN_NAME").toLowerCase());
+                    }
+                }
+                if (!columns.isEmpty()) {
+                    return columns.size() == 1 ? Optional.of(columns.get(0)) : Optional.empty();
+                }
+            }
+        } catch (SQLException ex) {
+            log.error("Error: " + ex);
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Inserts the rows into the table in batches.
+     *
+     * @param tableName table name
+     * @param columns column names
+     * @param rows rows with the values in the same order as the columns
+     * @return number of inserted rows
+     */
+    public int insertBatch(String tableName, List<String> columns, Collection<? extends List<?>> rows) {
+        final String sql = "INSERT INTO " + tableName + "(" + String.join(", ", columns) + ") VALUES ("
+            + String.join(", ", Collections.nCopies(columns.size(), "?")) + ")";
+        return executeBatch(sql, rows);
+    }
+
+    /**
+     * Executes the statement for each row of parameters using the JDBC batches of {@link #batchSize} rows. Each batch is committed
+     * separately.
+     *
+     * @param sql sql with ? placeholders
+     * @param rows parameters for each execution
+     * @return number of affected rows
+     */
+    public int executeBatch(String sql, Collection<? extends List<?>> rows) {
+        reopenConnectionIfIsClosed();
+        log.debug("Executing SQL batch of {} rows: {}", rows.size(), sql);
+        int affected = 0;
+        boolean autoCommit = true;
+        try {
+            autoCommit = dbConnection.getAutoCommit();
+            dbConnection.setAutoCommit(false);
+            final PreparedStatement statement = prepare(sql);
+            int inBatch = 0;
+            for (List<?> row : rows) {
+                setParameters(statement, row.toArray());
+                statement.addBatch();
+                if (++inBatch == batchSize) {
+                    affected += sum(statement.executeBatch());
+                    dbConnection.commit();
+                    inBatch = 0;
+                }
+            }
+            if (inBatch > 0) {
+                affected += sum(statement.executeBatch());
+                dbConnection.commit();
+            }
+        } catch (SQLException ex) {
+            log.error("Error: " + ex);
+            try {
+                dbConnection.rollback();
+            } catch (SQLException e) {
+                log.debug("Rollback failed", e);
+            }
+            fail("SQLException occurred during batch execution: " + ex.getMessage());
+        } finally {
+            try {
+                dbConnection.setAutoCommit(autoCommit);
+            } catch (SQLException e) {
+                log.debug("Unable to restore auto-commit", e);
+            }
+        }
+        return affected;
+    }
+
     /**
      * Checks if the connection is still alive.
      *
@@ -126,7 +316,7 @@ public class DbUtils {
     public boolean isConnectionValid() {
         try {
             log.info("Validating DB connection; When exception printed out, the connection is not valid");
-            return dbConnection.isValid(30);
+            return dbConnection.isValid(5);
         } catch (Exception e) {
             // This exception is *not* the same as mentioned in the info log ^ . The isValid method is printing out the exception by default.
             e.printStackTrace();
@@ -176,6 +366,68 @@ public class DbUtils {
         return new ConnectionsActionsEndpoint(connectionId).getStoredProcedureTemplate(storedProcedureName, start);
     }
 
+    /**
+     * Gets the cached prepared statement for the current connection and sets the parameters.
+     */
+    private PreparedStatement prepare(String sql, Object... params) throws SQLException {
+        reopenConnectionIfIsClosed();
+        log.debug("Executing SQL query: " + sql);
+        final StatementCache cache;
+        synchronized (STATEMENT_CACHES) {
+            // Pooled connections are keyed by the physical connection, so the statements are reused by all its borrowers
+            cache = STATEMENT_CACHES.computeIfAbsent(dbConnection.unwrap(Connection.class), c -> new StatementCache());
+        }
+        PreparedStatement statement;
+        synchronized (cache) {
+            statement = cache.get(sql);
+            if (statement == null || statement.isClosed()) {
+                statement = dbConnection.prepareStatement(sql);
+                cache.put(sql, statement);
+            }
+        }
+        statement.clearParameters();
+        setParameters(statement, params);
+        return statement;
+    }
+
+    private void setParameters(PreparedStatement statement, Object... params) throws SQLException {
+        for (int i = 0; i < params.length; i++) {
+            if (params[i] instanceof String && "postgresql".equals(databaseType)) {
+                // Let the server infer the type from the column the same way as for the quoted literal
+                statement.setObject(i + 1, params[i], Types.OTHER);
+            } else {
+                statement.setObject(i + 1, params[i]);
+            }
+        }
+    }
+
+    private static int sum(int[] counts) {
+        int sum = 0;
+        for (int count : counts) {
+            // Some drivers (Oracle) don't report the count of the batched statements
+            sum += count == Statement.SUCCESS_NO_INFO ? 1 : Math.max(count, 0);
+        }
+        return sum;
+    }
+
+    /**
+     * Returns the connection to the pool, the connection is borrowed again when the utils are used afterwards.
+     */
+    @Override
+    public void close() {
+        closeQuietly();
+    }
+
+    private void closeQuietly() {
+        try {
+            if (dbConnection != null) {
+                dbConnection.close();
+            }
+        } catch (SQLException ex) {
+            log.debug("Error while closing DB connection", ex);
+        }
+    }
+
     public void reopenConnectionIfIsClosed() {
         try {
             if (dbConnection.isClosed()) {
@@ -186,4 +438,26 @@ public class DbUtils {
             fail("SQLException occurred");
         }
     }
+
+    /**
+     * LRU cache of the prepared statements, the evicted statements are closed.
+     */
+    private static class StatementCache extends LinkedHashMap<String, PreparedStatement> {
+        StatementCache() {
+            super(16, 0.75f, true);
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, PreparedStatement> eldest) {
+            if (size() > STATEMENT_CACHE_SIZE) {
+                try {
+                    eldest.getValue().close();
+                } catch (SQLException e) {
+                    log.debug("Unable to close prepared statement", e);
+                }
+                return true;
+            }
+            return false;
+        }
+    }
 }
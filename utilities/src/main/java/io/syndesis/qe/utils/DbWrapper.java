@@ -1,15 +1,12 @@
 package io.syndesis.qe.utils;
 
-import java.sql.Connection;
-
-import io.fabric8.kubernetes.client.LocalPortForward;
 import lombok.Data;
 
 @Data
 public class DbWrapper {
     private String dbType;
-    private LocalPortForward localPortForward;
-    private Connection dbConnection;
+    private PortForwardRegistry.Lease localPortForward;
+    private DbConnectionPool pool;
 
     public DbWrapper(String dbType){
         setDbType(dbType);
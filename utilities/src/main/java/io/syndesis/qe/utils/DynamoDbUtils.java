@@ -10,35 +10,71 @@ import org.springframework.stereotype.Component;
 
 import javax.annotation.PostConstruct;
 
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import lombok.extern.slf4j.Slf4j;
 import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
 import software.amazon.awssdk.regions.Region;
 import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClientBuilder;
 import software.amazon.awssdk.services.dynamodb.model.AttributeDefinition;
 import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.BatchWriteItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.BatchWriteItemResponse;
 import software.amazon.awssdk.services.dynamodb.model.CreateTableRequest;
-import software.amazon.awssdk.services.dynamodb.model.DeleteItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.DeleteRequest;
 import software.amazon.awssdk.services.dynamodb.model.DeleteTableRequest;
+import software.amazon.awssdk.services.dynamodb.model.DescribeTableRequest;
+import software.amazon.awssdk.services.dynamodb.model.GetItemRequest;
 import software.amazon.awssdk.services.dynamodb.model.KeySchemaElement;
 import software.amazon.awssdk.services.dynamodb.model.KeyType;
 import software.amazon.awssdk.services.dynamodb.model.ListTablesRequest;
 import software.amazon.awssdk.services.dynamodb.model.ListTablesResponse;
 import software.amazon.awssdk.services.dynamodb.model.ProvisionedThroughput;
 import software.amazon.awssdk.services.dynamodb.model.PutItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.PutRequest;
+import software.amazon.awssdk.services.dynamodb.model.QueryRequest;
+import software.amazon.awssdk.services.dynamodb.model.QueryResponse;
 import software.amazon.awssdk.services.dynamodb.model.ScalarAttributeType;
 import software.amazon.awssdk.services.dynamodb.model.ScanRequest;
 import software.amazon.awssdk.services.dynamodb.model.ScanResponse;
+import software.amazon.awssdk.services.dynamodb.model.Select;
+import software.amazon.awssdk.services.dynamodb.model.WriteRequest;
 
 @Slf4j
 @Component
 @Lazy
 public class DynamoDbUtils {
+    // Number of segments scanned in parallel
+    private static final int TOTAL_SEGMENTS = 4;
+    // Max number of items in one BatchWriteItem request
+    private static final int BATCH_SIZE = 25;
+    private static final int MAX_BATCH_RETRIES = 10;
+    private static final ThreadPoolExecutor EXECUTOR =
+        new ThreadPoolExecutor(TOTAL_SEGMENTS, TOTAL_SEGMENTS, 60L, TimeUnit.SECONDS, new LinkedBlockingQueue<>());
+
+    static {
+        EXECUTOR.allowCoreThreadTimeOut(true);
+    }
 
     private DynamoDbClient dynamoDb;
     private String tableName;
+    // names of the key attributes of the table, hash key first
+    private List<String> keyAttributes;
 
     @PostConstruct
     public void initClient() {
@@ -48,9 +84,13 @@ public class DynamoDbUtils {
             .orElseThrow(() -> new IllegalArgumentException("Unable to find AWS DDB account"));
         final String region = dynamoDbAccount.getProperty("region");
         this.tableName = dynamoDbAccount.getProperty("tableName");
-        dynamoDb = DynamoDbClient.builder().region(Region.of(region))
-            .credentialsProvider(() -> AwsBasicCredentials.create(dynamoDbAccount.getProperty("accessKey"), dynamoDbAccount.getProperty("secretKey")))
-            .build();
+        final DynamoDbClientBuilder builder = DynamoDbClient.builder().region(Region.of(region))
+            .credentialsProvider(() -> AwsBasicCredentials.create(dynamoDbAccount.getProperty("accessKey"), dynamoDbAccount.getProperty("secretKey")));
+        // Optional endpoint, for example of the DynamoDB Local
+        if (dynamoDbAccount.getProperty("endpoint") != null) {
+            builder.endpointOverride(URI.create(dynamoDbAccount.getProperty("endpoint")));
+        }
+        dynamoDb = builder.build();
     }
 
     public void createTable(String primaryKey, String sortKey) {
@@ -68,6 +108,7 @@ public class DynamoDbUtils {
                 AttributeDefinition.builder().attributeType(ScalarAttributeType.S).attributeName(primaryKey).build(),
                 AttributeDefinition.builder().attributeType(ScalarAttributeType.S).attributeName(sortKey).build())
             .build());
+        keyAttributes = null;
     }
 
     public void deleteTable() {
@@ -82,64 +123,158 @@ public class DynamoDbUtils {
         } else {
             log.debug("The AWS dynamoDb table {} doesn't exist, continuing.", tableName);
         }
+        keyAttributes = null;
     }
 
     public void insertItem(Map<String, String> item) {
+        dynamoDb.putItem(PutItemRequest.builder().item(toAttributes(item)).tableName(tableName).build());
+    }
 
-        Map<String, AttributeValue> input =
-            item.entrySet().stream().collect(Collectors.toMap(
-                entry -> entry.getKey(),
-                entry -> AttributeValue.builder().s(entry.getValue()).build())
-            );
-
-        dynamoDb.putItem(PutItemRequest.builder().item(input).tableName(tableName).build());
+    /**
+     * Inserts the items using BatchWriteItem requests of up to 25 items.
+     *
+     * @param items items, the map of attribute name to string value
+     */
+    public void insertItems(List<Map<String, String>> items) {
+        batchWrite(items.stream()
+            .map(item -> WriteRequest.builder().putRequest(PutRequest.builder().item(toAttributes(item)).build()).build())
+            .collect(Collectors.toList()));
     }
 
+    /**
+     * Checks if there is an item whose attributes all have the same values as in the record. When the record contains the whole key,
+     * the item is read directly, when it contains the hash key, only the items with that hash key are queried, otherwise the table
+     * is scanned.
+     *
+     * @param recordValue the map of attribute name to string value
+     * @return true if the item is present
+     */
     public boolean verifyRecordIsPresent(Map<String, String> recordValue) {
+        final List<String> keys = getKeyAttributes();
+        if (recordValue.keySet().containsAll(keys)) {
+            final Map<String, AttributeValue> item = dynamoDb.getItem(GetItemRequest.builder()
+                .tableName(tableName)
+                .key(toAttributes(keys.stream().collect(Collectors.toMap(Function.identity(), recordValue::get))))
+                .consistentRead(true)
+                .build()).item();
+            return item != null && !item.isEmpty() && matches(item, recordValue);
+        }
+        if (recordValue.containsKey(keys.get(0))) {
+            QueryRequest request = QueryRequest.builder()
+                .tableName(tableName)
+                .keyConditionExpression("#k = :v")
+                .expressionAttributeNames(Collections.singletonMap("#k", keys.get(0)))
+                .expressionAttributeValues(Collections.singletonMap(":v", AttributeValue.builder().s(recordValue.get(keys.get(0))).build()))
+                .consistentRead(true)
+                .build();
+            while (true) {
+                final QueryResponse response = dynamoDb.query(request);
+                if (response.items().stream().anyMatch(item -> matches(item, recordValue))) {
+                    return true;
+                }
+                if (response.lastEvaluatedKey() == null || response.lastEvaluatedKey().isEmpty()) {
+                    return false;
+                }
+                request = request.toBuilder().exclusiveStartKey(response.lastEvaluatedKey()).build();
+            }
+        }
+        final List<Map<String, AttributeValue>> found = Collections.synchronizedList(new ArrayList<>());
+        scan(ScanRequest.builder().tableName(tableName).build(), response ->
+            response.items().stream().filter(item -> matches(item, recordValue)).forEach(found::add));
+        return !found.isEmpty();
+    }
 
-        boolean tableContainsItem = false;
+    public int getNrOfRecordsPresentInTable() {
+        final List<Integer> counts = Collections.synchronizedList(new ArrayList<>());
+        scan(ScanRequest.builder().tableName(tableName).select(Select.COUNT).build(), response -> counts.add(response.count()));
+        return counts.stream().mapToInt(Integer::intValue).sum();
+    }
 
-        ScanRequest scanRequest = ScanRequest.builder().tableName(tableName).build();
-        ScanResponse result = dynamoDb.scan(scanRequest);
-        for (Map<String, AttributeValue> item : result.items()) {
+    /**
+     * Deletes all items, the keys are read by a parallel scan and deleted using BatchWriteItem requests.
+     */
+    public void purgeTable() {
+        final List<String> keys = getKeyAttributes();
+        final Map<String, String> names = new HashMap<>();
+        for (int i = 0; i < keys.size(); i++) {
+            names.put("#k" + i, keys.get(i));
+        }
+        final List<WriteRequest> deletes = Collections.synchronizedList(new ArrayList<>());
+        final ScanRequest request = ScanRequest.builder()
+            .tableName(tableName)
+            .projectionExpression(String.join(", ", names.keySet()))
+            .expressionAttributeNames(names)
+            .build();
+        scan(request, response -> response.items().forEach(
+            item -> deletes.add(WriteRequest.builder().deleteRequest(DeleteRequest.builder().key(item).build()).build())));
+        batchWrite(deletes);
+    }
 
-            if (item.isEmpty()) {
-                fail("There is no record in the table");
+    /**
+     * Scans all segments of the table in parallel, each segment is read page by page.
+     *
+     * @param request scan request
+     * @param pageConsumer consumer of the pages, called concurrently from several threads
+     */
+    private void scan(ScanRequest request, Consumer<ScanResponse> pageConsumer) {
+        CompletableFuture.allOf(IntStream.range(0, TOTAL_SEGMENTS).mapToObj(segment -> CompletableFuture.runAsync(() -> {
+            ScanRequest segmentRequest = request.toBuilder().segment(segment).totalSegments(TOTAL_SEGMENTS).build();
+            while (true) {
+                final ScanResponse response = dynamoDb.scan(segmentRequest);
+                pageConsumer.accept(response);
+                if (response.lastEvaluatedKey() == null || response.lastEvaluatedKey().isEmpty()) {
+                    break;
+                }
+                segmentRequest = segmentRequest.toBuilder().exclusiveStartKey(response.lastEvaluatedKey()).build();
             }
+        }, EXECUTOR)).toArray(CompletableFuture[]::new)).join();
+    }
 
-            int i = item.keySet().size() - 1;
-            if (!tableContainsItem) {
-                for (String key : item.keySet()) {
-                    if (item.get(key).s().equals(recordValue.get(key))) {
-                        if (i > 0) {
-                            i--;
-                        } else {
-                            tableContainsItem = true;
-                            break;
-                        }
-                    } else {
-                        break;
-                    }
+    /**
+     * Sends the write requests in batches, the unprocessed items are retried with an exponential backoff.
+     *
+     * @param writes write requests
+     */
+    private void batchWrite(List<WriteRequest> writes) {
+        for (int i = 0; i < writes.size(); i += BATCH_SIZE) {
+            List<WriteRequest> batch = writes.subList(i, Math.min(i + BATCH_SIZE, writes.size()));
+            for (int attempt = 0; !batch.isEmpty(); attempt++) {
+                if (attempt > MAX_BATCH_RETRIES) {
+                    fail("Unable to write " + batch.size() + " items to the table " + tableName);
+                }
+                if (attempt > 0) {
+                    TestUtils.sleepIgnoreInterrupt(Math.min(50L << attempt, 5000L));
                 }
+                final BatchWriteItemResponse response = dynamoDb.batchWriteItem(BatchWriteItemRequest.builder()
+                    .requestItems(Collections.singletonMap(tableName, batch))
+                    .build());
+                batch = response.unprocessedItems() == null ? Collections.emptyList()
+                    : response.unprocessedItems().getOrDefault(tableName, Collections.emptyList());
             }
         }
-        return tableContainsItem;
     }
 
-    public int getNrOfRecordsPresentInTable() {
-
-        ScanRequest scanRequest = ScanRequest.builder().tableName(tableName).build();
-        ScanResponse result = dynamoDb.scan(scanRequest);
-        return result.items().size();
+    private List<String> getKeyAttributes() {
+        if (keyAttributes == null) {
+            keyAttributes = dynamoDb.describeTable(DescribeTableRequest.builder().tableName(tableName).build()).table().keySchema().stream()
+                .sorted((a, b) -> a.keyType() == KeyType.HASH ? -1 : b.keyType() == KeyType.HASH ? 1 : 0)
+                .map(KeySchemaElement::attributeName)
+                .collect(Collectors.toList());
+        }
+        return keyAttributes;
     }
 
-    public void purgeTable() {
-
-        ScanRequest scanRequest = ScanRequest.builder().tableName(tableName).build();
-        ScanResponse result = dynamoDb.scan(scanRequest);
+    /**
+     * Checks if all attributes of the item have the same values as in the record.
+     */
+    private static boolean matches(Map<String, AttributeValue> item, Map<String, String> recordValue) {
+        return !item.isEmpty() && item.entrySet().stream().allMatch(e -> Objects.equals(e.getValue().s(), recordValue.get(e.getKey())));
+    }
 
-        for (Map<String, AttributeValue> item : result.items()) {
-            dynamoDb.deleteItem(DeleteItemRequest.builder().tableName(tableName).key(item).build());
-        }
+    private static Map<String, AttributeValue> toAttributes(Map<String, String> item) {
+        return item.entrySet().stream().collect(Collectors.toMap(
+            Map.Entry::getKey,
+            entry -> AttributeValue.builder().s(entry.getValue()).build())
+        );
     }
 }
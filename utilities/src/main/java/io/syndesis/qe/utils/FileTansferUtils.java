@@ -1,11 +1,60 @@
 package io.syndesis.qe.utils;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+
 public interface FileTansferUtils {
+    /**
+     * Opens the content of the uploaded file, it is opened again when the upload is retried.
+     */
+    @FunctionalInterface
+    interface ContentSource {
+        InputStream open() throws IOException;
+    }
+
+    /**
+     * Reads the content of the downloaded file, it is called again when the download is retried.
+     *
+     * @param <R> result type
+     */
+    @FunctionalInterface
+    interface ContentReader<R> {
+        R read(InputStream content) throws IOException;
+    }
+
     public void deleteFile(String path);
 
     public boolean isFileThere(String directory, String fileName);
 
     public void uploadTestFile(String testFileName, String text, String remoteDirectory);
 
+    /**
+     * Uploads the files in parallel.
+     *
+     * @param files map of file name to content
+     * @param remoteDirectory remote directory
+     */
+    public void uploadTestFiles(Map<String, String> files, String remoteDirectory);
+
+    /**
+     * Uploads the files in parallel, the content is streamed to the server.
+     *
+     * @param files map of file name to content
+     * @param remoteDirectory remote directory
+     */
+    public void uploadFiles(Map<String, ContentSource> files, String remoteDirectory);
+
     public String getFileContent(String directory, String fileName);
+
+    /**
+     * Streams the content of the file to the reader.
+     *
+     * @param directory remote directory
+     * @param fileName file name
+     * @param reader reader of the content
+     * @param <R> result type
+     * @return result of the reader
+     */
+    public <R> R readFile(String directory, String fileName, ContentReader<R> reader);
 }
@@ -9,11 +9,12 @@ import org.junit.Assert;
 import org.apache.commons.net.ftp.FTPClient;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 
-import io.fabric8.kubernetes.client.LocalPortForward;
 import lombok.extern.slf4j.Slf4j;
 
 /**
@@ -24,39 +25,62 @@ import lombok.extern.slf4j.Slf4j;
 @Slf4j
 public class FtpClientManager {
 
-    private static LocalPortForward LOCAL_PORT_FORWARD = null;
+    private static PortForwardRegistry.Lease LOCAL_PORT_FORWARD = null;
+    private static final List<PortForwardRegistry.Lease> DATA_PORT_FORWARDS = new ArrayList<>();
 
-    private final String ftpServer = "127.0.0.1";
-    private final int ftpLocalPort = 2121;  //on local computer
+    private String ftpServer = "127.0.0.1";
 
     private String ftpPodName;
     private int ftpRemotePort;
     private String ftpUser;
     private String ftpPass;
+    // port of the server reachable without the port-forward, 0 when the server runs in the cluster
+    private int directPort = 0;
 
     public FtpClientManager() {
         initProperties();
     }
 
+    /**
+     * Creates the manager for the server reachable directly, for example the embedded FTP server in the tests.
+     *
+     * @param host server host
+     * @param port server port
+     * @param user user name
+     * @param password password
+     */
+    public FtpClientManager(String host, int port, String user, String password) {
+        ftpServer = host;
+        directPort = port;
+        ftpUser = user;
+        ftpPass = password;
+    }
+
     public FTPClient getClient() {
+        if (directPort != 0) {
+            return initClient();
+        }
 
-        if (LOCAL_PORT_FORWARD == null || !LOCAL_PORT_FORWARD.isAlive()) {
-            LOCAL_PORT_FORWARD = OpenShiftUtils.portForward(OpenShiftUtils.getInstance().getAnyPod("app", ftpPodName), ftpRemotePort, ftpLocalPort);
-            //since we use passive FTP connection, we need to forward data ports also
-            for (int i = 0; i < 10; i++) {
-                OpenShiftUtils.portForward(OpenShiftUtils.getInstance().getAnyPod("app", ftpPodName), FTP.FTP_DATA_PORT + i, FTP.FTP_DATA_PORT + i);
+        synchronized (FtpClientManager.class) {
+            if (LOCAL_PORT_FORWARD == null) {
+                LOCAL_PORT_FORWARD = PortForwardRegistry.forPodWithLabel("app", ftpPodName, ftpRemotePort);
+                //since we use passive FTP connection, we need to forward data ports also, to the same ports as announced by the server
+                for (int i = 0; i < 10; i++) {
+                    final int dataPort = FTP.FTP_DATA_PORT + i;
+                    DATA_PORT_FORWARDS.add(PortForwardRegistry.forPodWithLabel("app", ftpPodName, dataPort, dataPort));
+                }
             }
         }
         return initClient();
     }
 
     public void closeFtpClient(FTPClient ftpClient) {
-        TestUtils.terminateLocalPortForward(LOCAL_PORT_FORWARD);
+        // the port-forwards are kept for the next clients, the registry re-creates them when they die
         try {
             if (ftpClient == null) {
                 return;
             }
-            if (!ftpClient.isConnected()) {
+            if (ftpClient.isConnected()) {
                 ftpClient.logout();
                 ftpClient.disconnect();
             }
@@ -69,7 +93,7 @@ public class FtpClientManager {
         FTPClient ftpClient = new FTPClient();
         TestUtils.withRetry(() -> {
             try {
-                ftpClient.connect(ftpServer, ftpLocalPort);
+                ftpClient.connect(ftpServer, directPort != 0 ? directPort : LOCAL_PORT_FORWARD.getLocalPort());
                 ftpClient.login(ftpUser, ftpPass);
                 ftpClient.enterLocalPassiveMode();
                 ftpClient.setFileType(org.apache.commons.net.ftp.FTP.BINARY_FILE_TYPE);
@@ -4,24 +4,57 @@ import static org.assertj.core.api.Assertions.fail;
 
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.net.ftp.FTPClient;
+import org.apache.commons.net.ftp.FTPReply;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 
 import lombok.extern.slf4j.Slf4j;
 
 @Slf4j
 public class FtpUtils implements FileTansferUtils {
-    private FtpClientManager manager = new FtpClientManager();
-    private FTPClient ftpClient = manager.getClient();
+    // Each transfer uses one of the 10 forwarded passive data ports
+    private static final int MAX_SESSIONS = 4;
+    // pool of the sessions to the server in the cluster, shared by all instances
+    private static SessionPool<FTPClient> sharedPool;
+
+    private final SessionPool<FTPClient> pool;
+
+    public FtpUtils() {
+        synchronized (FtpUtils.class) {
+            if (sharedPool == null) {
+                sharedPool = createPool(new FtpClientManager());
+            }
+            pool = sharedPool;
+        }
+    }
+
+    /**
+     * Creates the utils with their own session pool, for example for the embedded FTP server in the tests.
+     *
+     * @param manager client manager
+     */
+    public FtpUtils(FtpClientManager manager) {
+        pool = createPool(manager);
+    }
+
+    /**
+     * Closes the idle sessions of the pool.
+     */
+    public void close() {
+        pool.close();
+    }
 
     @Override
     public void deleteFile(String path) {
-        checkConnection();
         log.info("Deleting " + path + " from FTP server");
         try {
-            ftpClient.deleteFile(path);
+            pool.execute(c -> c.deleteFile(path));
         } catch (IOException e) {
             fail("Unable to delete file", path);
         }
@@ -29,9 +62,20 @@ public class FtpUtils implements FileTansferUtils {
 
     @Override
     public boolean isFileThere(String directory, String fileName) {
-        checkConnection();
+        final String path = directory + "/" + fileName;
         try {
-            return Arrays.stream(ftpClient.listFiles(directory)).filter(file -> file.getName().equals(fileName)).count() == 1;
+            return pool.execute(c -> {
+                // MDTM is answered for the single file, no need to list the whole directory
+                if (c.getModificationTime(path) != null) {
+                    return true;
+                }
+                if (c.getReplyCode() == FTPReply.FILE_UNAVAILABLE) {
+                    return false;
+                }
+                log.debug("MDTM not supported ({}), listing {}", c.getReplyString(), directory);
+                final String[] names = c.listNames(directory);
+                return names != null && Arrays.stream(names).anyMatch(name -> name.equals(fileName) || name.endsWith("/" + fileName));
+            });
         } catch (IOException ex) {
             fail("Unable to list files in FTP", ex);
         }
@@ -40,33 +84,77 @@ public class FtpUtils implements FileTansferUtils {
 
     @Override
     public void uploadTestFile(String testFileName, String text, String remoteDirectory) {
-        checkConnection();
         log.info("Uploading file " + testFileName + " with content " + text + " to directory " + remoteDirectory + ". This may take some time");
-        try (InputStream is = IOUtils.toInputStream(text, "UTF-8")) {
-            ftpClient.storeFile("/" + remoteDirectory + "/" + testFileName, is);
+        try {
+            pool.execute(c -> store(c, "/" + remoteDirectory + "/" + testFileName,
+                () -> IOUtils.toInputStream(text, StandardCharsets.UTF_8)));
         } catch (IOException ex) {
             fail("Unable to upload test file: ", ex);
         }
     }
 
     @Override
-    public String getFileContent(String directory, String fileName) {
+    public void uploadTestFiles(Map<String, String> files, String remoteDirectory) {
+        uploadFiles(files.entrySet().stream().collect(Collectors.toMap(Map.Entry::getKey,
+            file -> () -> IOUtils.toInputStream(file.getValue(), StandardCharsets.UTF_8))), remoteDirectory);
+    }
+
+    @Override
+    public void uploadFiles(Map<String, ContentSource> files, String remoteDirectory) {
+        log.info("Uploading {} files to directory {}", files.size(), remoteDirectory);
+        final List<SessionPool.SessionCallback<FTPClient, ?>> uploads = files.entrySet().stream()
+            .map(file -> (SessionPool.SessionCallback<FTPClient, ?>) c ->
+                store(c, "/" + remoteDirectory + "/" + file.getKey(), file.getValue()))
+            .collect(Collectors.toList());
         try {
-            return IOUtils.toString(ftpClient.retrieveFileStream(directory + "/" + fileName), "utf-8");
-        } catch (Exception ex) {
-            fail("Unable to read FTP file " + directory + "/" + fileName);
+            pool.executeAll(uploads);
+        } catch (IOException ex) {
+            fail("Unable to upload test files: ", ex);
         }
-        return null;
     }
 
-    /**
-     * Sometimes the Connections ends with "FTPConnectionClosedException: Connection closed without indication".
-     */
-    private void checkConnection() {
+    @Override
+    public String getFileContent(String directory, String fileName) {
+        return readFile(directory, fileName, in -> IOUtils.toString(in, StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public <R> R readFile(String directory, String fileName, ContentReader<R> reader) {
         try {
-            ftpClient.listFiles();
+            return pool.execute(c -> {
+                final InputStream in = c.retrieveFileStream(directory + "/" + fileName);
+                if (in == null) {
+                    throw new IOException("Unable to retrieve file: " + c.getReplyString());
+                }
+                final R result;
+                try {
+                    result = reader.read(in);
+                } finally {
+                    in.close();
+                }
+                // The transfer must be completed before the session can be used for the next command
+                if (!c.completePendingCommand()) {
+                    throw new IOException("Unable to complete the transfer: " + c.getReplyString());
+                }
+                return result;
+            });
         } catch (IOException ex) {
-            ftpClient = manager.getClient();
+            fail("Unable to read FTP file " + directory + "/" + fileName, ex);
+        }
+        return null;
+    }
+
+    private static SessionPool<FTPClient> createPool(FtpClientManager manager) {
+        // Sometimes the Connections ends with "FTPConnectionClosedException: Connection closed without indication", NOOP detects it
+        return new SessionPool<>("FTP", MAX_SESSIONS, manager::getClient, FTPClient::sendNoOp, manager::closeFtpClient);
+    }
+
+    private static boolean store(FTPClient c, String path, ContentSource content) throws IOException {
+        try (InputStream is = content.open()) {
+            if (!c.storeFile(path, is)) {
+                throw new IOException("Unable to store file " + path + ": " + c.getReplyString());
+            }
         }
+        return true;
     }
 }
@@ -0,0 +1,140 @@
+package io.syndesis.qe.utils;
+
+import io.syndesis.qe.wait.BackoffPoller;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+import lombok.extern.slf4j.Slf4j;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * Client for the events recorded by the {@link io.syndesis.qe.resource.impl.HTTPEndpoints} application.
+ * <p>
+ * The application returns all events since the last clear as a JSON object of event id to HTTP method. The client remembers the ids
+ * it has already seen, streams the response and collects only the new events, so the events can be polled often and the waits
+ * can end as soon as the expected events arrive (or when the events already violate the expectation).
+ */
+@Slf4j
+public class HttpEndpointsEventClient {
+    private static final JsonFactory JSON = new JsonFactory();
+    // The port-forwarded endpoint is plain http, so one client with its connection pool can be shared
+    private static final OkHttpClient CLIENT = new OkHttpClient.Builder()
+        .connectTimeout(30, TimeUnit.SECONDS)
+        .readTimeout(30, TimeUnit.SECONDS)
+        .build();
+
+    private final Supplier<String> baseUrl;
+    private final Set<String> seen = new HashSet<>();
+    private final List<Event> events = new ArrayList<>();
+
+    /**
+     * Creates the client.
+     *
+     * @param baseUrl supplier of the endpoint url, evaluated for each request so that the re-created port-forward is used
+     */
+    public HttpEndpointsEventClient(Supplier<String> baseUrl) {
+        this.baseUrl = baseUrl;
+    }
+
+    /**
+     * Clears the events on the server and forgets the seen events.
+     */
+    public void clear() {
+        HttpUtils.doDeleteRequest(baseUrl.get() + "/clearEvents");
+        seen.clear();
+        events.clear();
+    }
+
+    /**
+     * Fetches the events and adds the new ones to the collected events.
+     *
+     * @return the events that were not seen before
+     */
+    public List<Event> poll() {
+        final Request request = new Request.Builder().url(baseUrl.get() + "/events").get().build();
+        final List<Event> newEvents = new ArrayList<>();
+        try (Response response = CLIENT.newCall(request).execute()) {
+            if (!response.isSuccessful()) {
+                log.warn("Unable to get the endpoint events, response code {}", response.code());
+                return newEvents;
+            }
+            try (InputStream in = response.body().byteStream(); JsonParser parser = JSON.createParser(in)) {
+                if (parser.nextToken() != JsonToken.START_OBJECT) {
+                    throw new IOException("Expected the object of events, got " + parser.getCurrentToken());
+                }
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    final String id = parser.getCurrentName();
+                    parser.nextToken();
+                    if (seen.add(id)) {
+                        newEvents.add(new Event(id, parser.getValueAsString()));
+                    } else {
+                        parser.skipChildren();
+                    }
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Unable to get the endpoint events: {}", e.getMessage());
+        }
+        events.addAll(newEvents);
+        return newEvents;
+    }
+
+    /**
+     * Polls the events until the condition is satisfied or provably violated or the timeout exceeds.
+     *
+     * @param satisfied condition on all collected events that ends the wait successfully
+     * @param violated condition on all collected events that ends the wait, because it can't be satisfied anymore
+     * @param unit time unit of the timeout
+     * @param timeout timeout
+     * @return all collected events
+     */
+    public List<Event> await(Predicate<List<Event>> satisfied, Predicate<List<Event>> violated, TimeUnit unit, long timeout) {
+        new BackoffPoller(unit, timeout)
+            .interval(TimeUnit.MILLISECONDS, 250, 2000)
+            .named("Endpoint events")
+            .poll(() -> {
+                poll();
+                return getEvents();
+            }, e -> satisfied.test(e) || violated.test(e));
+        return getEvents();
+    }
+
+    /**
+     * Gets all events collected since the last clear.
+     *
+     * @return events
+     */
+    public List<Event> getEvents() {
+        return Collections.unmodifiableList(new ArrayList<>(events));
+    }
+
+    /**
+     * Event recorded by the endpoint.
+     */
+    @Getter
+    @AllArgsConstructor
+    @ToString
+    public static class Event {
+        private final String id;
+        // HTTP method
+        private final String method;
+    }
+}
@@ -8,12 +8,16 @@ import io.syndesis.qe.TestConfiguration;
 import io.syndesis.qe.endpoints.ActivityIntegrationsEndpoint;
 import io.syndesis.qe.endpoints.IntegrationsEndpoint;
 import io.syndesis.qe.endpoints.IntegrationsMetricsEndpoint;
+import io.syndesis.qe.wait.BackoffPoller;
+import io.syndesis.qe.wait.BackoffPoller.PollResult;
 import io.syndesis.server.endpoint.v1.handler.activity.Activity;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 
 @Component
 public class IntegrationUtils {
@@ -28,6 +32,10 @@ public class IntegrationUtils {
     private IntegrationsEndpoint integrationsEndpoint;
 
     public String getIdByIntegrationName(String integrationName) {
+        final Optional<String> id = integrationsEndpoint.getIdByName(integrationName);
+        if (id.isPresent()) {
+            return id.get();
+        }
         List<Integration> integrations = integrationsEndpoint.list();
         Integration integr =
             integrations.stream().filter(integration -> integrationName.equalsIgnoreCase(integration.getName())).findAny().orElse(null);
@@ -61,9 +69,13 @@ public class IntegrationUtils {
     }
 
     public void waitForMessage(String integrationName, int numberOfMessages, int timeoutInSeconds) {
-        TestUtils.waitFor(() ->
-                this.numberOfMessages(integrationName) >= numberOfMessages, 3, timeoutInSeconds,
-            String.format("The message doesn't go through integration in time. Expected messages: %s, actual: %s", numberOfMessages,
-                this.numberOfMessages(integrationName)));
+        final String integrationId = this.getIdByIntegrationName(integrationName);
+        PollResult<Integer> result = new BackoffPoller(TimeUnit.SECONDS, timeoutInSeconds)
+            .interval(TimeUnit.MILLISECONDS, 500, 3000)
+            .named("Messages in integration " + integrationName)
+            .poll(() -> integrationsMetricsEndpoint.get(integrationId).getMessages().intValue(), messages -> messages >= numberOfMessages);
+        assertThat(result.isSuccess())
+            .as("The message doesn't go through integration in time. Expected messages: %s, actual: %s", numberOfMessages, result.getLastValue())
+            .isTrue();
     }
 }
@@ -85,6 +85,15 @@ public final class JMSUtils {
         return text;
     }
 
+    /**
+     * Creates the load generator for the default broker in the cluster, the generator must be closed to release its port-forward.
+     *
+     * @return load generator
+     */
+    public static JmsLoadGenerator loadGenerator() {
+        return JmsClientManager.createLoadGenerator(JMS_APP_NAME, PROTOCOL, JMS_USER, JMS_PASS);
+    }
+
     public static void clear(Destination type, String name) {
         Message m = getMessage(PROTOCOL, type, name, 5000L);
         while (m != null) {
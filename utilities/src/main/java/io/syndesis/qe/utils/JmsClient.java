@@ -48,11 +48,25 @@ public class JmsClient {
     private boolean keepAlive = false;
     private long timeToLive = 0;
     private int retries = 10;
+    private PooledJmsConnection pooled;
 
     public JmsClient(ConnectionFactory factory) {
         this.factory = factory;
     }
 
+    /**
+     * Creates the client using the pooled connection. The connection is kept started and it is not closed by this client, messages
+     * are sent using the producers cached in the pooled connection.
+     *
+     * @param pooled pooled connection
+     */
+    public JmsClient(PooledJmsConnection pooled) {
+        this.pooled = pooled;
+        this.factory = pooled.getFactory();
+        this.liveConnection = pooled.getConnection();
+        this.keepAlive = true;
+    }
+
     public JmsClient(Connection connection) {
         keepAlive = true;
         this.liveConnection = connection;
@@ -147,6 +161,14 @@ public class JmsClient {
     }
 
     public Message createMessage(Object messageObject) {
+        if (pooled != null) {
+            try {
+                return pooled.createMessage(messageObject);
+            } catch (JMSException e) {
+                log.error("Unable to create message", e);
+                return null;
+            }
+        }
         Connection connection = null;
         Message result = null;
         Session session = null;
@@ -184,10 +206,18 @@ public class JmsClient {
     }
 
     public void sendMessage(String messageText) {
-        sendMessage(createMessage(messageText));
+        if (pooled != null && !isTransacted) {
+            sendPooled(messageText);
+        } else {
+            sendMessage(createMessage(messageText));
+        }
     }
 
     public void sendMessage(Message message) {
+        if (pooled != null && !isTransacted) {
+            sendPooled(message);
+            return;
+        }
         Connection connection = null;
         Session session = null;
         try {
@@ -225,6 +255,17 @@ public class JmsClient {
         }
     }
 
+    private void sendPooled(Object payload) {
+        if (destinationName == null) {
+            throw new IllegalArgumentException("Destination is null, can't send message to nowhere");
+        }
+        try {
+            pooled.send(isQueue, destinationName, payload, isPersistant, timeToLive);
+        } catch (JMSException e) {
+            log.error("unable to send message", e);
+        }
+    }
+
     public Message receiveMessage() {
         return receiveMessage(RECEIVE_TIMEOUT, null);
     }
@@ -295,7 +336,8 @@ public class JmsClient {
     }
 
     public void disconnect() {
-        if (keepAlive && liveConnection != null) {
+        // The pooled connection is closed by the pool
+        if (keepAlive && liveConnection != null && pooled == null) {
             safeCloseConnection(liveConnection);
         }
         if (topicConnection != null) {
@@ -325,11 +367,15 @@ public class JmsClient {
     }
 
     private void safeCloseConnection(Connection connection) {
+        if (pooled != null && connection == liveConnection) {
+            // The pooled connection must stay started for the other clients
+            return;
+        }
         try {
             if (connection != null) {
                 connection.stop();
-                //only close if there isn't liveConnection
-                if (!keepAlive) {
+                //only close if there isn't liveConnection (the dedicated connections of the pooled client are always closed)
+                if (!keepAlive || pooled != null) {
                     connection.close();
                 }
             }
@@ -343,11 +389,16 @@ public class JmsClient {
     }
 
     private Connection startConnection(String consumerId) {
+        if (pooled != null && consumerId == null) {
+            // Already started by the pool
+            return liveConnection;
+        }
         Connection connection = null;
         int attempts = retries;
         while (connection == null && attempts > 0) {
             try {
-                connection = createConnection();
+                // The client ID can't be set on the shared pooled connection, so the topic consumer gets its own connection
+                connection = pooled != null ? factory.createConnection() : createConnection();
                 if ((!isQueue && consumerId != null) || keepAlive) {
                     connection.setExceptionListener(new ReconnectListener());
                 }
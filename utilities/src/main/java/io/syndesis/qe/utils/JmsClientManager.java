@@ -3,25 +3,42 @@ package io.syndesis.qe.utils;
 import org.apache.activemq.ActiveMQConnectionFactory;
 import org.apache.qpid.jms.JmsConnectionFactory;
 
+import javax.jms.ConnectionFactory;
 import javax.jms.Message;
 
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 import java.util.function.Function;
 
-import io.fabric8.kubernetes.api.model.Pod;
-import io.fabric8.kubernetes.client.LocalPortForward;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
 import lombok.extern.slf4j.Slf4j;
 
+/**
+ * Manages the JMS clients for the brokers running in the cluster.
+ * <p>
+ * The static send/receive methods use a pool of started connections keyed by the app name, protocol and user, so that the
+ * connection is created only for the first message. The connections to the same broker share the port-forward from the
+ * {@link PortForwardRegistry}. Broken connections are replaced and connections not used for 5 minutes are closed.
+ */
 @Slf4j
 public class JmsClientManager {
-    private String jmsUrl;
+    private static final long IDLE_TIMEOUT = TimeUnit.MINUTES.toMillis(5);
+    private static final Map<PoolKey, PooledJmsConnection> POOL = new ConcurrentHashMap<>();
+
+    static {
+        Runtime.getRuntime().addShutdownHook(new Thread(JmsClientManager::closeAll));
+    }
+
     private int jmsPort;
+    private String jmsScheme;
     private String jmsAppName;
     private String jmsUser;
     private String jmsPass;
     private String protocol;
-    private LocalPortForward jmsLocalPortForward = null;
-    private JmsClient jmsClient;
 
     public JmsClientManager(String protocol) {
         initValues(protocol);
@@ -40,71 +57,131 @@ public class JmsClientManager {
             case "tcp":
             case "openwire":
                 jmsPort = 61616;
-                jmsUrl = "tcp://127.0.0.1:" + jmsPort;
+                jmsScheme = "tcp";
                 break;
             case "amqp":
                 jmsPort = 5672;
-                jmsUrl = "amqp://127.0.0.1:" + jmsPort;
+                jmsScheme = "amqp";
                 break;
         }
     }
 
     public static void sendMessage(String jmsAppName, String protocol, String jmsUser, String jmsPass, Consumer<JmsClient> client) {
-        JmsClientManager manager = new JmsClientManager(jmsAppName, protocol, jmsUser, jmsPass);
-
+        final JmsClient jmsClient = new JmsClient(acquire(jmsAppName, protocol, jmsUser, jmsPass));
         try {
-            JmsClient jmsClient = manager.getClient();
             client.accept(jmsClient);
         } finally {
-            manager.close();
+            jmsClient.disconnect();
         }
     }
 
     public static Message receiveMessage(String jmsAppName, String protocol, String jmsUser, String jmsPass, Function<JmsClient, Message> block) {
-        JmsClientManager manager = new JmsClientManager(jmsAppName, protocol, jmsUser, jmsPass);
-
+        final JmsClient jmsClient = new JmsClient(acquire(jmsAppName, protocol, jmsUser, jmsPass));
         try {
-            JmsClient jmsClient = manager.getClient();
             return block.apply(jmsClient);
         } finally {
-            manager.close();
+            jmsClient.disconnect();
         }
     }
 
-    private JmsClient getClient() {
-        if (jmsLocalPortForward == null || !jmsLocalPortForward.isAlive()) {
-            //can be the same pod twice forwarded to different ports? YES
-            Pod pod = OpenShiftUtils.getInstance().getAnyPod("app", jmsAppName);
-            jmsLocalPortForward = OpenShiftUtils.portForward(pod, jmsPort, jmsPort);
+    /**
+     * Creates the load generator for the broker in the cluster. The generator holds its own lease of the port-forward, so the
+     * eviction or replacement of the pooled connections doesn't affect it, the lease is released when the generator is closed.
+     *
+     * @param jmsAppName broker app name
+     * @param protocol protocol
+     * @param jmsUser user
+     * @param jmsPass password
+     * @return load generator
+     */
+    public static JmsLoadGenerator createLoadGenerator(String jmsAppName, String protocol, String jmsUser, String jmsPass) {
+        final JmsClientManager manager = new JmsClientManager(jmsAppName, protocol, jmsUser, jmsPass);
+        final PortForwardRegistry.Lease portForward = PortForwardRegistry.forPodWithLabel("app", jmsAppName, manager.jmsPort);
+        try {
+            return new JmsLoadGenerator(manager.createFactory(portForward.getLocalUrl(manager.jmsScheme)), portForward::close);
+        } catch (RuntimeException e) {
+            portForward.close();
+            throw e;
         }
-        return this.initClient();
     }
 
-    private void close() {
-        if (jmsClient != null) {
-            jmsClient.disconnect();
-            jmsClient = null;
+    /**
+     * Closes all pooled connections and their port-forwards, for example when the broker was redeployed.
+     */
+    public static void closeAll() {
+        for (Iterator<PooledJmsConnection> it = POOL.values().iterator(); it.hasNext(); ) {
+            it.next().close();
+            it.remove();
         }
-        TestUtils.terminateLocalPortForward(jmsLocalPortForward);
     }
 
-    private JmsClient initClient() {
-        if (jmsClient == null) {
-            switch (protocol) {
-                case "tcp":
-                case "openwire":
-                    ActiveMQConnectionFactory jmsFactory = new ActiveMQConnectionFactory();
-                    jmsFactory.setBrokerURL(jmsUrl);
-                    jmsFactory.setUserName(jmsUser);
-                    jmsFactory.setPassword(jmsPass);
-                    jmsClient = new JmsClient(jmsFactory);
-                    break;
-                case "amqp":
-                    JmsConnectionFactory jmsConnectionFactory = new JmsConnectionFactory(jmsUser, jmsPass, jmsUrl);
-                    jmsClient = new JmsClient(jmsConnectionFactory);
-                    break;
+    /**
+     * Gets the healthy pooled connection for the given app, protocol and user, creates a new one when there is none.
+     */
+    private static PooledJmsConnection acquire(String jmsAppName, String protocol, String jmsUser, String jmsPass) {
+        evictIdle();
+        return POOL.compute(new PoolKey(jmsAppName, protocol, jmsUser), (key, pooled) -> {
+            if (pooled != null) {
+                if (pooled.isHealthy()) {
+                    pooled.touch();
+                    return pooled;
+                }
+                log.info("Pooled JMS connection to {} ({}) is not healthy, creating a new one", jmsAppName, protocol);
+                pooled.close();
+            }
+            return new JmsClientManager(jmsAppName, protocol, jmsUser, jmsPass).createPooledConnection();
+        });
+    }
+
+    private static void evictIdle() {
+        POOL.entrySet().removeIf(e -> {
+            if (e.getValue().isIdle(IDLE_TIMEOUT)) {
+                log.debug("Closing idle JMS connection to {} ({})", e.getKey().appName, e.getKey().protocol);
+                e.getValue().close();
+                return true;
             }
+            return false;
+        });
+    }
+
+    private PooledJmsConnection createPooledConnection() {
+        final PortForwardRegistry.Lease portForward = PortForwardRegistry.forPodWithLabel("app", jmsAppName, jmsPort);
+        try {
+            try {
+                return new PooledJmsConnection(createFactory(portForward.getLocalUrl(jmsScheme)), portForward);
+            } catch (IllegalStateException e) {
+                // The port-forward may still be listening, but to the broker pod that was restarted
+                log.info("Unable to connect to {} ({}), re-creating the port-forward", jmsAppName, protocol);
+                portForward.reconnect();
+                return new PooledJmsConnection(createFactory(portForward.getLocalUrl(jmsScheme)), portForward);
+            }
+        } catch (RuntimeException e) {
+            portForward.close();
+            throw e;
+        }
+    }
+
+    private ConnectionFactory createFactory(String jmsUrl) {
+        switch (protocol) {
+            case "tcp":
+            case "openwire":
+                ActiveMQConnectionFactory jmsFactory = new ActiveMQConnectionFactory();
+                jmsFactory.setBrokerURL(jmsUrl);
+                jmsFactory.setUserName(jmsUser);
+                jmsFactory.setPassword(jmsPass);
+                return jmsFactory;
+            case "amqp":
+                return new JmsConnectionFactory(jmsUser, jmsPass, jmsUrl);
+            default:
+                throw new IllegalArgumentException("Unsupported JMS protocol: " + protocol);
         }
-        return jmsClient;
+    }
+
+    @AllArgsConstructor
+    @EqualsAndHashCode
+    private static final class PoolKey {
+        private final String appName;
+        private final String protocol;
+        private final String user;
     }
 }
@@ -0,0 +1,339 @@
+package io.syndesis.qe.utils;
+
+import io.syndesis.qe.utils.JMSUtils.Destination;
+import io.syndesis.qe.wait.BackoffPoller;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import javax.jms.Connection;
+import javax.jms.ConnectionFactory;
+import javax.jms.DeliveryMode;
+import javax.jms.JMSException;
+import javax.jms.Message;
+import javax.jms.MessageConsumer;
+import javax.jms.MessageProducer;
+import javax.jms.Session;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.IntFunction;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Generates the JMS load and measures the throughput and the end-to-end latency.
+ * <p>
+ * The messages are sent by the given number of producers, either as fast as possible or with the given total rate, optionally in
+ * transacted batches. Each message gets a unique correlation ID, so when the consumers are configured (for example on the output
+ * destination of the integration), the latency of each message is measured from the send to the delivery to the asynchronous
+ * {@link javax.jms.MessageListener}. The integration under test must preserve the JMSCorrelationID header.
+ * <p>
+ * The generator works with any connection factory - use {@link JMSUtils#loadGenerator()} for the broker in the cluster or the
+ * connection factory of the embedded broker for local testing.
+ */
+@Slf4j
+public class JmsLoadGenerator implements AutoCloseable {
+    private static final long HIGHEST_TRACKABLE_LATENCY_US = TimeUnit.MINUTES.toMicros(10);
+
+    private final ConnectionFactory factory;
+    // releases the resources the factory connects through, for example the port-forward
+    private final Runnable onClose;
+    private final String runId = UUID.randomUUID().toString();
+    // correlation id -> send time in nanos
+    private final Map<String, Long> sendTimes = new ConcurrentHashMap<>();
+    private final Histogram latency = new ConcurrentHistogram(HIGHEST_TRACKABLE_LATENCY_US, 3);
+    private final AtomicInteger received = new AtomicInteger();
+    private final List<Connection> consumerConnections = new ArrayList<>();
+
+    private Destination sendType = Destination.QUEUE;
+    private String sendDestination;
+    private int producers = 1;
+    private int rate = 0;
+    private int batchSize = 1;
+    private boolean persistent = false;
+    private IntFunction<String> payload = i -> "message-" + i;
+    private volatile long firstReceived = 0L;
+    private volatile long lastReceived = 0L;
+
+    public JmsLoadGenerator(ConnectionFactory factory) {
+        this(factory, () -> { });
+    }
+
+    JmsLoadGenerator(ConnectionFactory factory, Runnable onClose) {
+        this.factory = factory;
+        this.onClose = onClose;
+    }
+
+    public JmsLoadGenerator sendTo(Destination type, String name) {
+        this.sendType = type;
+        this.sendDestination = name;
+        return this;
+    }
+
+    public JmsLoadGenerator producers(int producers) {
+        if (producers < 1) {
+            throw new IllegalArgumentException("There must be at least one producer");
+        }
+        this.producers = producers;
+        return this;
+    }
+
+    /**
+     * Sets the total send rate of all producers.
+     *
+     * @param messagesPerSecond messages per second, 0 for unbounded
+     * @return this
+     */
+    public JmsLoadGenerator rate(int messagesPerSecond) {
+        this.rate = messagesPerSecond;
+        return this;
+    }
+
+    /**
+     * Sends the messages in the transacted batches of the given size.
+     *
+     * @param batchSize batch size, 1 for the non-transacted send
+     * @return this
+     */
+    public JmsLoadGenerator batchSize(int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Batch size must be positive");
+        }
+        this.batchSize = batchSize;
+        return this;
+    }
+
+    public JmsLoadGenerator persistent() {
+        this.persistent = true;
+        return this;
+    }
+
+    /**
+     * Sets the message content.
+     *
+     * @param payload function creating the text of the message with the given sequence number
+     * @return this
+     */
+    public JmsLoadGenerator payload(IntFunction<String> payload) {
+        this.payload = payload;
+        return this;
+    }
+
+    /**
+     * Starts the asynchronous consumers that record the latency of the messages sent by this generator.
+     *
+     * @param type destination type
+     * @param name destination name
+     * @param consumers number of the consumers
+     * @return this
+     */
+    public JmsLoadGenerator receiveFrom(Destination type, String name, int consumers) {
+        try {
+            final Connection connection = factory.createConnection();
+            consumerConnections.add(connection);
+            for (int i = 0; i < consumers; i++) {
+                final Session session = connection.createSession(false, Session.AUTO_ACKNOWLEDGE);
+                final MessageConsumer consumer =
+                    session.createConsumer(type == Destination.QUEUE ? session.createQueue(name) : session.createTopic(name));
+                consumer.setMessageListener(this::onMessage);
+            }
+            connection.start();
+        } catch (JMSException e) {
+            throw new IllegalStateException("Unable to start the load consumers", e);
+        }
+        return this;
+    }
+
+    /**
+     * Sends the messages and when the consumers are configured, waits until all of them are received.
+     *
+     * @param messages number of messages to send
+     * @param timeout max time in milliseconds to wait for all messages to be received
+     * @return load report
+     */
+    public LoadReport run(int messages, long timeout) {
+        if (sendDestination == null) {
+            throw new IllegalArgumentException("Destination is null, can't send message to nowhere");
+        }
+        // Each run is reported separately
+        received.set(0);
+        latency.reset();
+        firstReceived = 0L;
+        lastReceived = 0L;
+        sendTimes.clear();
+
+        log.info("Sending {} messages to {} {} using {} producers", messages, sendType, sendDestination, producers);
+        final ExecutorService executor = Executors.newFixedThreadPool(producers);
+        final AtomicLong sent = new AtomicLong();
+        final long start = System.nanoTime();
+        try {
+            final List<Future<?>> futures = new ArrayList<>();
+            for (int p = 0; p < producers; p++) {
+                // Each producer sends every n-th message
+                final int first = p;
+                futures.add(executor.submit(() -> produce(first, messages, start, sent)));
+            }
+            for (Future<?> f : futures) {
+                f.get();
+            }
+        } catch (Exception e) {
+            throw new IllegalStateException("Unable to send the load", e);
+        } finally {
+            executor.shutdownNow();
+        }
+        final long sendTime = System.nanoTime() - start;
+
+        if (!consumerConnections.isEmpty()) {
+            final boolean allReceived = new BackoffPoller(TimeUnit.MILLISECONDS, timeout)
+                .interval(TimeUnit.MILLISECONDS, 100, 1000).named("Load received")
+                .poll(() -> received.get() >= sent.get()).isSuccess();
+            if (!allReceived) {
+                log.warn("Only {} of {} messages were received", received.get(), sent.get());
+            }
+        }
+
+        final LoadReport report = new LoadReport(sent.get(), received.get(), sendTime,
+            firstReceived == 0L ? 0L : lastReceived - start, latency.copy());
+        log.info("{}", report);
+        return report;
+    }
+
+    @Override
+    public void close() {
+        for (Connection c : consumerConnections) {
+            try {
+                c.close();
+            } catch (JMSException e) {
+                log.debug("Error while closing load consumer connection", e);
+            }
+        }
+        consumerConnections.clear();
+        onClose.run();
+    }
+
+    private void produce(int first, int messages, long start, AtomicLong sent) {
+        final boolean transacted = batchSize > 1;
+        // Interval between two messages of one producer so that all producers together send the requested rate
+        final long interval = rate > 0 ? TimeUnit.SECONDS.toNanos(1) * producers / rate : 0L;
+        Connection connection = null;
+        try {
+            connection = factory.createConnection();
+            connection.start();
+            final Session session =
+                connection.createSession(transacted, transacted ? Session.SESSION_TRANSACTED : Session.AUTO_ACKNOWLEDGE);
+            final MessageProducer producer = session.createProducer(
+                sendType == Destination.QUEUE ? session.createQueue(sendDestination) : session.createTopic(sendDestination));
+            producer.setDeliveryMode(persistent ? DeliveryMode.PERSISTENT : DeliveryMode.NON_PERSISTENT);
+
+            int inBatch = 0;
+            long n = 0;
+            for (int i = first; i < messages; i += producers, n++) {
+                if (interval > 0) {
+                    final long wait = start + n * interval - System.nanoTime();
+                    if (wait > 0) {
+                        LockSupport.parkNanos(wait);
+                    }
+                }
+                final Message message = session.createTextMessage(payload.apply(i));
+                final String correlationId = runId + "-" + i;
+                message.setJMSCorrelationID(correlationId);
+                sendTimes.put(correlationId, System.nanoTime());
+                producer.send(message);
+                if (!transacted) {
+                    sent.incrementAndGet();
+                } else if (++inBatch == batchSize) {
+                    session.commit();
+                    sent.addAndGet(inBatch);
+                    inBatch = 0;
+                }
+            }
+            if (transacted && inBatch > 0) {
+                session.commit();
+                sent.addAndGet(inBatch);
+            }
+        } catch (JMSException e) {
+            log.error("Load producer failed, the rest of its messages won't be sent", e);
+        } finally {
+            try {
+                if (connection != null) {
+                    connection.close();
+                }
+            } catch (JMSException e) {
+                log.debug("Error while closing load producer connection", e);
+            }
+        }
+    }
+
+    private void onMessage(Message message) {
+        final long now = System.nanoTime();
+        try {
+            final Long sentAt = message.getJMSCorrelationID() == null ? null : sendTimes.remove(message.getJMSCorrelationID());
+            if (sentAt == null) {
+                // Not sent by this generator
+                return;
+            }
+            latency.recordValue(Math.min(TimeUnit.NANOSECONDS.toMicros(now - sentAt), HIGHEST_TRACKABLE_LATENCY_US));
+            if (firstReceived == 0L) {
+                firstReceived = now;
+            }
+            lastReceived = now;
+            received.incrementAndGet();
+        } catch (JMSException e) {
+            log.error("Unable to read the correlation id of the received message", e);
+        }
+    }
+
+    /**
+     * Result of the load run.
+     */
+    @Getter
+    public static class LoadReport {
+        private final long sent;
+        private final long received;
+        // time of sending all messages in nanos
+        private final long sendTime;
+        // time from the start of the send to the last received message in nanos
+        private final long receiveTime;
+        // end-to-end latency in microseconds
+        private final Histogram latency;
+
+        LoadReport(long sent, long received, long sendTime, long receiveTime, Histogram latency) {
+            this.sent = sent;
+            this.received = received;
+            this.sendTime = sendTime;
+            this.receiveTime = receiveTime;
+            this.latency = latency;
+        }
+
+        public double getSendThroughput() {
+            return sendTime == 0 ? 0 : sent * 1e9 / sendTime;
+        }
+
+        public double getReceiveThroughput() {
+            return receiveTime == 0 ? 0 : received * 1e9 / receiveTime;
+        }
+
+        @Override
+        public String toString() {
+            final StringBuilder sb = new StringBuilder(String.format("Sent %d messages (%.1f msg/s)", sent, getSendThroughput()));
+            if (received > 0) {
+                sb.append(String.format(", received %d messages (%.1f msg/s), latency [us]: p50=%d p90=%d p99=%d p99.9=%d max=%d",
+                    received, getReceiveThroughput(), latency.getValueAtPercentile(50), latency.getValueAtPercentile(90),
+                    latency.getValueAtPercentile(99), latency.getValueAtPercentile(99.9), latency.getMaxValue()));
+            }
+            return sb.toString();
+        }
+    }
+}
@@ -4,93 +4,130 @@ import org.assertj.core.api.Assertions;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.StringReader;
+import java.util.ArrayList;
 import java.util.Collection;
-import java.util.concurrent.atomic.AtomicReference;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.function.BooleanSupplier;
+import java.util.function.ObjIntConsumer;
 import java.util.regex.Pattern;
 
 import io.fabric8.kubernetes.api.model.Pod;
 
 public class LogCheckerUtils {
     private static final Logger LOGGER = LoggerFactory.getLogger(LogCheckerUtils.class);
+    // Max number of pod logs downloaded at the same time
+    private static final int MAX_PARALLEL_DOWNLOADS = 4;
+    private static final ThreadPoolExecutor EXECUTOR =
+        new ThreadPoolExecutor(MAX_PARALLEL_DOWNLOADS, MAX_PARALLEL_DOWNLOADS, 60L, TimeUnit.SECONDS, new LinkedBlockingQueue<>());
+
+    static {
+        EXECUTOR.allowCoreThreadTimeOut(true);
+    }
 
     public static boolean[] findPatternsInLogs(Pod pod, Pattern... patterns) throws IOException {
-        boolean found[] = new boolean[patterns.length];
-
-        // TODO: use a method that don't require whole log in memory
-        StringReader stringReader = new StringReader(OpenShiftUtils.getInstance().getPodLog(pod));
-
-        try (BufferedReader br = new BufferedReader(stringReader)) {
-            br.lines().forEach(line -> {
-                for (int i = 0; i < patterns.length; ++i) {
-                    Pattern pattern = patterns[i];
-                    if (pattern.matcher(line).find()) {
-                        LOGGER.info("Found pattern {} on line '{}'", pattern, cleanLine(line));
-                        found[i] = true;
-                    }
-                }
-            });
-        }
+        return PodLogScanner.findPatterns(pod, (line, i) -> logFoundPattern(patterns[i], line), patterns);
+    }
 
-        return found;
+    /**
+     * Same as {@link #findPatternsInLogs(Pod, Pattern...)}, but searches only the log lines that were not searched by the previous
+     * invocation of this method for the same pod.
+     */
+    public static boolean[] findPatternsInNewLogs(Pod pod, Pattern... patterns) throws IOException {
+        return PodLogScanner.findPatternsInNewLines(pod, (line, i) -> logFoundPattern(patterns[i], line), patterns);
     }
 
     public static String[] getLinesWithFoundPatternsInLogs(Pod pod, Pattern... patterns) throws IOException {
         String found[] = new String[patterns.length];
 
-        // TODO: use a method that don't require whole log in memory
-        StringReader stringReader = new StringReader(OpenShiftUtils.getInstance().getPodLog(pod));
-
-        try (BufferedReader br = new BufferedReader(stringReader)) {
-            br.lines().forEach(line -> {
-                for (int i = 0; i < patterns.length; ++i) {
-                    Pattern pattern = patterns[i];
-                    if (pattern.matcher(line).find()) {
-                        LOGGER.info("Found pattern {} on line '{}'", pattern, cleanLine(line));
-                        found[i] = line;
-                    }
-                }
-            });
-        }
+        PodLogScanner.scanAll(pod, (line, i) -> {
+            logFoundPattern(patterns[i], line);
+            found[i] = line;
+        }, patterns);
 
         return found;
     }
 
-    private static boolean[] vectorOr(boolean[] b1, boolean[] b2) {
-
-        if (b1 == null && b2 != null) {
-            return b2;
-        }
-        if (b2 == null && b1 != null) {
-            return b1;
-        }
+    private static void logFoundPattern(Pattern pattern, String line) {
+        LOGGER.info("Found pattern {} on line '{}'", pattern, cleanLine(line));
+    }
 
-        assert b1 != null;
-        assert b2 != null;
-        assert b1.length == b2.length;
+    /**
+     * Searches the logs of all pods in parallel, merging the found patterns together.
+     * Once all patterns are found, the remaining log downloads are cancelled.
+     */
+    public static boolean[] findPatternsInLogs(Collection<Pod> pods, Pattern... patterns) throws IOException {
+        return findPatternsInLogs(pods, false, patterns);
+    }
 
-        boolean found[] = new boolean[b1.length];
-        for (int i = 0; i < found.length; ++i) {
-            found[i] = b1[i] || b2[i];
-        }
-        return found;
+    /**
+     * Same as {@link #findPatternsInLogs(Collection, Pattern...)}, but searches only the log lines that were not searched by the previous
+     * invocation of this method for the same pod.
+     */
+    public static boolean[] findPatternsInNewLogs(Collection<Pod> pods, Pattern... patterns) throws IOException {
+        return findPatternsInLogs(pods, true, patterns);
     }
 
-    public static boolean[] findPatternsInLogs(Collection<Pod> pods, Pattern... patterns) throws IOException {
+    private static boolean[] findPatternsInLogs(Collection<Pod> pods, boolean onlyNewLines, Pattern... patterns) {
+        final AtomicIntegerArray foundBits = new AtomicIntegerArray(patterns.length);
+        final AtomicInteger foundCount = new AtomicInteger(0);
+        final BooleanSupplier allFound = () -> foundCount.get() == patterns.length;
+        final ObjIntConsumer<String> onMatch = (line, i) -> {
+            if (foundBits.compareAndSet(i, 0, 1)) {
+                foundCount.incrementAndGet();
+                logFoundPattern(patterns[i], line);
+            }
+        };
 
-        AtomicReference<boolean[]> foundRef = new AtomicReference<>(null);
+        final List<Future<?>> downloads = new ArrayList<>();
+        for (Pod pod : pods) {
+            downloads.add(EXECUTOR.submit(() -> {
+                if (allFound.getAsBoolean()) {
+                    return;
+                }
+                try {
+                    if (onlyNewLines) {
+                        PodLogScanner.findPatternsInNewLines(pod, allFound, onMatch, patterns);
+                    } else {
+                        PodLogScanner.findPatterns(pod, allFound, onMatch, patterns);
+                    }
+                } catch (Exception x) {
+                    LOGGER.error("Failed to get logs for pod {}", pod.getMetadata().getLabels().get("name"), x);
+                }
+            }));
+        }
 
-        pods.forEach(pod -> {
+        for (Future<?> download : downloads) {
+            if (allFound.getAsBoolean()) {
+                downloads.forEach(d -> d.cancel(true));
+                break;
+            }
             try {
-                foundRef.set(vectorOr(foundRef.get(), findPatternsInLogs(pod, patterns)));
-            } catch (Exception x) {
-                LOGGER.error("Failed to get logs for pod {}", pod.getMetadata().getLabels().get("name"), x);
+                download.get();
+            } catch (CancellationException ignored) {
+                // cancelled because all patterns were found
+            } catch (ExecutionException x) {
+                LOGGER.error("Failed to search pod logs", x.getCause());
+            } catch (InterruptedException x) {
+                downloads.forEach(d -> d.cancel(true));
+                Thread.currentThread().interrupt();
+                break;
             }
-        });
+        }
 
-        return foundRef.get();
+        final boolean[] found = new boolean[patterns.length];
+        for (int i = 0; i < found.length; ++i) {
+            found[i] = foundBits.get(i) == 1;
+        }
+        return found;
     }
 
     /**
@@ -156,6 +193,23 @@ public class LogCheckerUtils {
         }
     }
 
+    public static void assertNewLogsContains(Collection<Pod> pods, Pattern... patterns) throws IOException {
+        boolean found[] = findPatternsInNewLogs(pods, patterns);
+
+        for (int i = 0; i < patterns.length; ++i) {
+            Assertions.assertThat(found[i]).as("Didn't find pattern '" + patterns[i].toString() + "' in new pod " + formatPodLists(pods) + " logs")
+                .isEqualTo(true);
+        }
+    }
+
+    public static void assertNewLogsContains(String appName, String... strings) throws IOException {
+        Pattern patterns[] = new Pattern[strings.length];
+        for (int i = 0; i < strings.length; ++i) {
+            patterns[i] = Pattern.compile(strings[i]);
+        }
+        assertNewLogsContains(defaultPods(appName), patterns);
+    }
+
     public static void assertLogsContainsOrNot(Collection<Pod> pods, String[] shouldFinds, String[] shouldNotFinds) throws IOException {
         Pattern patterns[] = new Pattern[shouldFinds.length + shouldNotFinds.length];
 
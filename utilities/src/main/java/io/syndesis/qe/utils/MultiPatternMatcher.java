@@ -0,0 +1,167 @@
+package io.syndesis.qe.utils;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.function.IntConsumer;
+import java.util.regex.Pattern;
+
+/**
+ * Matches multiple patterns against a line in a single pass.
+ * <p>
+ * Patterns without any regex meta characters (or compiled with {@link Pattern#LITERAL}) are matched together using an Aho-Corasick
+ * automaton, the rest is matched one by one using the regex matcher.
+ * <p>
+ * The instance is not thread-safe.
+ */
+public class MultiPatternMatcher {
+    private static final String REGEX_META_CHARS = "\\^$.|?*+()[]{}";
+
+    private final Pattern[] patterns;
+    private final int[] regexIndexes;
+    private final Node root;
+    // Last line in which the pattern was reported, to report each pattern only once per line
+    private final long[] reportedInLine;
+    private long lineNr = 0L;
+
+    public MultiPatternMatcher(Pattern... patterns) {
+        this.patterns = patterns;
+        this.reportedInLine = new long[patterns.length];
+        Arrays.fill(reportedInLine, -1L);
+
+        final List<Integer> regexes = new ArrayList<>();
+        Node literalsRoot = null;
+        for (int i = 0; i < patterns.length; i++) {
+            final String literal = toLiteral(patterns[i]);
+            if (literal == null || literal.isEmpty()) {
+                regexes.add(i);
+            } else {
+                if (literalsRoot == null) {
+                    literalsRoot = new Node();
+                }
+                literalsRoot.add(literal, i);
+            }
+        }
+        this.regexIndexes = regexes.stream().mapToInt(Integer::intValue).toArray();
+        this.root = literalsRoot;
+        if (root != null) {
+            buildFailureLinks();
+        }
+    }
+
+    public int size() {
+        return patterns.length;
+    }
+
+    public Pattern[] getPatterns() {
+        return patterns;
+    }
+
+    /**
+     * Finds the patterns in the given line. Each found pattern is reported only once per line.
+     *
+     * @param line line to search in
+     * @param skip patterns that should not be evaluated, can be null
+     * @param onMatch consumer of the found pattern indexes
+     */
+    public void match(String line, boolean[] skip, IntConsumer onMatch) {
+        lineNr++;
+        if (root != null) {
+            Node node = root;
+            for (int c = 0; c < line.length(); c++) {
+                final char ch = line.charAt(c);
+                while (node != root && !node.children.containsKey(ch)) {
+                    node = node.failure;
+                }
+                node = node.children.getOrDefault(ch, root);
+                for (int i : node.outputs) {
+                    report(i, skip, onMatch);
+                }
+            }
+        }
+
+        for (int i : regexIndexes) {
+            if ((skip == null || !skip[i]) && patterns[i].matcher(line).find()) {
+                report(i, skip, onMatch);
+            }
+        }
+    }
+
+    private void report(int i, boolean[] skip, IntConsumer onMatch) {
+        if ((skip == null || !skip[i]) && reportedInLine[i] != lineNr) {
+            reportedInLine[i] = lineNr;
+            onMatch.accept(i);
+        }
+    }
+
+    /**
+     * Returns the literal that the pattern matches, or null if the pattern needs a regex matcher.
+     */
+    private static String toLiteral(Pattern pattern) {
+        if (pattern.flags() == Pattern.LITERAL) {
+            return pattern.pattern();
+        }
+        if (pattern.flags() != 0) {
+            return null;
+        }
+        final String p = pattern.pattern();
+        if (p.startsWith("\\Q") && p.endsWith("\\E") && p.indexOf("\\E") == p.length() - 2) {
+            return p.substring(2, p.length() - 2);
+        }
+        for (int i = 0; i < p.length(); i++) {
+            if (REGEX_META_CHARS.indexOf(p.charAt(i)) >= 0) {
+                return null;
+            }
+        }
+        return p;
+    }
+
+    private void buildFailureLinks() {
+        final Queue<Node> queue = new ArrayDeque<>();
+        for (Node child : root.children.values()) {
+            child.failure = root;
+            queue.add(child);
+        }
+        while (!queue.isEmpty()) {
+            final Node node = queue.poll();
+            for (Map.Entry<Character, Node> e : node.children.entrySet()) {
+                final Node child = e.getValue();
+                Node failure = node.failure;
+                while (failure != root && !failure.children.containsKey(e.getKey())) {
+                    failure = failure.failure;
+                }
+                final Node target = failure.children.get(e.getKey());
+                child.failure = target == null || target == child ? root : target;
+                child.outputs = concat(child.outputs, child.failure.outputs);
+                queue.add(child);
+            }
+        }
+    }
+
+    private static int[] concat(int[] a, int[] b) {
+        if (b.length == 0) {
+            return a;
+        }
+        final int[] result = Arrays.copyOf(a, a.length + b.length);
+        System.arraycopy(b, 0, result, a.length, b.length);
+        return result;
+    }
+
+    private static class Node {
+        private final Map<Character, Node> children = new HashMap<>();
+        private Node failure;
+        private int[] outputs = new int[0];
+
+        private void add(String literal, int index) {
+            Node node = this;
+            for (int i = 0; i < literal.length(); i++) {
+                node = node.children.computeIfAbsent(literal.charAt(i), c -> new Node());
+            }
+            node.outputs = concat(node.outputs, new int[] {index});
+        }
+    }
+}
@@ -136,7 +136,18 @@ public final class OpenShiftUtils {
     }
 
     public static Optional<Pod> getPodByPartialName(String partialName) {
-        return OpenShiftUtils.getInstance().getPods().stream()
+        return getPodByPartialName(OpenShiftUtils.getInstance().getPods(), partialName);
+    }
+
+    /**
+     * Finds the first pod with the name containing the partial name, the deploy and build pods are skipped.
+     *
+     * @param pods pods to search
+     * @param partialName part of the pod name
+     * @return optional with the pod
+     */
+    public static Optional<Pod> getPodByPartialName(List<Pod> pods, String partialName) {
+        return pods.stream()
             .filter(p -> p.getMetadata().getName().contains(partialName))
             .filter(p -> !p.getMetadata().getName().contains("deploy"))
             .filter(p -> !p.getMetadata().getName().contains("build"))
@@ -0,0 +1,183 @@
+package io.syndesis.qe.utils;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BooleanSupplier;
+import java.util.function.ObjIntConsumer;
+import java.util.regex.Pattern;
+
+import io.fabric8.kubernetes.api.model.DoneablePod;
+import io.fabric8.kubernetes.api.model.Pod;
+import io.fabric8.kubernetes.client.dsl.PodResource;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Scans the pod log line by line directly from the log stream, so the whole log is never held in memory.
+ * <p>
+ * All patterns are evaluated in a single pass using the {@link MultiPatternMatcher}.
+ * <p>
+ * For the incremental scans, the timestamp of the last scanned line is remembered per pod and the next incremental scan
+ * of the same pod requests only the log since that time.
+ */
+@Slf4j
+public final class PodLogScanner {
+    // pod uid -> timestamp of the last line scanned by the incremental scan
+    private static final Map<String, Instant> POSITIONS = new ConcurrentHashMap<>();
+
+    private PodLogScanner() {
+    }
+
+    /**
+     * Searches the whole pod log for the patterns. Stops reading the log once all patterns were found.
+     *
+     * @param pod pod
+     * @param onMatch called with the line and the index of the pattern found in that line
+     * @param patterns patterns to find
+     * @return array of flags whether the pattern on the same index was found
+     * @throws IOException when the log can't be read
+     */
+    public static boolean[] findPatterns(Pod pod, ObjIntConsumer<String> onMatch, Pattern... patterns) throws IOException {
+        return scan(pod, false, true, () -> false, onMatch, patterns);
+    }
+
+    /**
+     * Same as {@link #findPatterns(Pod, ObjIntConsumer, Pattern...)}, but also stops reading the log when the stop condition is true.
+     *
+     * @param pod pod
+     * @param stop condition checked after each line, when true the rest of the log is skipped
+     * @param onMatch called with the line and the index of the pattern found in that line
+     * @param patterns patterns to find
+     * @return array of flags whether the pattern on the same index was found
+     * @throws IOException when the log can't be read
+     */
+    public static boolean[] findPatterns(Pod pod, BooleanSupplier stop, ObjIntConsumer<String> onMatch, Pattern... patterns) throws IOException {
+        return scan(pod, false, true, stop, onMatch, patterns);
+    }
+
+    /**
+     * Same as {@link #findPatterns(Pod, ObjIntConsumer, Pattern...)}, but only the lines logged after the last incremental scan
+     * of the same pod are searched.
+     *
+     * @param pod pod
+     * @param onMatch called with the line and the index of the pattern found in that line
+     * @param patterns patterns to find
+     * @return array of flags whether the pattern on the same index was found
+     * @throws IOException when the log can't be read
+     */
+    public static boolean[] findPatternsInNewLines(Pod pod, ObjIntConsumer<String> onMatch, Pattern... patterns) throws IOException {
+        return scan(pod, true, true, () -> false, onMatch, patterns);
+    }
+
+    /**
+     * Same as {@link #findPatternsInNewLines(Pod, ObjIntConsumer, Pattern...)}, but also stops reading the log when the stop condition
+     * is true. The lines that were not read are searched by the next incremental scan.
+     *
+     * @param pod pod
+     * @param stop condition checked after each line, when true the rest of the log is skipped
+     * @param onMatch called with the line and the index of the pattern found in that line
+     * @param patterns patterns to find
+     * @return array of flags whether the pattern on the same index was found
+     * @throws IOException when the log can't be read
+     */
+    public static boolean[] findPatternsInNewLines(Pod pod, BooleanSupplier stop, ObjIntConsumer<String> onMatch, Pattern... patterns)
+        throws IOException {
+        return scan(pod, true, true, stop, onMatch, patterns);
+    }
+
+    /**
+     * Reads the whole pod log and reports every line with any of the patterns.
+     *
+     * @param pod pod
+     * @param onMatch called with the line and the index of the pattern found in that line
+     * @param patterns patterns to find
+     * @throws IOException when the log can't be read
+     */
+    public static void scanAll(Pod pod, ObjIntConsumer<String> onMatch, Pattern... patterns) throws IOException {
+        scan(pod, false, false, () -> false, onMatch, patterns);
+    }
+
+    /**
+     * Forgets the positions of all incremental scans.
+     */
+    public static void resetPositions() {
+        POSITIONS.clear();
+    }
+
+    private static boolean[] scan(Pod pod, boolean onlyNewLines, boolean stopWhenAllFound, BooleanSupplier stop,
+        ObjIntConsumer<String> onMatch, Pattern... patterns) throws IOException {
+        final MultiPatternMatcher matcher = new MultiPatternMatcher(patterns);
+        final boolean[] found = new boolean[patterns.length];
+        final int[] foundCount = {0};
+        final String key = pod.getMetadata().getUid() != null ? pod.getMetadata().getUid() : pod.getMetadata().getName();
+        final Instant since = onlyNewLines ? POSITIONS.get(key) : null;
+        Instant lastSeen = since;
+
+        try (BufferedReader reader = new BufferedReader(openLog(pod, onlyNewLines, since))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (onlyNewLines) {
+                    // Each line is prefixed with the timestamp
+                    final int separator = line.indexOf(' ');
+                    final Instant timestamp = separator > 0 ? parseTimestamp(line.substring(0, separator)) : null;
+                    if (timestamp != null) {
+                        // sinceTime has a second precision, so skip the lines already seen in the previous scan
+                        if (since != null && !timestamp.isAfter(since)) {
+                            continue;
+                        }
+                        lastSeen = timestamp;
+                        line = line.substring(separator + 1);
+                    }
+                }
+
+                final String currentLine = line;
+                matcher.match(currentLine, stopWhenAllFound ? found : null, i -> {
+                    if (!found[i]) {
+                        found[i] = true;
+                        foundCount[0]++;
+                    }
+                    onMatch.accept(currentLine, i);
+                });
+
+                if (stopWhenAllFound && foundCount[0] == patterns.length) {
+                    log.debug("All patterns found in pod {} log, skipping the rest of the log", pod.getMetadata().getName());
+                    break;
+                }
+                if (stop.getAsBoolean()) {
+                    log.debug("Scanning of pod {} log stopped", pod.getMetadata().getName());
+                    break;
+                }
+            }
+        } finally {
+            if (onlyNewLines && lastSeen != null) {
+                POSITIONS.put(key, lastSeen);
+            }
+        }
+
+        return found;
+    }
+
+    private static Reader openLog(Pod pod, boolean withTimestamps, Instant since) {
+        final PodResource<Pod, DoneablePod> resource = OpenShiftUtils.getInstance().pods().withName(pod.getMetadata().getName());
+        if (!withTimestamps) {
+            return resource.getLogReader();
+        }
+        if (since == null) {
+            return resource.usingTimestamps().getLogReader();
+        }
+        return resource.usingTimestamps().sinceTime(since.truncatedTo(ChronoUnit.SECONDS).toString()).getLogReader();
+    }
+
+    private static Instant parseTimestamp(String timestamp) {
+        try {
+            return Instant.parse(timestamp);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,193 @@
+package io.syndesis.qe.utils;
+
+import javax.jms.Connection;
+import javax.jms.ConnectionFactory;
+import javax.jms.DeliveryMode;
+import javax.jms.Destination;
+import javax.jms.JMSException;
+import javax.jms.Message;
+import javax.jms.MessageProducer;
+import javax.jms.Session;
+
+import java.io.Serializable;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Long-lived started JMS connection together with the lease of the port-forward it uses, owned by the {@link JmsClientManager} pool.
+ * <p>
+ * A session with a producer is cached for each destination, so that sending a message doesn't need to create any JMS objects.
+ * The connection is marked as broken when the connection fails or the port-forward dies and the pool replaces it then.
+ */
+@Slf4j
+public class PooledJmsConnection {
+    private static final ExecutorService EXECUTOR = Executors.newCachedThreadPool();
+    private static final int START_ATTEMPTS = 3;
+
+    @Getter
+    private final ConnectionFactory factory;
+    @Getter
+    private final Connection connection;
+    private final PortForwardRegistry.Lease portForward;
+    // destination -> session with producer
+    private final Map<String, CachedProducer> producers = new ConcurrentHashMap<>();
+    private volatile boolean broken = false;
+    private volatile long lastUsed = System.currentTimeMillis();
+
+    PooledJmsConnection(ConnectionFactory factory, PortForwardRegistry.Lease portForward) {
+        this.factory = factory;
+        this.portForward = portForward;
+        this.connection = start(factory);
+        try {
+            connection.setExceptionListener(e -> {
+                log.warn("Pooled JMS connection failed, it will be replaced: {}", e.getMessage());
+                broken = true;
+            });
+        } catch (JMSException e) {
+            close();
+            throw new IllegalStateException("Unable to set exception listener on the JMS connection", e);
+        }
+    }
+
+    /**
+     * Sends the message using the cached producer for the destination.
+     *
+     * @param queue true for queue, false for topic
+     * @param destinationName destination name
+     * @param payload message, string or serializable object
+     * @param persistent force the persistent delivery mode, otherwise the default delivery mode of the producer is used
+     * @param timeToLive time to live of the message, 0 for unlimited
+     * @throws JMSException when the message can't be sent, the connection is marked as broken then
+     */
+    public void send(boolean queue, String destinationName, Object payload, boolean persistent, long timeToLive) throws JMSException {
+        touch();
+        final CachedProducer producer = producers.computeIfAbsent((queue ? "queue://" : "topic://") + destinationName, k -> new CachedProducer());
+        synchronized (producer) {
+            try {
+                producer.init(queue, destinationName);
+                final Message message = payload instanceof Message ? (Message) payload : createMessage(producer.session, payload);
+                producer.producer.send(message, persistent ? DeliveryMode.PERSISTENT : producer.producer.getDeliveryMode(),
+                    Message.DEFAULT_PRIORITY, timeToLive);
+            } catch (JMSException e) {
+                broken = true;
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Creates the message using a session of this connection.
+     *
+     * @param payload string, serializable object or null for the empty message
+     * @return message
+     * @throws JMSException when the message can't be created
+     */
+    public Message createMessage(Object payload) throws JMSException {
+        touch();
+        final CachedProducer producer = producers.computeIfAbsent("", k -> new CachedProducer());
+        synchronized (producer) {
+            producer.init(true, null);
+            return createMessage(producer.session, payload);
+        }
+    }
+
+    public boolean isHealthy() {
+        return !broken && portForward.isAlive();
+    }
+
+    public boolean isIdle(long idleTimeout) {
+        return System.currentTimeMillis() - lastUsed > idleTimeout;
+    }
+
+    public void touch() {
+        lastUsed = System.currentTimeMillis();
+    }
+
+    /**
+     * Closes the connection (including all cached sessions) and releases the port-forward.
+     */
+    public void close() {
+        producers.clear();
+        try {
+            if (connection != null) {
+                connection.close();
+            }
+        } catch (JMSException e) {
+            log.debug("Error while closing pooled JMS connection", e);
+        }
+        portForward.close();
+    }
+
+    private static Message createMessage(Session session, Object payload) throws JMSException {
+        if (payload == null) {
+            return session.createMessage();
+        } else if (payload instanceof String) {
+            return session.createTextMessage((String) payload);
+        } else {
+            return session.createObjectMessage((Serializable) payload);
+        }
+    }
+
+    private static Connection start(ConnectionFactory factory) {
+        for (int attempt = 1; attempt <= START_ATTEMPTS; attempt++) {
+            Connection connection = null;
+            try {
+                connection = factory.createConnection();
+                final Connection toStart = connection;
+                final Future<?> future = EXECUTOR.submit(() -> {
+                    toStart.start();
+                    return null;
+                });
+                future.get(15, TimeUnit.SECONDS);
+                return connection;
+            } catch (JMSException | ExecutionException | TimeoutException e) {
+                log.warn("Unable to start JMS connection, {} attempts remaining", START_ATTEMPTS - attempt);
+                log.debug("Exception: ", e);
+                closeQuietly(connection);
+                TestUtils.sleepIgnoreInterrupt(2000L * attempt);
+            } catch (InterruptedException e) {
+                closeQuietly(connection);
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        throw new IllegalStateException("Unable to start JMS connection, see logs for errors.");
+    }
+
+    private static void closeQuietly(Connection connection) {
+        try {
+            if (connection != null) {
+                connection.close();
+            }
+        } catch (JMSException e) {
+            log.debug("Error while closing JMS connection", e);
+        }
+    }
+
+    /**
+     * Session with the producer for one destination, sessions are single-threaded, so it must be used only when holding its lock.
+     */
+    private class CachedProducer {
+        private Session session;
+        private MessageProducer producer;
+
+        private void init(boolean queue, String destinationName) throws JMSException {
+            if (session == null) {
+                session = connection.createSession(false, Session.AUTO_ACKNOWLEDGE);
+            }
+            if (producer == null && destinationName != null) {
+                final Destination destination = queue ? session.createQueue(destinationName) : session.createTopic(destinationName);
+                producer = session.createProducer(destination);
+            }
+        }
+    }
+}
@@ -0,0 +1,286 @@
+package io.syndesis.qe.utils;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+
+import io.fabric8.kubernetes.api.model.Pod;
+import io.fabric8.kubernetes.client.LocalPortForward;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Shares the port-forwards to the pods and services in the cluster.
+ * <p>
+ * There is at most one port-forward for each target and remote port, the users get a {@link Lease} and release it by closing it.
+ * The local port is chosen automatically, unless the user needs a fixed one (for example FTP data ports announced by the server).
+ * When the port-forward is re-created, it is bound to the same local port again if possible, so the clients configured with the
+ * local port keep working.
+ * <p>
+ * A background monitor re-creates the dead port-forwards that are in use and closes and forgets the ones not used for 5 minutes, so
+ * the port-forwards to the pods that were restarted meanwhile don't stay in the registry.
+ */
+@Slf4j
+public final class PortForwardRegistry {
+    private static final long MONITOR_INTERVAL_SECONDS = 5L;
+    private static final long IDLE_TIMEOUT = TimeUnit.MINUTES.toMillis(5);
+    private static final Map<String, Forward> FORWARDS = new ConcurrentHashMap<>();
+    private static final ScheduledExecutorService MONITOR = Executors.newSingleThreadScheduledExecutor(r -> {
+        final Thread t = new Thread(r, "port-forward-monitor");
+        t.setDaemon(true);
+        return t;
+    });
+
+    static {
+        MONITOR.scheduleWithFixedDelay(PortForwardRegistry::monitor, MONITOR_INTERVAL_SECONDS, MONITOR_INTERVAL_SECONDS, TimeUnit.SECONDS);
+        Runtime.getRuntime().addShutdownHook(new Thread(PortForwardRegistry::closeAll));
+    }
+
+    private PortForwardRegistry() {
+    }
+
+    /**
+     * Forwards the port of any pod with the given label, the pod is looked up again when the port-forward is re-created.
+     *
+     * @param labelName label name
+     * @param labelValue label value
+     * @param remotePort port in the pod
+     * @return lease
+     */
+    public static Lease forPodWithLabel(String labelName, String labelValue, int remotePort) {
+        return forPodWithLabel(labelName, labelValue, remotePort, 0);
+    }
+
+    /**
+     * Forwards the port of any pod with the given label to the fixed local port.
+     *
+     * @param labelName label name
+     * @param labelValue label value
+     * @param remotePort port in the pod
+     * @param localPort local port, 0 to choose automatically
+     * @return lease
+     */
+    public static Lease forPodWithLabel(String labelName, String labelValue, int remotePort, int localPort) {
+        return lease("pod[" + labelName + "=" + labelValue + "]:" + remotePort, localPort,
+            () -> OpenShiftUtils.getInstance().getAnyPod(labelName, labelValue), remotePort);
+    }
+
+    /**
+     * Forwards the port of the given pod.
+     *
+     * @param pod pod
+     * @param remotePort port in the pod
+     * @return lease
+     */
+    public static Lease forPod(Pod pod, int remotePort) {
+        return forPod(pod, remotePort, 0);
+    }
+
+    /**
+     * Forwards the port of the given pod to the fixed local port.
+     *
+     * @param pod pod
+     * @param remotePort port in the pod
+     * @param localPort local port, 0 to choose automatically
+     * @return lease
+     */
+    public static Lease forPod(Pod pod, int remotePort, int localPort) {
+        return lease("pod/" + pod.getMetadata().getName() + ":" + remotePort, localPort, () -> pod, remotePort);
+    }
+
+    /**
+     * Forwards the port of the given service.
+     *
+     * @param serviceName service name
+     * @param remotePort service port
+     * @return lease
+     */
+    public static Lease forService(String serviceName, int remotePort) {
+        return lease("service/" + serviceName + ":" + remotePort, 0,
+            port -> OpenShiftUtils.getInstance().services().withName(serviceName).portForward(remotePort, port));
+    }
+
+    /**
+     * Closes all port-forwards, the leases still in use re-create them when used again.
+     */
+    public static void closeAll() {
+        FORWARDS.values().forEach(Forward::close);
+    }
+
+    private static Lease lease(String key, int localPort, Supplier<Pod> pod, int remotePort) {
+        return lease(key, localPort, port -> OpenShiftUtils.portForward(pod.get(), remotePort, port));
+    }
+
+    private static Lease lease(String key, int localPort, IntFunction<LocalPortForward> factory) {
+        while (true) {
+            final Forward forward = FORWARDS.computeIfAbsent(key, k -> new Forward(k, localPort, factory));
+            if (localPort != 0 && forward.preferredPort != localPort) {
+                throw new IllegalStateException(key + " is already forwarded to local port " + forward.preferredPort);
+            }
+            final Lease lease = forward.acquire();
+            if (lease != null) {
+                return lease;
+            }
+            // The monitor removed the unused port-forward meanwhile, the next round creates a new one
+        }
+    }
+
+    private static void monitor() {
+        final long now = System.currentTimeMillis();
+        for (Forward forward : FORWARDS.values()) {
+            try {
+                forward.check(now);
+            } catch (RuntimeException e) {
+                log.warn("Unable to re-create port-forward {}: {}", forward.key, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * One port-forward shared by all its leases.
+     */
+    private static final class Forward {
+        private final String key;
+        // the fixed local port, or 0 when the local port was chosen automatically
+        private final int preferredPort;
+        private final IntFunction<LocalPortForward> factory;
+        private LocalPortForward portForward;
+        private int localPort;
+        private int references = 0;
+        private long lastReleased = System.currentTimeMillis();
+        // set when the unused port-forward is removed from the registry, it can't be acquired anymore
+        private boolean removed = false;
+
+        private Forward(String key, int preferredPort, IntFunction<LocalPortForward> factory) {
+            this.key = key;
+            this.preferredPort = preferredPort;
+            this.localPort = preferredPort;
+            this.factory = factory;
+        }
+
+        /**
+         * Acquires the lease of the port-forward.
+         *
+         * @return lease or null when the port-forward was already removed from the registry
+         */
+        private synchronized Lease acquire() {
+            if (removed) {
+                return null;
+            }
+            ensureAlive();
+            references++;
+            return new Lease(this);
+        }
+
+        private synchronized void release() {
+            references--;
+            lastReleased = System.currentTimeMillis();
+        }
+
+        private synchronized int ensureAlive() {
+            if (portForward == null || !portForward.isAlive()) {
+                reconnect();
+            }
+            return localPort;
+        }
+
+        private synchronized void reconnect() {
+            if (removed) {
+                throw new IllegalStateException("Port-forward " + key + " was released");
+            }
+            TestUtils.terminateLocalPortForward(portForward);
+            portForward = null;
+            try {
+                // Try to keep the local port, so that the clients using it don't need to be reconfigured
+                portForward = factory.apply(localPort);
+            } catch (RuntimeException e) {
+                if (preferredPort != 0 || localPort == 0) {
+                    throw e;
+                }
+                log.debug("Local port {} is not available for {}, choosing a new one", localPort, key);
+                portForward = factory.apply(0);
+            }
+            localPort = portForward.getLocalPort();
+            log.debug("Port-forward {} listening on local port {}", key, localPort);
+        }
+
+        private synchronized void check(long now) {
+            if (references > 0) {
+                if (portForward == null || !portForward.isAlive()) {
+                    log.info("Port-forward {} is not alive, re-creating it", key);
+                    reconnect();
+                }
+            } else if (now - lastReleased > IDLE_TIMEOUT) {
+                log.debug("Closing unused port-forward {}", key);
+                close();
+                removed = true;
+                FORWARDS.remove(key, this);
+            }
+        }
+
+        private synchronized void close() {
+            TestUtils.terminateLocalPortForward(portForward);
+            portForward = null;
+        }
+    }
+
+    /**
+     * Usage of the shared port-forward, closing it releases the port-forward.
+     */
+    public static final class Lease implements AutoCloseable {
+        private final Forward forward;
+        @Getter
+        private volatile boolean closed = false;
+
+        private Lease(Forward forward) {
+            this.forward = forward;
+        }
+
+        /**
+         * Gets the local port, the port-forward is re-created first if it is not alive.
+         *
+         * @return local port
+         */
+        public int getLocalPort() {
+            return forward.ensureAlive();
+        }
+
+        public String getLocalUrl(String scheme) {
+            return scheme + "://127.0.0.1:" + getLocalPort();
+        }
+
+        public boolean isAlive() {
+            synchronized (forward) {
+                return !closed && forward.portForward != null && forward.portForward.isAlive();
+            }
+        }
+
+        /**
+         * Re-creates the port-forward, for example when the connections through it fail although it seems alive.
+         */
+        public void reconnect() {
+            forward.reconnect();
+        }
+
+        /**
+         * Closes the shared port-forward and releases this lease. The other leases re-create the port-forward when used again, the
+         * pod is looked up again then.
+         */
+        public void terminate() {
+            forward.close();
+            close();
+        }
+
+        @Override
+        public void close() {
+            if (!closed) {
+                closed = true;
+                forward.release();
+            }
+        }
+    }
+}
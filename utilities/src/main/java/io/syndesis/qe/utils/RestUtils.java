@@ -4,15 +4,21 @@ import static org.junit.Assert.fail;
 
 import io.syndesis.qe.Component;
 import io.syndesis.qe.TestConfiguration;
+import io.syndesis.qe.endpoints.util.RetryingInvocationBuilder;
 import io.syndesis.qe.exceptions.RestClientException;
 import io.syndesis.qe.wait.OpenShiftWaitUtils;
 
 import org.apache.commons.io.IOUtils;
 import org.apache.http.client.HttpClient;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.conn.socket.PlainConnectionSocketFactory;
 import org.apache.http.conn.ssl.NoopHostnameVerifier;
 import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
 import org.apache.http.conn.ssl.TrustStrategy;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
 import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
 import org.apache.http.ssl.SSLContextBuilder;
 import org.jboss.resteasy.client.jaxrs.ResteasyClientBuilder;
 import org.jboss.resteasy.client.jaxrs.engines.ApacheHttpClient43Engine;
@@ -43,7 +49,6 @@ import java.util.Optional;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 
-import io.fabric8.kubernetes.client.LocalPortForward;
 import io.fabric8.openshift.api.model.Route;
 import lombok.extern.slf4j.Slf4j;
 
@@ -54,16 +59,33 @@ import lombok.extern.slf4j.Slf4j;
  */
 @Slf4j
 public final class RestUtils {
+    private static final int MAX_CONNECTIONS = 200;
+    private static final int MAX_CONNECTIONS_PER_ROUTE = 50;
+    private static final long KEEP_ALIVE_MS = 30000L;
+    // Connections to the port-forward may be closed when the forward is re-created, so check them before reuse
+    private static final int VALIDATE_AFTER_INACTIVITY_MS = 2000;
 
-    private static LocalPortForward localPortForward = null;
+    private static PortForwardRegistry.Lease localPortForward = null;
     private static Optional<String> restUrl = Optional.empty();
 
+    // The clients are thread-safe, so one instance of each is shared by all endpoints
+    private static Client sharedClient = null;
+    private static Client sharedWrappedClient = null;
+    private static PoolingHttpClientConnectionManager connectionManager = null;
+
     private RestUtils() {
     }
 
-    public static Client getClient() throws RestClientException {
-        final ResteasyJackson2Provider jackson2Provider = RestUtils.createJackson2Provider(Optional.empty(), Optional.empty());
-        return getClient(jackson2Provider);
+    /**
+     * Gets the shared client with the pooled connections.
+     *
+     * @return client instance
+     */
+    public static synchronized Client getClient() throws RestClientException {
+        if (sharedClient == null) {
+            sharedClient = getClient(RestUtils.createJackson2Provider(Optional.empty(), Optional.empty()));
+        }
+        return sharedClient;
     }
 
     public static Client getInsecureClient() throws RestClientException {
@@ -76,10 +98,17 @@ public final class RestUtils {
         return client;
     }
 
-    public static Client getWrappedClient() throws RestClientException {
-        final ResteasyJackson2Provider jackson2Provider = RestUtils.createJackson2Provider(Optional.of(SerializationFeature.WRAP_ROOT_VALUE),
-            Optional.of(DeserializationFeature.UNWRAP_ROOT_VALUE));
-        return getClient(jackson2Provider);
+    /**
+     * Gets the shared client that wraps/unwraps the root value.
+     *
+     * @return client instance
+     */
+    public static synchronized Client getWrappedClient() throws RestClientException {
+        if (sharedWrappedClient == null) {
+            sharedWrappedClient = getClient(RestUtils.createJackson2Provider(Optional.of(SerializationFeature.WRAP_ROOT_VALUE),
+                Optional.of(DeserializationFeature.UNWRAP_ROOT_VALUE)));
+        }
+        return sharedWrappedClient;
     }
 
     public static Client getClient(ResteasyJackson2Provider jackson2Provider) throws RestClientException {
@@ -114,7 +143,7 @@ public final class RestUtils {
     }
 
     //Required in order to skip certificate validation
-    private static HttpClient createAllTrustingClient() throws RestClientException {
+    private static synchronized HttpClient createAllTrustingClient() throws RestClientException {
         HttpClient httpclient;
         try {
             final SSLContextBuilder builder = new SSLContextBuilder();
@@ -122,11 +151,25 @@ public final class RestUtils {
             final SSLConnectionSocketFactory sslsf = new SSLConnectionSocketFactory(
                 builder.build(),
                 new NoopHostnameVerifier()); // needed to connections to API Provider integrations
+            if (connectionManager == null) {
+                connectionManager = new PoolingHttpClientConnectionManager(RegistryBuilder.<ConnectionSocketFactory>create()
+                    .register("http", PlainConnectionSocketFactory.getSocketFactory())
+                    .register("https", sslsf)
+                    .build());
+                connectionManager.setMaxTotal(MAX_CONNECTIONS);
+                connectionManager.setDefaultMaxPerRoute(MAX_CONNECTIONS_PER_ROUTE);
+                connectionManager.setValidateAfterInactivity(VALIDATE_AFTER_INACTIVITY_MS);
+            }
             httpclient = HttpClients
                 .custom()
-                .setSSLSocketFactory(sslsf)
-                .setMaxConnTotal(1000)
-                .setMaxConnPerRoute(1000)
+                .setConnectionManager(connectionManager)
+                // the manager is shared by the clients, so it must survive closing of one of them
+                .setConnectionManagerShared(true)
+                .setKeepAliveStrategy((response, context) -> {
+                    final long keepAlive = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+                    return keepAlive > 0 ? Math.min(keepAlive, KEEP_ALIVE_MS) : KEEP_ALIVE_MS;
+                })
+                .evictIdleConnections(KEEP_ALIVE_MS, TimeUnit.MILLISECONDS)
                 .build();
         } catch (NoSuchAlgorithmException | KeyStoreException | KeyManagementException e) {
             throw new RestClientException("Cannot create all SSL certificates trusting client", e);
@@ -150,6 +193,9 @@ public final class RestUtils {
             } catch (TimeoutException | InterruptedException e) {
                 fail("Backend is not responding");
             }
+        } else if (localPortForward != null) {
+            // The shared port-forward is re-created when it dies, possibly on a different local port
+            restUrl = Optional.of(localPortForward.getLocalUrl("http"));
         }
         return restUrl.get();
     }
@@ -161,17 +207,16 @@ public final class RestUtils {
     }
 
     public static void setupLocalPortForward() {
-        if (localPortForward == null || !localPortForward.isAlive()) {
+        if (localPortForward == null || localPortForward.isClosed()) {
             log.debug("creating local port forward for pod syndesis-server");
-            localPortForward = TestUtils.createLocalPortForward(Component.SERVER.getName(), 8080, 8080);
             try {
-                restUrl = Optional.of(String
-                    .format("http://%s:%s", localPortForward.getLocalAddress().getLoopbackAddress().getHostName(), localPortForward.getLocalPort()));
-            } catch (IllegalStateException ex) {
-                restUrl = Optional.of(String.format("http://%s:%s", "127.0.0.1", 8080));
+                localPortForward = PortForwardRegistry.forPodWithLabel("syndesis.io/component", Component.SERVER.getName(), 8080);
+            } catch (IllegalArgumentException ex) {
+                throw new IllegalArgumentException(ex.getMessage() + ". Probably Syndesis is not in the namespace.");
             }
-            log.debug("rest endpoint URL: " + restUrl.get());
         }
+        restUrl = Optional.of(localPortForward.getLocalUrl("http"));
+        log.debug("rest endpoint URL: " + restUrl.get());
     }
 
     /**
@@ -179,8 +224,18 @@ public final class RestUtils {
      */
     public static void reset() {
         restUrl = Optional.empty();
-        TestUtils.terminateLocalPortForward(localPortForward);
+        if (localPortForward != null) {
+            // The server pod may be re-created, so the port-forward must be re-created as well
+            localPortForward.terminate();
+        }
         localPortForward = null;
+        RetryingInvocationBuilder.resetCircuitBreaker();
+        synchronized (RestUtils.class) {
+            if (connectionManager != null) {
+                // pooled connections point to the old port-forward
+                connectionManager.closeIdleConnections(0, TimeUnit.MILLISECONDS);
+            }
+        }
     }
 
     /**
@@ -10,33 +10,53 @@ import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Component;
 
 import com.amazonaws.AmazonServiceException;
+import com.amazonaws.SdkClientException;
 import com.amazonaws.auth.AWSCredentials;
 import com.amazonaws.auth.AWSStaticCredentialsProvider;
 import com.amazonaws.auth.BasicAWSCredentials;
+import com.amazonaws.client.builder.AwsClientBuilder;
 import com.amazonaws.regions.Regions;
 import com.amazonaws.services.s3.AmazonS3;
 import com.amazonaws.services.s3.AmazonS3ClientBuilder;
 import com.amazonaws.services.s3.model.Bucket;
-import com.amazonaws.services.s3.model.ObjectListing;
+import com.amazonaws.services.s3.model.DeleteObjectsRequest;
+import com.amazonaws.services.s3.model.ListObjectsV2Request;
+import com.amazonaws.services.s3.model.ListObjectsV2Result;
+import com.amazonaws.services.s3.model.MultiObjectDeleteException;
+import com.amazonaws.services.s3.model.ObjectMetadata;
 import com.amazonaws.services.s3.model.S3ObjectSummary;
+import com.amazonaws.services.s3.transfer.TransferManager;
+import com.amazonaws.services.s3.transfer.TransferManagerBuilder;
 
 import javax.annotation.PreDestroy;
 
-import java.io.BufferedWriter;
-import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.StringWriter;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Optional;
 import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
@@ -52,9 +72,23 @@ import lombok.extern.slf4j.Slf4j;
 @Lazy
 @Component
 public class S3Utils {
+    // Max number of keys in one DeleteObjects request
+    private static final int DELETE_BATCH_SIZE = 1000;
+    private static final int MAX_PARALLEL_DELETES = 4;
+    private static final int DELETE_ATTEMPTS = 3;
+    private static final ThreadPoolExecutor EXECUTOR =
+        new ThreadPoolExecutor(MAX_PARALLEL_DELETES, MAX_PARALLEL_DELETES, 60L, TimeUnit.SECONDS, new LinkedBlockingQueue<>());
+    // Characters with a special meaning in the regular expressions, the listing prefix ends before the first of them
+    private static final Pattern REGEX_META_CHARACTERS = Pattern.compile("[\\\\^$.|?*+()\\[\\]{}]");
+    private static final Pattern REGEX_QUANTIFIERS = Pattern.compile("[?*{]");
+
+    static {
+        EXECUTOR.allowCoreThreadTimeOut(true);
+    }
 
     private final AccountsDirectory accountsDirectory;
     private final AmazonS3 s3client;
+    private TransferManager transferManager;
     // holder for buckets created by this instance
     @Getter
     private Map<String, Bucket> bucketsCreated;
@@ -66,11 +100,18 @@ public class S3Utils {
             s3Account.getProperty("accessKey"), s3Account.getProperty("secretKey")
         );
 
-        s3client = AmazonS3ClientBuilder
+        final AmazonS3ClientBuilder builder = AmazonS3ClientBuilder
             .standard()
-            .withCredentials(new AWSStaticCredentialsProvider(credentials))
-            .withRegion(Regions.valueOf(s3Account.getProperty("region")))
-            .build();
+            .withCredentials(new AWSStaticCredentialsProvider(credentials));
+        // Optional endpoint of a S3-compatible storage, for example a local stand-in for the volume tests
+        if (s3Account.getProperty("endpoint") != null) {
+            builder.withEndpointConfiguration(new AwsClientBuilder.EndpointConfiguration(
+                s3Account.getProperty("endpoint"), Regions.valueOf(s3Account.getProperty("region")).getName()))
+                .withPathStyleAccessEnabled(true);
+        } else {
+            builder.withRegion(Regions.valueOf(s3Account.getProperty("region")));
+        }
+        s3client = builder.build();
         bucketsCreated = new HashMap<>();
     }
 
@@ -104,11 +145,7 @@ public class S3Utils {
 
     public void deleteS3Bucket(String bucketName) {
         try {
-            final ObjectListing bucketObjects = s3client.listObjects(bucketName);
-            for (Iterator<?> iterator = bucketObjects.getObjectSummaries().iterator(); iterator.hasNext();) {
-                final S3ObjectSummary summary = (S3ObjectSummary) iterator.next();
-                s3client.deleteObject(bucketName, summary.getKey());
-            }
+            cleanS3Bucket(bucketName);
             s3client.deleteBucket(bucketName);
             bucketsCreated.remove(bucketName);
         } catch (AmazonServiceException e) {
@@ -124,15 +161,27 @@ public class S3Utils {
      * @param text
      */
     public void createTextFile(String bucketName, String fileName, String text) {
+        s3client.putObject(bucketName, fileName, text);
+    }
+
+    /**
+     * Uploads the content of the stream to the specified S3 bucket. Large content is uploaded in parts in parallel.
+     *
+     * @param bucketName bucket name
+     * @param fileName object key
+     * @param content content, the caller closes it
+     * @param contentLength length of the content, needed to avoid buffering the whole content in memory
+     */
+    public void uploadStream(String bucketName, String fileName, InputStream content, long contentLength) {
+        final ObjectMetadata metadata = new ObjectMetadata();
+        metadata.setContentLength(contentLength);
         try {
-            final File temp = File.createTempFile(fileName, "");
-            temp.deleteOnExit();
-            final BufferedWriter bw = new BufferedWriter(new FileWriter(temp));
-            bw.write(text);
-            bw.close();
-            s3client.putObject(bucketName, fileName, temp);
-        } catch (IOException ex) {
-            log.error("Error with tmp file: " + ex);
+            getTransferManager().upload(bucketName, fileName, content, metadata).waitForCompletion();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            fail("Interrupted while uploading " + fileName + " to s3");
+        } catch (SdkClientException e) {
+            fail("Error uploading " + fileName + " to s3: " + e);
         }
     }
 
@@ -144,17 +193,30 @@ public class S3Utils {
      * @return
      */
     public boolean checkFileExistsInBucket(String bucketName, String fileName) {
+        // The file name is a regular expression, only the keys starting with its literal beginning need to be listed
+        final String prefix = literalPrefix(fileName);
+        try (Stream<S3ObjectSummary> objects = listObjects(bucketName, prefix)) {
+            return objects.map(S3ObjectSummary::getKey).peek(log::debug).anyMatch(key -> key.matches(fileName));
+        }
+    }
 
-        boolean fileExists = false;
-        final ObjectListing objectListing = s3client.listObjects(bucketName);
-        for (S3ObjectSummary os : objectListing.getObjectSummaries()) {
-            log.debug(os.getKey());
-            if (os.getKey().matches(fileName)) {
-                fileExists = true;
-                break;
-            }
+    /**
+     * Gets the beginning of the regular expression that matches only itself.
+     *
+     * @param regex regular expression
+     * @return literal prefix, can be empty
+     */
+    private static String literalPrefix(String regex) {
+        if (regex.contains("|")) {
+            return "";
+        }
+        final Matcher m = REGEX_META_CHARACTERS.matcher(regex);
+        if (!m.find()) {
+            return regex;
         }
-        return fileExists;
+        // The quantifier applies to the preceding character, so that character is not a part of the prefix
+        final int end = REGEX_QUANTIFIERS.matcher(m.group()).matches() ? m.start() - 1 : m.start();
+        return regex.substring(0, Math.max(end, 0));
     }
 
     /**
@@ -187,8 +249,10 @@ public class S3Utils {
     }
 
     public String getFileNameWithPrefix(String bucketName, String prefix) {
-        Optional<S3ObjectSummary> s3Object = s3client.listObjects(bucketName).getObjectSummaries().stream()
-            .filter(os -> os.getKey().startsWith(prefix)).findFirst();
+        Optional<S3ObjectSummary> s3Object;
+        try (Stream<S3ObjectSummary> objects = listObjects(bucketName, prefix)) {
+            s3Object = objects.findFirst();
+        }
         if (!s3Object.isPresent()) {
             fail("Unable to find file with " + prefix + " prefix");
         }
@@ -196,11 +260,102 @@ public class S3Utils {
     }
 
     public int getFileCount(String bucketName) {
-        return s3client.listObjects(bucketName).getObjectSummaries().size();
+        try (Stream<S3ObjectSummary> objects = listObjects(bucketName, null)) {
+            return (int) objects.count();
+        }
     }
 
+    /**
+     * Deletes all objects in the bucket. The keys are deleted in batches of up to 1000 keys, the batches are deleted in parallel
+     * while the next pages are being listed. The keys that failed to be deleted are retried, the method fails when some of them
+     * still can't be deleted.
+     *
+     * @param bucketName bucket name
+     */
     public void cleanS3Bucket(String bucketName) {
-        s3client.listObjects(bucketName).getObjectSummaries().forEach(os -> s3client.deleteObject(bucketName, os.getKey()));
+        final List<CompletableFuture<Void>> deletes = new ArrayList<>();
+        List<DeleteObjectsRequest.KeyVersion> batch = new ArrayList<>(DELETE_BATCH_SIZE);
+        try (Stream<S3ObjectSummary> objects = listObjects(bucketName, null)) {
+            for (Iterator<S3ObjectSummary> it = objects.iterator(); it.hasNext();) {
+                batch.add(new DeleteObjectsRequest.KeyVersion(it.next().getKey()));
+                if (batch.size() == DELETE_BATCH_SIZE || !it.hasNext()) {
+                    final DeleteObjectsRequest request = new DeleteObjectsRequest(bucketName).withKeys(batch).withQuiet(true);
+                    deletes.add(CompletableFuture.runAsync(() -> deleteObjects(request), EXECUTOR));
+                    batch = new ArrayList<>(DELETE_BATCH_SIZE);
+                }
+            }
+        }
+        try {
+            CompletableFuture.allOf(deletes.toArray(new CompletableFuture[0])).join();
+        } catch (CompletionException e) {
+            fail("Unable to clean bucket " + bucketName + ": " + e.getCause().getMessage());
+        }
+    }
+
+    private void deleteObjects(DeleteObjectsRequest request) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                s3client.deleteObjects(request);
+                log.debug("Deleted {} objects from bucket {}", request.getKeys().size(), request.getBucketName());
+                return;
+            } catch (MultiObjectDeleteException e) {
+                final String errors =
+                    e.getErrors().stream().map(err -> err.getKey() + " (" + err.getMessage() + ")").collect(Collectors.joining(", "));
+                if (attempt == DELETE_ATTEMPTS) {
+                    throw new IllegalStateException("Unable to delete " + e.getErrors().size() + " objects: " + errors, e);
+                }
+                log.warn("Unable to delete {} objects from bucket {}, retrying: {}", e.getErrors().size(), request.getBucketName(), errors);
+                // Only the failed keys are deleted again
+                request.setKeys(e.getErrors().stream()
+                    .map(err -> new DeleteObjectsRequest.KeyVersion(err.getKey(), err.getVersionId()))
+                    .collect(Collectors.toList()));
+                TestUtils.sleepIgnoreInterrupt(1000L * attempt);
+            }
+        }
+    }
+
+    /**
+     * Lists the objects in the bucket lazily, the next page is requested when the stream reaches the end of the current one.
+     *
+     * @param bucketName bucket name
+     * @param prefix key prefix, null to list all objects
+     * @return stream of the objects
+     */
+    public Stream<S3ObjectSummary> listObjects(String bucketName, String prefix) {
+        final ListObjectsV2Request request = new ListObjectsV2Request().withBucketName(bucketName).withPrefix(prefix);
+        final Iterator<S3ObjectSummary> pages = new Iterator<S3ObjectSummary>() {
+            private Iterator<S3ObjectSummary> page = null;
+            private ListObjectsV2Result result = null;
+
+            @Override
+            public boolean hasNext() {
+                while (page == null || !page.hasNext()) {
+                    if (result != null && !result.isTruncated()) {
+                        return false;
+                    }
+                    request.setContinuationToken(result == null ? null : result.getNextContinuationToken());
+                    result = s3client.listObjectsV2(request);
+                    page = result.getObjectSummaries().iterator();
+                }
+                return true;
+            }
+
+            @Override
+            public S3ObjectSummary next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return page.next();
+            }
+        };
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(pages, Spliterator.ORDERED | Spliterator.NONNULL), false);
+    }
+
+    private synchronized TransferManager getTransferManager() {
+        if (transferManager == null) {
+            transferManager = TransferManagerBuilder.standard().withS3Client(s3client).build();
+        }
+        return transferManager;
     }
 
     /**
@@ -212,5 +367,9 @@ public class S3Utils {
         for (String bucketName : bucketNames) {
             deleteS3Bucket(bucketName);
         }
+        if (transferManager != null) {
+            // Keep the client, it is not owned by the transfer manager
+            transferManager.shutdownNow(false);
+        }
     }
 }
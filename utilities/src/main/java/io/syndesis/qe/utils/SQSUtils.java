@@ -1,34 +1,69 @@
 package io.syndesis.qe.utils;
 
+import static org.assertj.core.api.Assertions.fail;
+
 import io.syndesis.qe.accounts.Account;
 import io.syndesis.qe.accounts.AccountsDirectory;
 
 import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Component;
 
-import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
 
 import javax.annotation.PostConstruct;
 import javax.annotation.PreDestroy;
 
+import java.net.URI;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 import lombok.extern.slf4j.Slf4j;
 import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
 import software.amazon.awssdk.regions.Region;
 import software.amazon.awssdk.services.sqs.SqsClient;
+import software.amazon.awssdk.services.sqs.SqsClientBuilder;
+import software.amazon.awssdk.services.sqs.model.BatchResultErrorEntry;
+import software.amazon.awssdk.services.sqs.model.ChangeMessageVisibilityBatchRequestEntry;
+import software.amazon.awssdk.services.sqs.model.DeleteMessageBatchRequestEntry;
 import software.amazon.awssdk.services.sqs.model.Message;
 import software.amazon.awssdk.services.sqs.model.PurgeQueueInProgressException;
 import software.amazon.awssdk.services.sqs.model.QueueAttributeName;
 import software.amazon.awssdk.services.sqs.model.QueueDoesNotExistException;
 import software.amazon.awssdk.services.sqs.model.SendMessageBatchRequestEntry;
+import software.amazon.awssdk.services.sqs.model.SendMessageBatchResponse;
 
 @Slf4j
 @Component
 @Lazy
 public class SQSUtils {
+    // Max number of messages in one batch request or received by one request
+    private static final int BATCH_SIZE = 10;
+    // Max time of the long polling allowed by SQS
+    private static final int MAX_WAIT_TIME_SECONDS = 20;
+    private static final int RECEIVERS = 4;
+    private static final int MAX_SEND_RETRIES = 5;
+    private static final long DEFAULT_RECEIVE_TIMEOUT = TimeUnit.MINUTES.toMillis(1);
+    private static final ThreadPoolExecutor EXECUTOR =
+        new ThreadPoolExecutor(2 * RECEIVERS, 2 * RECEIVERS, 60L, TimeUnit.SECONDS, new LinkedBlockingQueue<>());
+
+    static {
+        EXECUTOR.allowCoreThreadTimeOut(true);
+    }
+
     private static String queueUrlPrefix;
     private static String queueArnPrefix;
 
@@ -43,10 +78,18 @@ public class SQSUtils {
         final String region = sqs.getProperty("region").toLowerCase().replaceAll("_", "-");
         final String accountId = sqs.getProperty("accountId");
 
-        client = SqsClient.builder().region(Region.of(region))
-            .credentialsProvider(() -> AwsBasicCredentials.create(sqs.getProperty("accessKey"), sqs.getProperty("secretKey"))).build();
+        final SqsClientBuilder builder = SqsClient.builder().region(Region.of(region))
+            .credentialsProvider(() -> AwsBasicCredentials.create(sqs.getProperty("accessKey"), sqs.getProperty("secretKey")));
 
-        queueUrlPrefix = String.format("https://sqs.%s.amazonaws.com/%s/", region, accountId);
+        // Optional endpoint of a SQS-compatible broker, for example a local stand-in for the volume tests
+        final String endpoint = sqs.getProperty("sqsEndpoint");
+        if (endpoint != null) {
+            builder.endpointOverride(URI.create(endpoint));
+            queueUrlPrefix = String.format("%s/%s/", endpoint.replaceAll("/+$", ""), accountId);
+        } else {
+            queueUrlPrefix = String.format("https://sqs.%s.amazonaws.com/%s/", region, accountId);
+        }
+        client = builder.build();
         queueArnPrefix = String.format("arn:aws:sqs:%s:%s:", region, accountId);
     }
 
@@ -78,6 +121,7 @@ public class SQSUtils {
 
     /**
      * Sends one or more messages as batch message. The messages have generated IDs and the body as specified.
+     * The batches of 10 messages are sent in parallel and the failed entries are retried.
      *
      * @param messageContents bodies of the messages to send
      */
@@ -98,31 +142,169 @@ public class SQSUtils {
             entries.add(builder.build());
         }
 
-        // Send it as a batch of max 10 messages
-        Iterables.partition(entries, 10).forEach(messages ->
-            client.sendMessageBatch(b -> b.queueUrl(getQueueUrl(queueName)).entries(messages).build())
-        );
+        // Send it as batches of max 10 messages
+        if (queueName.endsWith(".fifo")) {
+            // The order of the messages in the group is given by the order of the requests, so they can't be sent in parallel
+            Lists.partition(entries, BATCH_SIZE).forEach(messages -> sendBatch(queueName, messages));
+        } else {
+            join(Lists.partition(entries, BATCH_SIZE).stream()
+                .map(messages -> CompletableFuture.runAsync(() -> sendBatch(queueName, messages), EXECUTOR)));
+        }
     }
 
     /**
-     * Returns all messages. You can get maximum of 10 messages per poll and even then the count of messages returned
-     * seems somewhat random, so repeat until all messages are received
+     * Sends the batch, the failed entries are sent again with a backoff unless the failure was caused by the entry itself.
+     *
+     * @param queueName queue name
+     * @param messages batch of max 10 messages
+     */
+    private void sendBatch(String queueName, List<SendMessageBatchRequestEntry> messages) {
+        List<SendMessageBatchRequestEntry> pending = messages;
+        for (int attempt = 0; !pending.isEmpty(); attempt++) {
+            if (attempt > 0) {
+                TestUtils.sleepIgnoreInterrupt(Math.min(100L << attempt, 5000L));
+            }
+            final List<SendMessageBatchRequestEntry> batch = pending;
+            final SendMessageBatchResponse response =
+                client.sendMessageBatch(b -> b.queueUrl(getQueueUrl(queueName)).entries(batch).build());
+            if (response.failed().isEmpty()) {
+                return;
+            }
+            final List<BatchResultErrorEntry> senderFaults =
+                response.failed().stream().filter(BatchResultErrorEntry::senderFault).collect(Collectors.toList());
+            if (!senderFaults.isEmpty() || attempt == MAX_SEND_RETRIES) {
+                fail("Unable to send " + response.failed().size() + " messages to queue " + queueName + ": " + response.failed());
+            }
+            final Set<String> failed = response.failed().stream().map(BatchResultErrorEntry::id).collect(Collectors.toSet());
+            pending = batch.stream().filter(e -> failed.contains(e.id())).collect(Collectors.toList());
+            log.debug("Retrying {} failed messages to queue {}", pending.size(), queueName);
+        }
+    }
+
+    /**
+     * Returns all messages. The expected count is the approximate number of messages in the queue, the messages are received
+     * until that count is reached or for at most one minute when the estimate is wrong. The messages are not deleted, they are
+     * made visible again when received.
      *
      * @return messages list
      */
     public List<Message> getMessages(String queueName) {
-        final int queueSize = getQueueSize(queueName);
-        List<Message> allMessages = new ArrayList<>();
-
-        while (queueSize != allMessages.size()) {
-            allMessages.addAll(client.receiveMessage(
-                b -> b.queueUrl(getQueueUrl(queueName))
-                    .maxNumberOfMessages(10).attributeNames(QueueAttributeName.ALL)
-                    .build()).messages()
-            );
+        return receiveMessages(queueName, getQueueSize(queueName), DEFAULT_RECEIVE_TIMEOUT, false);
+    }
+
+    /**
+     * Receives the messages using several concurrent long polling receivers, until the given count of messages is received or
+     * the timeout exceeds.
+     * <p>
+     * The extra receivers stop when the missing messages fit into the receive requests of the fewer receivers and the method returns
+     * as soon as the count is reached, without waiting for the long polls still in progress. The messages such polls receive later
+     * are made visible again.
+     *
+     * @param queueName queue name
+     * @param count number of messages to receive
+     * @param timeoutMillis max time to receive the messages
+     * @param delete whether to delete the received messages, otherwise they are made visible again after all are received
+     * @return received messages, can be less than the count when the timeout exceeded
+     */
+    public List<Message> receiveMessages(String queueName, int count, long timeoutMillis, boolean delete) {
+        final long deadline = System.currentTimeMillis() + timeoutMillis;
+        final Map<String, Message> received = new ConcurrentHashMap<>();
+        // guarded by itself together with the finished flag and the deletes
+        final List<Message> ordered = new ArrayList<>();
+        final AtomicBoolean finished = new AtomicBoolean(false);
+        final Queue<CompletableFuture<Void>> deletes = new ConcurrentLinkedQueue<>();
+        final CompletableFuture<Void> done = new CompletableFuture<>();
+
+        // No need for more receivers than the number of receive requests needed
+        final int receivers = Math.min(RECEIVERS, Math.max(1, (count + BATCH_SIZE - 1) / BATCH_SIZE));
+        CompletableFuture.allOf(IntStream.range(0, receivers).mapToObj(i -> CompletableFuture.runAsync(() -> {
+            long remaining;
+            // Receiver i is needed only while more than i receive requests are missing
+            while (!finished.get() && count - received.size() > i * BATCH_SIZE
+                && (remaining = deadline - System.currentTimeMillis()) > 0) {
+                final int waitTime = (int) Math.min(MAX_WAIT_TIME_SECONDS, TimeUnit.MILLISECONDS.toSeconds(remaining));
+                final List<Message> messages = client.receiveMessage(b -> b.queueUrl(getQueueUrl(queueName))
+                    .maxNumberOfMessages(BATCH_SIZE).waitTimeSeconds(waitTime).attributeNames(QueueAttributeName.ALL)
+                    .build()).messages();
+                if (messages.isEmpty()) {
+                    continue;
+                }
+                synchronized (ordered) {
+                    if (finished.get()) {
+                        // Received by the long poll that outlived the call, nobody will get these messages
+                        runLogged("release late messages", () -> releaseMessages(queueName, messages));
+                        return;
+                    }
+                    // The same message can be received again when its visibility timeout expired
+                    messages.stream().filter(m -> received.putIfAbsent(m.messageId(), m) == null).forEach(ordered::add);
+                    if (delete) {
+                        deletes.add(CompletableFuture.runAsync(() -> deleteMessages(queueName, messages), EXECUTOR));
+                    }
+                }
+                if (received.size() >= count) {
+                    done.complete(null);
+                }
+            }
+        }, EXECUTOR)).toArray(CompletableFuture[]::new)).whenComplete((r, e) -> {
+            if (e != null) {
+                done.completeExceptionally(e);
+            } else {
+                done.complete(null);
+            }
+        });
+
+        done.join();
+        final List<Message> result;
+        synchronized (ordered) {
+            finished.set(true);
+            result = new ArrayList<>(ordered);
+        }
+        join(deletes.stream());
+        if (!delete && !result.isEmpty()) {
+            try {
+                releaseMessages(queueName, result);
+            } catch (RuntimeException e) {
+                log.warn("Unable to make the received messages visible again, they become visible after the visibility timeout: {}",
+                    e.getMessage());
+            }
+        }
+        if (result.size() < count) {
+            log.warn("Received only {} of {} expected messages from queue {}", result.size(), count, queueName);
+        }
+        return result;
+    }
+
+    private static void runLogged(String action, Runnable runnable) {
+        CompletableFuture.runAsync(runnable, EXECUTOR).whenComplete((r, e) -> {
+            if (e != null) {
+                log.warn("Unable to {}: {}", action, e.getMessage());
+            }
+        });
+    }
+
+    private void deleteMessages(String queueName, List<Message> messages) {
+        client.deleteMessageBatch(b -> b.queueUrl(getQueueUrl(queueName)).entries(IntStream.range(0, messages.size())
+            .mapToObj(i -> DeleteMessageBatchRequestEntry.builder().id(i + "").receiptHandle(messages.get(i).receiptHandle()).build())
+            .collect(Collectors.toList())).build());
+    }
+
+    /**
+     * Makes the received messages visible to the other consumers immediately.
+     *
+     * @param queueName queue name
+     * @param messages received messages
+     */
+    private void releaseMessages(String queueName, List<Message> messages) {
+        for (List<Message> batch : Lists.partition(messages, BATCH_SIZE)) {
+            client.changeMessageVisibilityBatch(b -> b.queueUrl(getQueueUrl(queueName)).entries(IntStream.range(0, batch.size())
+                .mapToObj(i -> ChangeMessageVisibilityBatchRequestEntry.builder()
+                    .id(i + "").receiptHandle(batch.get(i).receiptHandle()).visibilityTimeout(0).build())
+                .collect(Collectors.toList())).build());
         }
+    }
 
-        return allMessages;
+    private static void join(Stream<CompletableFuture<Void>> futures) {
+        CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).join();
     }
 
     /**
@@ -10,92 +10,113 @@ import org.assertj.core.api.Assertions;
 import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.SQLException;
-import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
 
 import io.fabric8.kubernetes.api.model.Service;
-import io.fabric8.kubernetes.client.LocalPortForward;
 import lombok.extern.slf4j.Slf4j;
 
 /**
  * Nov 15, 2017 Red Hat
+ * <p>
+ * Keeps a {@link DbConnectionPool} for each database type. The connections to the databases in the cluster go through a shared
+ * port-forward from the {@link PortForwardRegistry}, which is re-created transparently when it dies (for example when the database
+ * pod was restarted).
  *
  * @author tplevko@redhat.com, sveres@redhat.com
  */
 @Slf4j
 public class SampleDbConnectionManager {
+    private static final int MIN_IDLE = 1;
+    private static final int MAX_SIZE = 8;
 
-    private static Map<String, DbWrapper> connectionsInfoMap = new HashMap<>();
+    private static Map<String, DbWrapper> connectionsInfoMap = new ConcurrentHashMap<>();
 
-    public static Connection getConnection(String dbType) {
-
-        switch (dbType) {
-            case "postgresql":
-                SampleDbConnectionManager.handlePortForwardDatabases(dbType, 5432, 5432, "syndesis-db", "postgresql");
-                break;
-            case "mysql":
-                SampleDbConnectionManager.handlePortForwardDatabases(dbType, 3306, 3306, "mysql", "mysql");
-                break;
-            case "oracle12":
-                SampleDbConnectionManager.handleExternalDatabases(dbType);
-                break;
-        }
-
-        Assertions.assertThat(connectionsInfoMap).containsKey(dbType);
-        Assertions.assertThat(connectionsInfoMap.get(dbType).getDbConnection()).isNotNull();
-        return connectionsInfoMap.get(dbType).getDbConnection();
+    static {
+        Runtime.getRuntime().addShutdownHook(new Thread(SampleDbConnectionManager::shutdown));
     }
 
-    //    AUXILIARIES:
-    private static void handleExternalDatabases(String dbType) {
-        DbWrapper wrap = SampleDbConnectionManager.getWrap(dbType);
+    /**
+     * Borrows a connection to the given database from the pool, closing the connection returns it to the pool.
+     *
+     * @param dbType postgresql, mysql or oracle12
+     * @return connection
+     */
+    public static Connection getConnection(String dbType) {
+        final DbWrapper wrap = connectionsInfoMap.computeIfAbsent(dbType, SampleDbConnectionManager::createWrap);
         try {
-            if (wrap.getDbConnection() == null || wrap.getDbConnection().isClosed()) {
-                Connection dbConnection = SampleDbConnectionManager.createDbConnection(dbType);
-                wrap.setDbConnection(dbConnection);
-                connectionsInfoMap.put(dbType, wrap);
-                Assertions.assertThat(connectionsInfoMap).isNotEmpty();
-            }
+            final Connection connection = wrap.getPool().borrow();
+            Assertions.assertThat(connection).isNotNull();
+            return connection;
         } catch (SQLException ex) {
-            fail("Error when handling external database", ex);
+            fail("Unable to get connection to " + dbType + " database", ex);
         }
+        return null;
     }
 
     public static Connection getConnection() {
         return getConnection("postgresql");
     }
 
+    /**
+     * Returns all borrowed connections to the pools, the pooled connections and port-forwards are kept for the next scenarios.
+     */
     public static void closeConnections() {
-        connectionsInfoMap.forEach((key, value) -> releaseDbWrapper(value));
+        connectionsInfoMap.values().forEach(wrap -> wrap.getPool().releaseAll());
+    }
+
+    /**
+     * Closes all pooled connections and port-forwards.
+     */
+    public static void shutdown() {
+        connectionsInfoMap.values().forEach(SampleDbConnectionManager::releaseDbWrapper);
         connectionsInfoMap.clear();
     }
 
     //AUXILIARIES:
 
-    private static void handlePortForwardDatabases(String dbType, int remotePort, int localPort, String podName, String driver) {
-        //        check whether portForward and connection are alive:
-        DbWrapper wrap = SampleDbConnectionManager.getWrap(dbType);
-        if (wrap.getLocalPortForward() == null || !wrap.getLocalPortForward().isAlive()) {
-            LocalPortForward localPortForward = createLocalPortForward(remotePort, localPort, podName);
-            wrap.setLocalPortForward(localPortForward);
+    private static DbWrapper createWrap(String dbType) {
+        final DbWrapper wrap = new DbWrapper(dbType);
+        switch (dbType) {
+            case "postgresql":
+                wrap.setPool(createPortForwardPool(wrap, 5432, "syndesis-db", "postgresql"));
+                break;
+            case "mysql":
+                wrap.setPool(createPortForwardPool(wrap, 3306, "mysql", "mysql"));
+                break;
+            case "oracle12":
+                wrap.setPool(new DbConnectionPool(dbType, MIN_IDLE, MAX_SIZE, () -> createDbConnection(dbType), () -> { }));
+                break;
+            default:
+                throw new IllegalArgumentException("Unsupported database type " + dbType);
         }
+        return wrap;
+    }
 
-        try {
-            if (wrap.getDbConnection() == null || wrap.getDbConnection().isClosed()) {
-                Connection dbConnection = SampleDbConnectionManager.createDbConnection(wrap.getLocalPortForward(), localPort, driver);
-                wrap.setDbConnection(dbConnection);
-                connectionsInfoMap.put(driver, wrap);
-                Assertions.assertThat(connectionsInfoMap).containsKey(driver);
-                Assertions.assertThat(connectionsInfoMap).containsValue(wrap);
+    private static DbConnectionPool createPortForwardPool(DbWrapper wrap, int remotePort, String podName, String driver) {
+        return new DbConnectionPool(wrap.getDbType(), MIN_IDLE, MAX_SIZE, () -> {
+            final PortForwardRegistry.Lease portForward;
+            synchronized (wrap) {
+                if (wrap.getLocalPortForward() == null || wrap.getLocalPortForward().isClosed()) {
+                    wrap.setLocalPortForward(createLocalPortForward(remotePort, podName));
+                }
+                portForward = wrap.getLocalPortForward();
             }
-        } catch (SQLException ex) {
-            log.error("ERROR: *{}* ", ex);
-        }
+            // the registry re-creates the port-forward when it is not alive
+            return createDbConnection(portForward.getLocalPort(), driver);
+        }, () -> {
+            // The port-forward may be alive, but forwarding to the pod that doesn't exist anymore
+            synchronized (wrap) {
+                if (wrap.getLocalPortForward() != null) {
+                    wrap.getLocalPortForward().reconnect();
+                }
+            }
+        });
     }
 
-    private static Connection createDbConnection(LocalPortForward localPortForward, int localPort, String driver) throws SQLException {
+    private static Connection createDbConnection(int localPort, String driver) throws SQLException {
 
         final Properties props = new Properties();
         if ("mysql".equalsIgnoreCase(driver)) {
@@ -105,13 +126,7 @@ public class SampleDbConnectionManager {
             props.setProperty("user", "sampledb");
         }
 
-        String dbUrl;
-        try {
-            String hostName = localPortForward.getLocalAddress().getLoopbackAddress().getHostName();
-            dbUrl = String.format("jdbc:%s://%s:%s/sampledb", driver, hostName, localPort);
-        } catch (IllegalStateException ex) {
-            dbUrl = String.format("jdbc:%s://%s:%s/sampledb", driver, "127.0.0.1", localPort);
-        }
+        String dbUrl = String.format("jdbc:%s://%s:%s/sampledb", driver, "127.0.0.1", localPort);
         if ("mysql".equalsIgnoreCase(driver)) {
             dbUrl = dbUrl.concat("?useSSL=false");
         }
@@ -119,7 +134,7 @@ public class SampleDbConnectionManager {
         return DriverManager.getConnection(dbUrl, props);
     }
 
-    private static Connection createDbConnection(String dbType) {
+    private static Connection createDbConnection(String dbType) throws SQLException {
 
         final Properties props = new Properties();
 
@@ -133,45 +148,20 @@ public class SampleDbConnectionManager {
         String dbUrl = account.getProperties().get("url");
 
         log.debug("DB endpoint URL: *{}*", dbUrl);
-        try {
-            return DriverManager.getConnection(dbUrl, props);
-        } catch (SQLException e) {
-            fail("Error creating DB connection.", e);
-        }
-        return null;
+        return DriverManager.getConnection(dbUrl, props);
     }
 
-    private static LocalPortForward createLocalPortForward(int remotePort, int localPort, String name) {
+    private static PortForwardRegistry.Lease createLocalPortForward(int remotePort, String name) {
         final Service service = OpenShiftUtils.getInstance().services().list().getItems().stream()
             .filter(s -> s.getMetadata().getName().startsWith(name)).findFirst()
             .orElseThrow(() -> new IllegalArgumentException("No service with name " + name + " found"));
-        return OpenShiftUtils.getInstance().services().withName(service.getMetadata().getName()).portForward(remotePort, localPort);
+        return PortForwardRegistry.forService(service.getMetadata().getName(), remotePort);
     }
 
     private static void releaseDbWrapper(DbWrapper wrap) {
-
-        try {
-            if (wrap.getDbConnection() == null) {
-                log.debug("There was no connection to database created, nothing to close.");
-                return;
-            }
-            if (!wrap.getDbConnection().isClosed()) {
-                wrap.getDbConnection().close();
-            }
-        } catch (SQLException ex) {
-            log.error("Error: " + ex);
+        wrap.getPool().close();
+        if (wrap.getLocalPortForward() != null) {
+            wrap.getLocalPortForward().close();
         }
-
-        TestUtils.terminateLocalPortForward(wrap.getLocalPortForward());
-    }
-
-    private static DbWrapper getWrap(String dbType) {
-        DbWrapper wrap;
-        if (connectionsInfoMap.containsKey(dbType)) {
-            wrap = connectionsInfoMap.get(dbType);
-        } else {
-            wrap = new DbWrapper(dbType);
-        }
-        return wrap;
     }
 }
@@ -0,0 +1,223 @@
+package io.syndesis.qe.utils;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Pool of the sessions to the file transfer servers.
+ * <p>
+ * The sessions idle for a while are checked by the cheap liveness check (for example FTP NOOP) before they are used again. When the
+ * operation fails with an {@link IOException}, the session is discarded and the operation is retried once with another session.
+ *
+ * @param <S> session type
+ */
+@Slf4j
+public class SessionPool<S> {
+    private static final long VALIDATE_AFTER_IDLE = TimeUnit.SECONDS.toMillis(10);
+    private static final long BORROW_TIMEOUT = TimeUnit.MINUTES.toMillis(2);
+
+    /**
+     * Creates a new session.
+     */
+    @FunctionalInterface
+    public interface SessionFactory<S> {
+        S create() throws IOException;
+    }
+
+    /**
+     * Checks if the session is still usable.
+     */
+    @FunctionalInterface
+    public interface SessionValidator<S> {
+        boolean isAlive(S session) throws IOException;
+    }
+
+    /**
+     * Operation using the session.
+     */
+    @FunctionalInterface
+    public interface SessionCallback<S, R> {
+        R apply(S session) throws IOException;
+    }
+
+    @Getter
+    private final String name;
+    private final int maxSize;
+    private final SessionFactory<S> factory;
+    private final SessionValidator<S> validator;
+    private final Consumer<S> closer;
+    private final Deque<IdleSession<S>> idle = new ArrayDeque<>();
+    private final ThreadPoolExecutor executor;
+    private int size = 0;
+
+    public SessionPool(String name, int maxSize, SessionFactory<S> factory, SessionValidator<S> validator, Consumer<S> closer) {
+        this.name = name;
+        this.maxSize = maxSize;
+        this.factory = factory;
+        this.validator = validator;
+        this.closer = closer;
+        this.executor = new ThreadPoolExecutor(maxSize, maxSize, 60L, TimeUnit.SECONDS, new LinkedBlockingQueue<>());
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Runs the operation with a pooled session, the operation is retried once with another session when it fails with an IOException.
+     *
+     * @param callback operation
+     * @param <R> result type
+     * @return result of the operation
+     * @throws IOException when the retried operation failed as well
+     */
+    public <R> R execute(SessionCallback<S, R> callback) throws IOException {
+        try {
+            return executeOnce(callback);
+        } catch (IOException e) {
+            log.debug("{} operation failed ({}), retrying with another session", name, e.getMessage());
+            return executeOnce(callback);
+        }
+    }
+
+    /**
+     * Runs the operations in parallel, at most one operation for each session of the pool at the same time.
+     *
+     * @param callbacks operations
+     * @throws IOException when any of the operations failed
+     */
+    public void executeAll(List<SessionCallback<S, ?>> callbacks) throws IOException {
+        try {
+            CompletableFuture.allOf(callbacks.stream().map(callback -> CompletableFuture.runAsync(() -> {
+                try {
+                    execute(callback);
+                } catch (IOException e) {
+                    throw new CompletionException(e);
+                }
+            }, executor)).toArray(CompletableFuture[]::new)).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Closes all idle sessions.
+     */
+    public synchronized void close() {
+        while (!idle.isEmpty()) {
+            closer.accept(idle.pollFirst().session);
+            size--;
+        }
+        notifyAll();
+    }
+
+    private <R> R executeOnce(SessionCallback<S, R> callback) throws IOException {
+        final S session = borrow();
+        boolean reusable = false;
+        try {
+            final R result = callback.apply(session);
+            reusable = true;
+            return result;
+        } finally {
+            if (reusable) {
+                release(session);
+            } else {
+                discard(session);
+            }
+        }
+    }
+
+    private S borrow() throws IOException {
+        final long deadline = System.currentTimeMillis() + BORROW_TIMEOUT;
+        while (true) {
+            IdleSession<S> candidate = null;
+            synchronized (this) {
+                if (!idle.isEmpty()) {
+                    candidate = idle.pollFirst();
+                } else if (size < maxSize) {
+                    size++;
+                } else {
+                    final long wait = deadline - System.currentTimeMillis();
+                    if (wait <= 0) {
+                        throw new IOException("Session pool " + name + " exhausted, all " + maxSize + " sessions are in use");
+                    }
+                    try {
+                        wait(wait);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new IOException("Interrupted while waiting for a session", e);
+                    }
+                    continue;
+                }
+            }
+            if (candidate == null) {
+                return create();
+            }
+            if (isAlive(candidate)) {
+                return candidate.session;
+            }
+            log.debug("Discarding dead {} session", name);
+            discard(candidate.session);
+        }
+    }
+
+    private S create() throws IOException {
+        try {
+            return factory.create();
+        } catch (IOException | RuntimeException e) {
+            synchronized (this) {
+                size--;
+                notifyAll();
+            }
+            throw e;
+        }
+    }
+
+    private boolean isAlive(IdleSession<S> candidate) {
+        if (System.currentTimeMillis() - candidate.since < VALIDATE_AFTER_IDLE) {
+            return true;
+        }
+        try {
+            return validator.isAlive(candidate.session);
+        } catch (IOException | RuntimeException e) {
+            return false;
+        }
+    }
+
+    private synchronized void release(S session) {
+        idle.addFirst(new IdleSession<>(session));
+        notifyAll();
+    }
+
+    private void discard(S session) {
+        try {
+            closer.accept(session);
+        } catch (RuntimeException e) {
+            log.debug("Error while closing {} session", name, e);
+        }
+        synchronized (this) {
+            size--;
+            notifyAll();
+        }
+    }
+
+    private static final class IdleSession<S> {
+        private final S session;
+        private final long since = System.currentTimeMillis();
+
+        private IdleSession(S session) {
+            this.session = session;
+        }
+    }
+}
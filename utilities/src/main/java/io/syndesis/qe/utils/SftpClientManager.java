@@ -12,7 +12,6 @@ import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
 
-import io.fabric8.kubernetes.client.LocalPortForward;
 import lombok.extern.slf4j.Slf4j;
 import net.schmizz.sshj.SSHClient;
 import net.schmizz.sshj.sftp.SFTPClient;
@@ -25,35 +24,56 @@ import net.schmizz.sshj.transport.verification.PromiscuousVerifier;
  */
 @Slf4j
 public class SftpClientManager {
+    private static final int KEEP_ALIVE_INTERVAL_SECONDS = 15;
 
-    private final String sftpServer = "127.0.0.1";
-    private final int sftpLocalPort = 2222;
+    private String sftpServer = "127.0.0.1";
     private int sftpRemotePort;
     private String sftpPodName;
     private String sftpUser;
     private String sftpPass;
+    // port of the server reachable without the port-forward, 0 when the server runs in the cluster
+    private int directPort = 0;
 
-    private static LocalPortForward localPortForward = null;
+    private static PortForwardRegistry.Lease localPortForward = null;
 
     public SftpClientManager() {
         initProperties();
     }
 
+    /**
+     * Creates the manager for the server reachable directly, for example the embedded SFTP server in the tests.
+     *
+     * @param host server host
+     * @param port server port
+     * @param user user name
+     * @param password password
+     */
+    public SftpClientManager(String host, int port, String user, String password) {
+        sftpServer = host;
+        directPort = port;
+        sftpUser = user;
+        sftpPass = password;
+    }
+
     public SSHClient getSshClient() {
-        if (localPortForward == null || !localPortForward.isAlive()) {
-            localPortForward = OpenShiftUtils.portForward(OpenShiftUtils.getInstance().getAnyPod("app", sftpPodName), sftpRemotePort,
-                sftpLocalPort);
+        if (directPort != 0) {
+            return initSshClient();
+        }
+        synchronized (SftpClientManager.class) {
+            if (localPortForward == null) {
+                localPortForward = PortForwardRegistry.forPodWithLabel("app", sftpPodName, sftpRemotePort);
+            }
         }
         return initSshClient();
     }
 
     public void closeClient(SSHClient sshClient, SFTPClient sftpClient) {
-        TestUtils.terminateLocalPortForward(localPortForward);
+        // the port-forward is kept for the next clients, the registry re-creates it when it dies
         try {
             if (sshClient == null) {
                 return;
             }
-            if (!sshClient.isConnected()) {
+            if (sshClient.isConnected()) {
                 sftpClient.close();
                 sshClient.disconnect();
             }
@@ -65,9 +85,11 @@ public class SftpClientManager {
     private SSHClient initSshClient() {
         SSHClient sshClient = new SSHClient();
         sshClient.addHostKeyVerifier(new PromiscuousVerifier());
+        // Detects the dead connections of the pooled clients without a round-trip from the test
+        sshClient.getConnection().getKeepAlive().setKeepAliveInterval(KEEP_ALIVE_INTERVAL_SECONDS);
         TestUtils.withRetry(() -> {
             try {
-                sshClient.connect(sftpServer, sftpLocalPort);
+                sshClient.connect(sftpServer, directPort != 0 ? directPort : localPortForward.getLocalPort());
                 sshClient.authPassword(sftpUser, sftpPass);
                 log.info("SSH client connected: {}", sshClient.isConnected());
                 return true;
@@ -6,33 +6,72 @@ import io.syndesis.qe.resource.impl.SFTP;
 
 import org.apache.commons.io.IOUtils;
 
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.util.Arrays;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 
 import lombok.extern.slf4j.Slf4j;
 import net.schmizz.sshj.SSHClient;
-import net.schmizz.sshj.sftp.RemoteResourceInfo;
+import net.schmizz.sshj.sftp.OpenMode;
+import net.schmizz.sshj.sftp.RemoteFile;
 import net.schmizz.sshj.sftp.SFTPClient;
 
 @Slf4j
 public class SftpUtils implements FileTansferUtils {
+    private static final int MAX_SESSIONS = 4;
+    // SFTP requests sent without waiting for the responses, so the large transfers are not limited by the round-trip time
+    private static final int MAX_UNCONFIRMED_REQUESTS = 16;
+    // manager and pool of the sessions to the server in the cluster, shared by all instances
+    private static SftpClientManager sharedManager;
+    private static SessionPool<Session> sharedPool;
 
-    private SftpClientManager manager = new SftpClientManager();
-    private SSHClient sshClient = manager.getSshClient();
-    private SFTPClient sftpClient = manager.getSftpClient(sshClient);
+    private final SftpClientManager manager;
+    private final SessionPool<Session> pool;
+
+    public SftpUtils() {
+        synchronized (SftpUtils.class) {
+            if (sharedPool == null) {
+                sharedManager = new SftpClientManager();
+                sharedPool = createPool(sharedManager);
+            }
+            manager = sharedManager;
+            pool = sharedPool;
+        }
+    }
+
+    /**
+     * Creates the utils with their own session pool, for example for the embedded SFTP server in the tests.
+     *
+     * @param manager client manager
+     */
+    public SftpUtils(SftpClientManager manager) {
+        this.manager = manager;
+        this.pool = createPool(manager);
+    }
+
+    /**
+     * Closes the idle sessions of the pool.
+     */
+    public void close() {
+        pool.close();
+    }
 
     public void prepareServerForTest() {
-        checkConnection();
         log.info("Preparing SFTP server for tests");
         try {
-            //0. set 'test' as home folder
-            //not possible - there is no such method in com.hierynomus.sshj, so we have to bypass this.
-            //1. create download / upload folders
-            sftpClient.mkdir("/" + SFTP.TEST_DIRECTORY + "/download");
-            sftpClient.mkdir("/" + SFTP.TEST_DIRECTORY + "/upload");
+            pool.execute(s -> {
+                //0. set 'test' as home folder
+                //not possible - there is no such method in com.hierynomus.sshj, so we have to bypass this.
+                //1. create download / upload folders
+                s.sftp.mkdir("/" + SFTP.TEST_DIRECTORY + "/download");
+                s.sftp.mkdir("/" + SFTP.TEST_DIRECTORY + "/upload");
+                return null;
+            });
         } catch (IOException e) {
             fail("Unable to prepare server", e);
         }
@@ -44,10 +83,12 @@ public class SftpUtils implements FileTansferUtils {
 
     @Override
     public void deleteFile(String path) {
-        checkConnection();
         log.info("Deleting " + path + " from SFTP server");
         try {
-            sftpClient.rm(path);
+            pool.execute(s -> {
+                s.sftp.rm(path);
+                return null;
+            });
         } catch (IOException e) {
             fail("Unable to delete file", path);
         }
@@ -55,12 +96,8 @@ public class SftpUtils implements FileTansferUtils {
 
     @Override
     public boolean isFileThere(String directory, String fileName) {
-        checkConnection();
         try {
-            List<RemoteResourceInfo> directoryContent = sftpClient.ls(directory);
-            RemoteResourceInfo[] itemsArray = new RemoteResourceInfo[directoryContent.size()];
-            itemsArray = directoryContent.toArray(itemsArray);
-            return Arrays.stream(itemsArray).filter(file -> file.getName().equals(fileName)).count() == 1;
+            return pool.execute(s -> s.sftp.statExistence(directory + "/" + fileName) != null);
         } catch (IOException ex) {
             fail("Unable to list files in FTP", ex);
         }
@@ -69,40 +106,89 @@ public class SftpUtils implements FileTansferUtils {
 
     @Override
     public void uploadTestFile(String testFileName, String text, String remoteDirectory) {
-        checkConnection();
         log.info("Uploading file " + testFileName + " with content " + text + " to directory " + remoteDirectory + ". This may take some time");
-        try (FileOutputStream out = new FileOutputStream(testFileName);) {
-            out.write(text.getBytes("UTF-8"));
-            out.close();
-            //uploading file:
-            sftpClient.put(testFileName, remoteDirectory + "/" + testFileName);
+        try {
+            pool.execute(s -> write(s, remoteDirectory + "/" + testFileName,
+                () -> IOUtils.toInputStream(text, StandardCharsets.UTF_8)));
         } catch (IOException ex) {
             fail("Unable to SFTP upload test file: ", ex);
         }
     }
 
+    @Override
+    public void uploadTestFiles(Map<String, String> files, String remoteDirectory) {
+        uploadFiles(files.entrySet().stream().collect(Collectors.toMap(Map.Entry::getKey,
+            file -> () -> IOUtils.toInputStream(file.getValue(), StandardCharsets.UTF_8))), remoteDirectory);
+    }
+
+    @Override
+    public void uploadFiles(Map<String, ContentSource> files, String remoteDirectory) {
+        log.info("Uploading {} files to directory {}", files.size(), remoteDirectory);
+        final List<SessionPool.SessionCallback<Session, ?>> uploads = files.entrySet().stream()
+            .map(file -> (SessionPool.SessionCallback<Session, ?>) s -> write(s, remoteDirectory + "/" + file.getKey(), file.getValue()))
+            .collect(Collectors.toList());
+        try {
+            pool.executeAll(uploads);
+        } catch (IOException ex) {
+            fail("Unable to SFTP upload test files: ", ex);
+        }
+    }
+
     @Override
     public String getFileContent(String directory, String fileName) {
-        checkConnection();
+        return readFile(directory, fileName, in -> IOUtils.toString(in, StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public <R> R readFile(String directory, String fileName, ContentReader<R> reader) {
         try {
-            sftpClient.get(directory + "/" + fileName, fileName);
-            FileInputStream inputStream = new FileInputStream(fileName);
-            return IOUtils.toString(inputStream, "utf-8");
-        } catch (Exception ex) {
-            fail("Unable to read SFTP file " + directory + "/" + fileName);
+            return pool.execute(s -> {
+                try (RemoteFile file = s.sftp.open(directory + "/" + fileName);
+                    InputStream in = file.new ReadAheadRemoteFileInputStream(MAX_UNCONFIRMED_REQUESTS)) {
+                    return reader.read(in);
+                }
+            });
+        } catch (IOException ex) {
+            fail("Unable to read SFTP file " + directory + "/" + fileName, ex);
         }
         return null;
     }
 
+    private static boolean write(Session s, String path, ContentSource content) throws IOException {
+        try (RemoteFile file = s.sftp.open(path, EnumSet.of(OpenMode.WRITE, OpenMode.CREAT, OpenMode.TRUNC));
+            OutputStream out = file.new RemoteFileOutputStream(0, MAX_UNCONFIRMED_REQUESTS);
+            InputStream in = content.open()) {
+            IOUtils.copy(in, out);
+        }
+        return true;
+    }
+
+    private static SessionPool<Session> createPool(SftpClientManager manager) {
+        // The ssh keep-alive detects the dead connections, so checking the client state is enough
+        return new SessionPool<>("SFTP", MAX_SESSIONS, () -> openSession(manager),
+            s -> s.ssh.isConnected() && s.ssh.isAuthenticated(), s -> manager.closeClient(s.ssh, s.sftp));
+    }
+
+    private static Session openSession(SftpClientManager manager) throws IOException {
+        final SSHClient ssh = manager.getSshClient();
+        try {
+            return new Session(ssh, ssh.newSFTPClient());
+        } catch (IOException e) {
+            ssh.disconnect();
+            throw e;
+        }
+    }
+
     /**
-     * Sometimes the Connections ends with "FTPConnectionClosedException: Connection closed without indication".
+     * SSH connection with its SFTP client.
      */
-    private void checkConnection() {
-        try {
-            sftpClient.ls(".");
-        } catch (IOException ex) {
-            sshClient = manager.getSshClient();
-            sftpClient = manager.getSftpClient(sshClient);
+    private static final class Session {
+        private final SSHClient ssh;
+        private final SFTPClient sftp;
+
+        private Session(SSHClient ssh, SFTPClient sftp) {
+            this.ssh = ssh;
+            this.sftp = sftp;
         }
     }
 }
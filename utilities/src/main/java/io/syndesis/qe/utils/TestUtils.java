@@ -9,6 +9,7 @@ import io.syndesis.qe.accounts.AccountsDirectory;
 import io.syndesis.qe.endpoints.IntegrationOverviewEndpoint;
 import io.syndesis.qe.model.IntegrationOverview;
 import io.syndesis.qe.utils.dballoc.DBAllocation;
+import io.syndesis.qe.wait.BackoffPoller;
 import io.syndesis.qe.wait.OpenShiftWaitUtils;
 
 import org.apache.commons.io.FileUtils;
@@ -53,20 +54,7 @@ public final class TestUtils {
      */
     public static <T> boolean waitForEvent(Predicate<T> predicate, Supplier<T> supplier, TimeUnit unit, long timeout, TimeUnit sleepUnit,
         long sleepTime) {
-        final long start = System.currentTimeMillis();
-        long elapsed = 0;
-        while (!predicate.test(supplier.get()) && unit.toMillis(timeout) >= elapsed) {
-            try {
-                sleepUnit.sleep(sleepTime);
-            } catch (InterruptedException e) {
-                log.debug("Interupted while sleeping", e);
-            } finally {
-                elapsed = System.currentTimeMillis() - start;
-                System.gc();
-            }
-        }
-
-        return predicate.test(supplier.get());
+        return new BackoffPoller(unit, timeout).fixedInterval(sleepUnit, sleepTime).poll(supplier, predicate).isSuccess();
     }
 
     public static boolean waitForPublishing(IntegrationOverviewEndpoint e, IntegrationOverview i, TimeUnit unit, long timeout) {
@@ -89,15 +77,14 @@ public final class TestUtils {
      */
     public static boolean waitForState(IntegrationOverviewEndpoint e, IntegrationOverview i, IntegrationDeploymentState state, TimeUnit unit,
         long timeout) {
-        return waitForEvent(
-            // integration -> integration.getCurrentStatus().orElse(IntegrationDeploymentState.Pending) == state,
-            integration -> integration.getCurrentState() == state,
-            () -> getIntegration(e, i.getId()).orElse(i),
-            unit,
-            timeout,
-            TimeUnit.SECONDS,
-            10
-        );
+        return new BackoffPoller(unit, timeout)
+            .interval(TimeUnit.SECONDS, 1, 10)
+            .named("Integration " + i.getName() + " state " + state)
+            .poll(
+                () -> getIntegration(e, i.getId()).orElse(i),
+                // integration -> integration.getCurrentStatus().orElse(IntegrationDeploymentState.Pending) == state,
+                integration -> integration.getCurrentState() == state
+            ).isSuccess();
     }
 
     private static Optional<IntegrationOverview> getIntegration(IntegrationOverviewEndpoint e, String integrationId) {
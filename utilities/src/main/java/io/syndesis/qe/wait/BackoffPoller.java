@@ -0,0 +1,181 @@
+package io.syndesis.qe.wait;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Polls a condition with an exponentially growing, jittered interval.
+ * <p>
+ * The first probe is done immediately. After each unsuccessful probe the poller sleeps for the current interval (randomized by the
+ * jitter), which starts at the floor and is multiplied after each probe up to the ceiling. The last probe is always done at the
+ * timeout.
+ * <p>
+ * Each poll returns {@link PollResult} with the number of probes and the time it took to fulfill the condition.
+ */
+@Slf4j
+public class BackoffPoller {
+    private final long timeout;
+    private long floor = 500L;
+    private long ceiling = 10000L;
+    private double multiplier = 2.0;
+    private double jitter = 0.2;
+    private String name = "Condition";
+
+    /**
+     * Creates the poller with the default interval from 500ms to 10s.
+     *
+     * @param unit time unit of the timeout
+     * @param timeout how long to poll
+     */
+    public BackoffPoller(TimeUnit unit, long timeout) {
+        this.timeout = unit.toMillis(timeout);
+    }
+
+    /**
+     * Sets the interval bounds.
+     *
+     * @param unit time unit of the bounds
+     * @param floor first interval
+     * @param ceiling max interval
+     * @return this
+     */
+    public BackoffPoller interval(TimeUnit unit, long floor, long ceiling) {
+        if (floor <= 0 || floor > ceiling) {
+            throw new IllegalArgumentException("Invalid interval bounds: " + floor + " - " + ceiling);
+        }
+        this.floor = unit.toMillis(floor);
+        this.ceiling = unit.toMillis(ceiling);
+        return this;
+    }
+
+    /**
+     * Disables the backoff and the jitter, so that the condition is checked in the given interval.
+     *
+     * @param unit time unit of the interval
+     * @param interval interval
+     * @return this
+     */
+    public BackoffPoller fixedInterval(TimeUnit unit, long interval) {
+        this.floor = unit.toMillis(interval);
+        this.ceiling = this.floor;
+        this.multiplier = 1.0;
+        this.jitter = 0.0;
+        return this;
+    }
+
+    public BackoffPoller multiplier(double multiplier) {
+        if (multiplier < 1.0) {
+            throw new IllegalArgumentException("Multiplier must be >= 1.0");
+        }
+        this.multiplier = multiplier;
+        return this;
+    }
+
+    /**
+     * Sets the jitter, for example 0.2 means that the interval is randomly changed by up to +-20%.
+     *
+     * @param jitter jitter in range from 0 to 1
+     * @return this
+     */
+    public BackoffPoller jitter(double jitter) {
+        if (jitter < 0.0 || jitter >= 1.0) {
+            throw new IllegalArgumentException("Jitter must be in range <0, 1)");
+        }
+        this.jitter = jitter;
+        return this;
+    }
+
+    /**
+     * Sets the name of the condition used in the log messages.
+     *
+     * @param name name
+     * @return this
+     */
+    public BackoffPoller named(String name) {
+        this.name = name;
+        return this;
+    }
+
+    /**
+     * Polls until the condition is true or the timeout exceeds.
+     *
+     * @param condition condition
+     * @return poll result
+     */
+    public PollResult<Boolean> poll(BooleanSupplier condition) {
+        return poll(condition::getAsBoolean, Boolean::booleanValue);
+    }
+
+    /**
+     * Polls until the predicate is true for the supplied value or the timeout exceeds.
+     *
+     * @param supplier supplier of the values to test
+     * @param predicate predicate
+     * @param <T> type of the tested value
+     * @return poll result with the last supplied value
+     */
+    public <T> PollResult<T> poll(Supplier<T> supplier, Predicate<T> predicate) {
+        final long start = System.currentTimeMillis();
+        final long deadline = start + timeout;
+        long interval = floor;
+        int iterations = 0;
+        boolean success;
+        T value;
+
+        while (true) {
+            value = supplier.get();
+            iterations++;
+            success = predicate.test(value);
+
+            final long remaining = deadline - System.currentTimeMillis();
+            if (success || remaining <= 0) {
+                break;
+            }
+
+            try {
+                Thread.sleep(Math.min(jittered(interval), remaining));
+            } catch (InterruptedException e) {
+                log.debug("Interrupted while polling", e);
+                Thread.currentThread().interrupt();
+                break;
+            }
+            interval = Math.min(ceiling, (long) (interval * multiplier));
+        }
+
+        final long elapsed = System.currentTimeMillis() - start;
+        log.debug("{} {} after {} probes in {} ms", name, success ? "fulfilled" : "not fulfilled", iterations, elapsed);
+        return new PollResult<>(success, value, iterations, elapsed);
+    }
+
+    private long jittered(long interval) {
+        if (jitter == 0.0) {
+            return interval;
+        }
+        return Math.max(1L, (long) (interval * (1.0 - jitter + 2 * jitter * ThreadLocalRandom.current().nextDouble())));
+    }
+
+    /**
+     * Result of the poll.
+     *
+     * @param <T> type of the tested value
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class PollResult<T> {
+        // Whether the condition was fulfilled within the timeout
+        private final boolean success;
+        // Last value returned by the supplier
+        private final T lastValue;
+        // Number of the condition probes
+        private final int iterations;
+        // Time to the condition being fulfilled (or to the timeout) in milliseconds
+        private final long elapsed;
+    }
+}
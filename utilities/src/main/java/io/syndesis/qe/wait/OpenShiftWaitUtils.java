@@ -61,91 +61,91 @@ public class OpenShiftWaitUtils {
     }
 
     private static boolean _areExactlyNPodsRunning(Predicate<Pod> podFilter, int n) {
-        return OpenShiftUtils.getInstance().getPods().stream().filter(podFilter).filter(OpenShiftWaitUtils::isPodRunning).count() == n;
+        return PodWatcher.getPods().stream().filter(podFilter).filter(OpenShiftWaitUtils::isPodRunning).count() == n;
     }
 
     private static boolean _areExactlyNPods(Predicate<Pod> podFilter, int n) {
-        return OpenShiftUtils.getInstance().getPods().stream().filter(podFilter).count() == n;
+        return PodWatcher.getPods().stream().filter(podFilter).count() == n;
     }
 
-    public static BooleanSupplier areExactlyNPods(String podPartialName, int n) {
+    public static PodEventCondition areExactlyNPods(String podPartialName, int n) {
         return () -> _areExactlyNPods(pod -> pod.getMetadata().getName().contains(podPartialName), n);
     }
 
     private static boolean _areNPodsReady(Predicate<Pod> podFilter, int n) {
-        return OpenShiftUtils.getInstance().getPods().stream().filter(podFilter).filter(OpenShiftWaitUtils::isPodReady).count() >= n;
+        return PodWatcher.getPods().stream().filter(podFilter).filter(OpenShiftWaitUtils::isPodReady).count() >= n;
     }
 
     private static boolean _areExactlyNPodsReady(Predicate<Pod> podFilter, int n) {
-        return OpenShiftUtils.getInstance().getPods().stream().filter(podFilter).filter(OpenShiftWaitUtils::isPodReady).count() == n;
+        return PodWatcher.getPods().stream().filter(podFilter).filter(OpenShiftWaitUtils::isPodReady).count() == n;
     }
 
     private static boolean hasAnyPodRestarted(Predicate<Pod> podFilter) {
-        return OpenShiftUtils.getInstance().getPods().stream().filter(podFilter).filter(OpenShiftWaitUtils::hasPodRestarted).count() > 0;
+        return PodWatcher.getPods().stream().filter(podFilter).filter(OpenShiftWaitUtils::hasPodRestarted).count() > 0;
     }
 
     public static boolean isAPodReady(Predicate<Pod> podFilter) {
         return _areNPodsReady(podFilter, 1);
     }
 
-    public static BooleanSupplier areExactlyNPodsRunning(final String labelName, final String labelValue, int n) {
+    public static PodEventCondition areExactlyNPodsRunning(final String labelName, final String labelValue, int n) {
         return () -> _areExactlyNPodsRunning(pod -> labelValue.equals(pod.getMetadata().getLabels().get(labelName)), n);
     }
 
-    public static BooleanSupplier areExactlyNPodsRunning(String appName, int n) {
+    public static PodEventCondition areExactlyNPodsRunning(String appName, int n) {
         return () -> _areExactlyNPodsRunning(pod -> appName.equals(pod.getMetadata().getLabels().get("name")), n);
     }
 
-    public static BooleanSupplier isAPodReady(String appName) {
+    public static PodEventCondition isAPodReady(String appName) {
         return () -> isAPodReady(pod -> appName.equals(pod.getMetadata().getLabels().get("name")));
     }
 
-    public static BooleanSupplier isAPodReady(final String labelName, final String labelValue) {
+    public static PodEventCondition isAPodReady(final String labelName, final String labelValue) {
         return () -> isAPodReady(pod -> labelValue.equals(pod.getMetadata().getLabels().get(labelName)));
     }
 
-    public static BooleanSupplier areNPodsReady(String appName, int n) {
+    public static PodEventCondition areNPodsReady(String appName, int n) {
         return () -> _areNPodsReady(pod -> appName.equals(pod.getMetadata().getLabels().get("name")), n);
     }
 
-    public static BooleanSupplier areNPodsReady(final String labelName, final String labelValue, int n) {
+    public static PodEventCondition areNPodsReady(final String labelName, final String labelValue, int n) {
         return () -> _areNPodsReady(pod -> labelValue.equals(pod.getMetadata().getLabels().get(labelName)), n);
     }
 
-    public static BooleanSupplier areExactlyNPodsReady(final String labelName, final String labelValue, int n) {
+    public static PodEventCondition areExactlyNPodsReady(final String labelName, final String labelValue, int n) {
         return () -> _areExactlyNPodsReady(pod -> labelValue.equals(pod.getMetadata().getLabels().get(labelName)), n);
     }
 
-    public static BooleanSupplier areExactlyNPodsReady(String appName, int n) {
+    public static PodEventCondition areExactlyNPodsReady(String appName, int n) {
         return () -> _areExactlyNPodsReady(pod -> appName.equals(pod.getMetadata().getLabels().get("name")), n);
     }
 
-    public static BooleanSupplier areNPodsReady(Predicate<Pod> podFilter, int n) {
+    public static PodEventCondition areNPodsReady(Predicate<Pod> podFilter, int n) {
         return () -> _areNPodsReady(podFilter, n);
     }
 
-    public static BooleanSupplier areNoPodsPresent(final String appName) {
-        return () -> OpenShiftUtils.getInstance().getLabeledPods("syndesis.io/component", appName).size() == 0;
+    public static PodEventCondition areNoPodsPresent(final String appName) {
+        return () -> PodWatcher.getPods().stream().noneMatch(pod -> appName.equals(pod.getMetadata().getLabels().get("syndesis.io/component")));
     }
 
-    public static BooleanSupplier areNoPodsPresent(Predicate<Pod> podFilter) {
-        return () -> OpenShiftUtils.getInstance().getPods().stream().filter(podFilter).count() == 0;
+    public static PodEventCondition areNoPodsPresent(Predicate<Pod> podFilter) {
+        return () -> PodWatcher.getPods().stream().filter(podFilter).count() == 0;
     }
 
-    public static BooleanSupplier hasPodRestarted(String appName) {
+    public static PodEventCondition hasPodRestarted(String appName) {
         return () -> hasAnyPodRestarted(pod -> appName.equals(pod.getMetadata().getLabels().get("name")));
     }
 
-    public static BooleanSupplier hasPodRestarted(final String labelName, final String labelValue) {
+    public static PodEventCondition hasPodRestarted(final String labelName, final String labelValue) {
         return () -> hasAnyPodRestarted(pod -> labelValue.equals(pod.getMetadata().getLabels().get(labelName)));
     }
 
-    public static BooleanSupplier hasPodRestarted(Predicate<Pod> podFilter) {
+    public static PodEventCondition hasPodRestarted(Predicate<Pod> podFilter) {
         return () -> hasAnyPodRestarted(podFilter);
     }
 
-    public static BooleanSupplier hasPodRestartedAtLeastNTimes(Predicate<Pod> podFilter, int n) {
-        return () -> OpenShiftUtils.getInstance().getPods().stream().filter(podFilter)
+    public static PodEventCondition hasPodRestartedAtLeastNTimes(Predicate<Pod> podFilter, int n) {
+        return () -> PodWatcher.getPods().stream().filter(podFilter)
             .filter(p -> OpenShiftWaitUtils.hasPodRestartedAtLeastNTimes(p, n)).count() > 0;
     }
 
@@ -186,12 +186,27 @@ public class OpenShiftWaitUtils {
         throw new TimeoutException();
     }
 
+    /**
+     * Waits until the condition is true.
+     * <p>
+     * When both conditions are {@link PodEventCondition}s, they are re-evaluated as soon as a pod event arrives and the interval is
+     * only the upper bound between two checks.
+     *
+     * @param condition condition to wait for
+     * @param failCondition condition that stops the waiting, can be null
+     * @param interval interval between the checks in milliseconds
+     * @param timeout timeout in milliseconds
+     * @return true if the condition was fulfilled, false if the fail condition was fulfilled
+     */
     public static boolean waitFor(BooleanSupplier condition, BooleanSupplier failCondition, long interval, long timeout)
         throws InterruptedException, TimeoutException {
+        final boolean eventDriven = condition instanceof PodEventCondition && (failCondition == null || failCondition instanceof PodEventCondition);
 
         timeout = System.currentTimeMillis() + timeout;
 
         while (System.currentTimeMillis() < timeout) {
+            // Has to be read before the conditions are evaluated, so that no event is missed
+            final long generation = PodWatcher.generation();
 
             if (failCondition != null && failCondition.getAsBoolean()) {
                 return false;
@@ -201,7 +216,11 @@ public class OpenShiftWaitUtils {
                 return true;
             }
 
-            Thread.sleep(interval);
+            if (eventDriven) {
+                PodWatcher.awaitEvent(generation, Math.min(interval, timeout - System.currentTimeMillis()));
+            } else {
+                Thread.sleep(interval);
+            }
         }
 
         throw new TimeoutException();
@@ -236,7 +255,7 @@ public class OpenShiftWaitUtils {
     }
 
     public static void waitForPodIsReloaded(String podPartialName) throws InterruptedException, TimeoutException {
-        Optional<Pod> pod = OpenShiftUtils.getPodByPartialName(podPartialName);
+        Optional<Pod> pod = getPodByPartialName(podPartialName);
         assertThat(pod.isPresent()).isTrue();
         int currentNr = OpenShiftUtils.extractPodSequenceNr(pod.get());
 
@@ -244,10 +263,10 @@ public class OpenShiftWaitUtils {
         // Var in lambda should be effectively final
         String finalPodPartialName = podPartialName;
         // Wait until there is a pod with higher number
-        waitFor(() -> OpenShiftUtils.getPodByPartialName(finalPodPartialName)
+        waitFor((PodEventCondition) () -> getPodByPartialName(finalPodPartialName)
                 .filter(value -> OpenShiftUtils.extractPodSequenceNr(value) > currentNr).isPresent(),
             10, 60 * 1000 * 10L);
-        waitFor(() -> isPodReady(OpenShiftUtils.getPodByPartialName(finalPodPartialName).get()), 60 * 1000 * 10L);
+        waitFor((PodEventCondition) () -> isPodReady(getPodByPartialName(finalPodPartialName)), 60 * 1000 * 10L);
 
         //There was an issue with meta pod not listening straight after deploying - waiting a bit here
         // UI even gives 60s after integration gets into running state, lets go with 30 here
@@ -263,7 +282,7 @@ public class OpenShiftWaitUtils {
      */
     public static void waitUntilPodAppears(String podPartialName) {
         try {
-            waitFor(() -> isPodPresent(podPartialName), 5 * 60 * 1000);
+            waitFor((PodEventCondition) () -> isPodPresent(podPartialName), 5 * 60 * 1000);
         } catch (TimeoutException | InterruptedException e) {
             InfraFail.fail("Error thrown while checking if pod exists", e);
         } catch (Exception ex) {
@@ -273,8 +292,8 @@ public class OpenShiftWaitUtils {
 
     public static void waitUntilPodIsRunning(String podPartialName) {
         try {
-            waitFor(() -> isPodPresent(podPartialName), 5 * 60 * 1000);
-            waitFor(() -> isPodRunning(podPartialName), 5 * 60 * 1000);
+            waitFor((PodEventCondition) () -> isPodPresent(podPartialName), 5 * 60 * 1000);
+            waitFor((PodEventCondition) () -> isPodRunning(podPartialName), 5 * 60 * 1000);
         } catch (TimeoutException | InterruptedException e) {
             InfraFail.fail("Error thrown while checking if pod exists", e);
         } catch (Exception ex) {
@@ -284,7 +303,7 @@ public class OpenShiftWaitUtils {
 
     public static void waitUntilPodIsDeleted(String podPartialName) {
         try {
-            waitFor(() -> !isPodPresent(podPartialName), 5 * 60 * 1000);
+            waitFor((PodEventCondition) () -> !isPodPresent(podPartialName), 5 * 60 * 1000);
         } catch (TimeoutException | InterruptedException e) {
             InfraFail.fail("Error thrown while checking if pod is not exist", e);
         } catch (Exception ex) {
@@ -293,14 +312,21 @@ public class OpenShiftWaitUtils {
     }
 
     private static boolean isPodPresent(String podPartialName) {
-        return OpenShiftUtils.getPodByPartialName(podPartialName).isPresent();
+        return getPodByPartialName(podPartialName).isPresent();
     }
 
     /**
      * Check whether pod state is running, return false if pod is not present
      */
     private static boolean isPodRunning(String podPartialName) {
-        Optional<Pod> pod = OpenShiftUtils.getPodByPartialName(podPartialName);
+        Optional<Pod> pod = getPodByPartialName(podPartialName);
         return pod.filter(OpenShiftWaitUtils::isPodRunning).isPresent();
     }
+
+    /**
+     * Same as {@link OpenShiftUtils#getPodByPartialName(String)}, but uses the pods from the {@link PodWatcher} cache.
+     */
+    private static Optional<Pod> getPodByPartialName(String partialName) {
+        return OpenShiftUtils.getPodByPartialName(PodWatcher.getPods(), partialName);
+    }
 }
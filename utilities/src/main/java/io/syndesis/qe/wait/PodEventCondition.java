@@ -0,0 +1,13 @@
+package io.syndesis.qe.wait;
+
+import java.util.function.BooleanSupplier;
+
+/**
+ * Wait condition that is evaluated only against the {@link PodWatcher} cache.
+ * <p>
+ * {@link OpenShiftWaitUtils#waitFor(BooleanSupplier, BooleanSupplier, long, long)} re-evaluates these conditions as soon as a pod
+ * event arrives instead of sleeping for the whole interval.
+ */
+@FunctionalInterface
+public interface PodEventCondition extends BooleanSupplier {
+}
@@ -0,0 +1,174 @@
+package io.syndesis.qe.wait;
+
+import io.syndesis.qe.utils.OpenShiftUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import io.fabric8.kubernetes.api.model.Pod;
+import io.fabric8.kubernetes.api.model.PodList;
+import io.fabric8.kubernetes.client.KubernetesClientException;
+import io.fabric8.kubernetes.client.Watch;
+import io.fabric8.kubernetes.client.Watcher;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Local cache of the pods in the test namespace backed by a single shared pod watch.
+ * <p>
+ * The cache is seeded by one LIST call and then kept up-to-date by the watch events, so the wait conditions don't have to list
+ * the whole namespace on every check. Each received event increases the generation counter and wakes up the threads waiting
+ * in {@link #awaitEvent(long, long)}.
+ * <p>
+ * When the watch can't be established (or it was closed by the server), {@link #getPods()} falls back to listing the pods
+ * and the watch is re-created on the next call.
+ */
+@Slf4j
+public final class PodWatcher {
+    // Don't try to re-create the failed watch on every call
+    private static final long RESTART_BACKOFF = 30000L;
+
+    private static final Map<String, Pod> PODS = new ConcurrentHashMap<>();
+    private static final Object EVENT_LOCK = new Object();
+
+    private static long generation = 0L;
+    private static Watch watch = null;
+    private static volatile PodEventWatcher currentWatcher = null;
+    private static long lastFailure = 0L;
+    private static boolean shutdownHookRegistered = false;
+
+    private PodWatcher() {
+    }
+
+    /**
+     * Gets the pods in the namespace from the cache.
+     *
+     * @return list of pods
+     */
+    public static List<Pod> getPods() {
+        if (!ensureStarted()) {
+            return OpenShiftUtils.getInstance().getPods();
+        }
+        return new ArrayList<>(PODS.values());
+    }
+
+    /**
+     * Gets the current generation, that is increased with every pod event.
+     *
+     * @return generation number
+     */
+    public static long generation() {
+        synchronized (EVENT_LOCK) {
+            return generation;
+        }
+    }
+
+    /**
+     * Blocks until a pod event newer than the given generation arrives or the timeout expires.
+     *
+     * @param seenGeneration last generation the caller has seen
+     * @param timeout max time to wait in milliseconds
+     * @throws InterruptedException when interrupted while waiting
+     */
+    public static void awaitEvent(long seenGeneration, long timeout) throws InterruptedException {
+        final long deadline = System.currentTimeMillis() + timeout;
+        synchronized (EVENT_LOCK) {
+            long remaining = timeout;
+            while (generation == seenGeneration && remaining > 0) {
+                EVENT_LOCK.wait(remaining);
+                remaining = deadline - System.currentTimeMillis();
+            }
+        }
+    }
+
+    /**
+     * Closes the watch and clears the cache. The watch is created again when the pods are requested next time.
+     */
+    public static synchronized void stop() {
+        if (watch != null) {
+            Watch toClose = watch;
+            watch = null;
+            currentWatcher = null;
+            toClose.close();
+        }
+        PODS.clear();
+        signal();
+    }
+
+    private static synchronized boolean ensureStarted() {
+        if (watch != null) {
+            return true;
+        }
+        if (System.currentTimeMillis() - lastFailure < RESTART_BACKOFF) {
+            return false;
+        }
+
+        try {
+            final PodList podList = OpenShiftUtils.getInstance().pods().list();
+            PODS.clear();
+            podList.getItems().forEach(pod -> PODS.put(pod.getMetadata().getName(), pod));
+            currentWatcher = new PodEventWatcher();
+            watch = OpenShiftUtils.getInstance().pods()
+                .withResourceVersion(podList.getMetadata().getResourceVersion())
+                .watch(currentWatcher);
+            log.debug("Started pod watch with {} pods in cache", PODS.size());
+        } catch (KubernetesClientException ex) {
+            currentWatcher = null;
+            log.warn("Unable to start pod watch, falling back to listing the pods: {}", ex.getMessage());
+            lastFailure = System.currentTimeMillis();
+            return false;
+        }
+
+        if (!shutdownHookRegistered) {
+            Runtime.getRuntime().addShutdownHook(new Thread(PodWatcher::stop));
+            shutdownHookRegistered = true;
+        }
+        signal();
+        return true;
+    }
+
+    private static synchronized void watchClosed(PodEventWatcher closedWatcher, KubernetesClientException cause) {
+        if (closedWatcher == currentWatcher) {
+            log.debug("Pod watch closed, it will be re-created with the next request: {}", cause == null ? "" : cause.getMessage());
+            currentWatcher = null;
+            watch = null;
+            PODS.clear();
+        }
+        signal();
+    }
+
+    private static void signal() {
+        synchronized (EVENT_LOCK) {
+            generation++;
+            EVENT_LOCK.notifyAll();
+        }
+    }
+
+    private static class PodEventWatcher implements Watcher<Pod> {
+        @Override
+        public void eventReceived(Action action, Pod pod) {
+            if (this != currentWatcher) {
+                // Event from an already replaced watch
+                return;
+            }
+            switch (action) {
+                case ADDED:
+                case MODIFIED:
+                    PODS.put(pod.getMetadata().getName(), pod);
+                    break;
+                case DELETED:
+                    PODS.remove(pod.getMetadata().getName());
+                    break;
+                default:
+                    log.debug("Received {} pod event", action);
+            }
+            signal();
+        }
+
+        @Override
+        public void onClose(KubernetesClientException cause) {
+            watchClosed(this, cause);
+        }
+    }
+}
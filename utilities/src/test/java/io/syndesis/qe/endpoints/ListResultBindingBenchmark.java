@@ -0,0 +1,128 @@
+package io.syndesis.qe.endpoints;
+
+import io.syndesis.common.model.ListResult;
+import io.syndesis.common.model.connection.Connector;
+import io.syndesis.common.util.json.JsonUtils;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.datatype.jdk8.Jdk8Module;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the binding of the list result of the connectors endpoint through the JsonNode, String and the item type, as the
+ * endpoints used to do it, with the streaming binding of {@link AbstractEndpoint#readListResult(InputStream, Class, List)}.
+ * <p>
+ * The payload is the captured connectors response with its items repeated to the given count. Run it by the {@link #main(String[])}
+ * method with the test classpath, the JMH options can be passed as the arguments.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+public class ListResultBindingBenchmark {
+    static final String CONNECTORS = "connectors.json";
+
+    @Param({"3", "300"})
+    private int items;
+
+    private byte[] payload;
+
+    @Setup
+    public void setUp() throws IOException {
+        payload = payload(CONNECTORS, items);
+    }
+
+    @Benchmark
+    public List<Connector> jsonNode() throws IOException {
+        return readThroughJsonNode(payload, Connector.class);
+    }
+
+    @Benchmark
+    public List<Connector> streaming() throws IOException {
+        final List<Connector> connectors = new ArrayList<>();
+        AbstractEndpoint.readListResult(new ByteArrayInputStream(payload), Connector.class, connectors);
+        return connectors;
+    }
+
+    /**
+     * Binds the list result the way the endpoints did before the streaming binding - the response is read as JsonNode, converted to
+     * the String for the list result and each item is written to the String again for the item type.
+     *
+     * @param payload list result
+     * @param type item type
+     * @param <R> item type
+     * @return items
+     * @throws IOException when the payload can't be read
+     */
+    static <R> List<R> readThroughJsonNode(byte[] payload, Class<R> type) throws IOException {
+        final ObjectWriter ow = new ObjectMapper().registerModules(new Jdk8Module()).writer();
+        final JsonNode response = JsonUtils.reader().readTree(new ByteArrayInputStream(payload));
+        final ListResult<?> result = JsonUtils.reader().forType(ListResult.class).readValue(response.toString());
+
+        final List<R> ts = new ArrayList<>();
+        for (Object item : result.getItems()) {
+            ts.add(JsonUtils.reader().forType(type).readValue(ow.writeValueAsString(item)));
+        }
+        return ts;
+    }
+
+    /**
+     * Loads the captured list result with its items repeated to the given count.
+     *
+     * @param resource resource name relative to this class
+     * @param count number of items
+     * @return list result
+     * @throws IOException when the resource can't be read
+     */
+    static byte[] payload(String resource, int count) throws IOException {
+        final ObjectMapper mapper = new ObjectMapper();
+        final ObjectNode captured;
+        try (InputStream in = ListResultBindingBenchmark.class.getResourceAsStream(resource)) {
+            captured = (ObjectNode) mapper.readTree(in);
+        }
+        final ArrayNode capturedItems = (ArrayNode) captured.get("items");
+        final ArrayNode repeated = mapper.createArrayNode();
+        for (int i = 0; i < count; i++) {
+            repeated.add(capturedItems.get(i % capturedItems.size()));
+        }
+        captured.set("items", repeated);
+        captured.put("totalCount", count);
+        return mapper.writeValueAsBytes(captured);
+    }
+
+    public static void main(String[] args) throws CommandLineOptionException, RunnerException {
+        new Runner(new OptionsBuilder()
+            .parent(new CommandLineOptions(args))
+            .include(ListResultBindingBenchmark.class.getSimpleName())
+            .build()).run();
+    }
+}
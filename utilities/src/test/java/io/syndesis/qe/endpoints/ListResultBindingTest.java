@@ -0,0 +1,67 @@
+package io.syndesis.qe.endpoints;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.syndesis.common.model.ListResult;
+import io.syndesis.common.model.connection.Connector;
+import io.syndesis.common.util.json.JsonUtils;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Checks that the streaming binding of the list result gives the same items and total count as the binding through the JsonNode.
+ */
+public class ListResultBindingTest {
+    @Test
+    public void shouldBindCapturedConnectorsLikeJsonNode() throws IOException {
+        final byte[] payload = ListResultBindingBenchmark.payload(ListResultBindingBenchmark.CONNECTORS, 3);
+        final ListResult<?> expected = JsonUtils.reader().forType(ListResult.class).readValue(payload);
+
+        final List<Connector> connectors = new ArrayList<>();
+        final int totalCount = AbstractEndpoint.readListResult(new ByteArrayInputStream(payload), Connector.class, connectors);
+
+        assertThat(totalCount).isEqualTo(expected.getTotalCount()).isEqualTo(3);
+        assertThat(connectors).extracting(c -> c.getId().orElse(null)).containsExactly("sql", "ftp", "timer");
+        assertThat(connectors).isEqualTo(ListResultBindingBenchmark.readThroughJsonNode(payload, Connector.class));
+    }
+
+    @Test
+    public void shouldBindRepeatedConnectorsLikeJsonNode() throws IOException {
+        final byte[] payload = ListResultBindingBenchmark.payload(ListResultBindingBenchmark.CONNECTORS, 300);
+
+        final List<Connector> connectors = new ArrayList<>();
+        final int totalCount = AbstractEndpoint.readListResult(new ByteArrayInputStream(payload), Connector.class, connectors);
+
+        assertThat(totalCount).isEqualTo(300);
+        assertThat(connectors).hasSize(300).isEqualTo(ListResultBindingBenchmark.readThroughJsonNode(payload, Connector.class));
+    }
+
+    @Test
+    public void shouldSkipOtherFieldsOfListResult() throws IOException {
+        final String payload = "{\"kind\":\"list\",\"links\":{\"items\":[{\"id\":\"other\"}]},\"unknown\":[[1],{\"a\":2}],"
+            + "\"items\":[{\"id\":\"timer\",\"name\":\"Timer\"}],\"totalCount\":1}";
+
+        final List<Connector> connectors = new ArrayList<>();
+        final int totalCount = AbstractEndpoint.readListResult(
+            new ByteArrayInputStream(payload.getBytes(StandardCharsets.UTF_8)), Connector.class, connectors);
+
+        assertThat(totalCount).isEqualTo(1);
+        assertThat(connectors).extracting(Connector::getName).containsExactly("Timer");
+    }
+
+    @Test
+    public void shouldReturnMissingTotalCount() throws IOException {
+        final List<Connector> connectors = new ArrayList<>();
+        final int totalCount = AbstractEndpoint.readListResult(
+            new ByteArrayInputStream("{\"items\":[]}".getBytes(StandardCharsets.UTF_8)), Connector.class, connectors);
+
+        assertThat(totalCount).isEqualTo(-1);
+        assertThat(connectors).isEmpty();
+    }
+}
@@ -0,0 +1,80 @@
+package io.syndesis.qe.utils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Drives the {@link FtpUtils} and {@link SftpUtils} against the embedded servers, so that the utils and the
+ * {@link FileTransferLoadGenerator} are checked without a cluster.
+ */
+public class EmbeddedFileTransferServersTest {
+    private static final String DIRECTORY = "transfer";
+
+    @Test
+    public void shouldTransferFilesOverFtp() throws Exception {
+        try (EmbeddedFtpServer server = new EmbeddedFtpServer()) {
+            server.createDirectory(DIRECTORY);
+            final FtpUtils utils = server.createUtils();
+            try {
+                verifyTransfers(utils, server.getRoot());
+            } finally {
+                utils.close();
+            }
+        }
+    }
+
+    @Test
+    public void shouldTransferFilesOverSftp() throws Exception {
+        try (EmbeddedSftpServer server = new EmbeddedSftpServer()) {
+            server.createDirectory(DIRECTORY);
+            final SftpUtils utils = server.createUtils();
+            try {
+                verifyTransfers(utils, server.getRoot());
+            } finally {
+                utils.close();
+            }
+        }
+    }
+
+    private static void verifyTransfers(FileTansferUtils utils, Path root) throws Exception {
+        utils.uploadTestFile("single.txt", "single file content", DIRECTORY);
+        assertThat(root.resolve(DIRECTORY).resolve("single.txt")).hasContent("single file content");
+        assertThat(utils.isFileThere(DIRECTORY, "single.txt")).isTrue();
+        assertThat(utils.isFileThere(DIRECTORY, "missing.txt")).isFalse();
+        assertThat(utils.getFileContent(DIRECTORY, "single.txt")).isEqualTo("single file content");
+
+        final Map<String, String> files = new LinkedHashMap<>();
+        for (int i = 0; i < 10; i++) {
+            files.put("file-" + i + ".txt", "content " + i);
+        }
+        utils.uploadTestFiles(files, DIRECTORY);
+        for (Map.Entry<String, String> file : files.entrySet()) {
+            assertThat(new String(Files.readAllBytes(root.resolve(DIRECTORY).resolve(file.getKey())), StandardCharsets.UTF_8))
+                .isEqualTo(file.getValue());
+        }
+
+        utils.deleteFile(DIRECTORY + "/single.txt");
+        assertThat(utils.isFileThere(DIRECTORY, "single.txt")).isFalse();
+
+        final FileTransferLoadGenerator.TransferReport report = new FileTransferLoadGenerator(utils)
+            .directory(DIRECTORY)
+            .downloaders(2)
+            .run(20, 256 * 1024);
+        assertThat(report.getFiles()).isEqualTo(20);
+        assertThat(report.getBytes()).isEqualTo(20L * 256 * 1024);
+        assertThat(report.getUploadMegabytesPerSecond()).isPositive();
+        assertThat(report.getDownloadMegabytesPerSecond()).isPositive();
+        // The generator deletes its files, only the files uploaded above are left
+        try (Stream<Path> left = Files.list(root.resolve(DIRECTORY))) {
+            assertThat(left.count()).isEqualTo(files.size());
+        }
+    }
+}
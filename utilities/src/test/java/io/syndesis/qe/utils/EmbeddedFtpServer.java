@@ -0,0 +1,116 @@
+package io.syndesis.qe.utils;
+
+import org.apache.ftpserver.FtpServer;
+import org.apache.ftpserver.FtpServerFactory;
+import org.apache.ftpserver.ftplet.FtpException;
+import org.apache.ftpserver.listener.ListenerFactory;
+import org.apache.ftpserver.usermanager.impl.BaseUser;
+import org.apache.ftpserver.usermanager.impl.WritePermission;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Apache FtpServer serving the local directory for running the {@link FtpUtils} and the {@link FileTransferLoadGenerator} locally.
+ * <p>
+ * The server listens only on the loopback interface and has one user with the write permission, whose home is the served directory.
+ */
+@Slf4j
+public class EmbeddedFtpServer implements AutoCloseable {
+    private static final String HOST = "127.0.0.1";
+    private static final String USER = "test";
+    private static final String PASSWORD = "test";
+
+    private final FtpServer server;
+    @Getter
+    private final Path root;
+    @Getter
+    private final int port;
+
+    /**
+     * Starts the server serving the new temporary directory.
+     */
+    public EmbeddedFtpServer() {
+        this(createTempDirectory());
+    }
+
+    /**
+     * Starts the server serving the given directory.
+     *
+     * @param root served directory
+     */
+    public EmbeddedFtpServer(Path root) {
+        this.root = root;
+        this.port = findFreePort();
+
+        final ListenerFactory listener = new ListenerFactory();
+        listener.setServerAddress(HOST);
+        listener.setPort(port);
+
+        final BaseUser user = new BaseUser();
+        user.setName(USER);
+        user.setPassword(PASSWORD);
+        user.setHomeDirectory(root.toAbsolutePath().toString());
+        user.setAuthorities(Collections.singletonList(new WritePermission()));
+
+        final FtpServerFactory factory = new FtpServerFactory();
+        factory.addListener("default", listener.createListener());
+        try {
+            factory.getUserManager().save(user);
+            server = factory.createServer();
+            server.start();
+        } catch (FtpException e) {
+            throw new IllegalStateException("Unable to start embedded FTP server", e);
+        }
+        log.info("Embedded FTP server started on port {} serving {}", port, root);
+    }
+
+    /**
+     * Creates the utils connected to this server, the paths used with the utils are relative to the served directory.
+     *
+     * @return FTP utils with their own session pool
+     */
+    public FtpUtils createUtils() {
+        return new FtpUtils(new FtpClientManager(HOST, port, USER, PASSWORD));
+    }
+
+    /**
+     * Creates the directory in the served directory.
+     *
+     * @param directory directory path relative to the served directory
+     */
+    public void createDirectory(String directory) {
+        try {
+            Files.createDirectories(root.resolve(directory));
+        } catch (IOException e) {
+            throw new IllegalStateException("Unable to create directory " + directory, e);
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop();
+    }
+
+    static Path createTempDirectory() {
+        try {
+            return Files.createTempDirectory("file-transfer");
+        } catch (IOException e) {
+            throw new IllegalStateException("Unable to create temporary directory", e);
+        }
+    }
+
+    static int findFreePort() {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        } catch (IOException e) {
+            throw new IllegalStateException("Unable to find a free port", e);
+        }
+    }
+}
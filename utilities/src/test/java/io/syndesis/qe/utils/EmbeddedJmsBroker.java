@@ -0,0 +1,63 @@
+package io.syndesis.qe.utils;
+
+import org.apache.activemq.ActiveMQConnectionFactory;
+import org.apache.activemq.broker.BrokerService;
+
+import javax.jms.ConnectionFactory;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Non-persistent in-memory ActiveMQ broker for running the JMS clients and the {@link JmsLoadGenerator} locally.
+ */
+@Slf4j
+public class EmbeddedJmsBroker implements AutoCloseable {
+    private final BrokerService broker;
+
+    /**
+     * Starts the broker reachable only from this JVM.
+     *
+     * @param name broker name
+     */
+    public EmbeddedJmsBroker(String name) {
+        this(name, null);
+    }
+
+    /**
+     * Starts the broker that also accepts the connections on the given transport connector.
+     *
+     * @param name broker name
+     * @param connectorUri connector uri, for example tcp://127.0.0.1:61616, can be null
+     */
+    public EmbeddedJmsBroker(String name, String connectorUri) {
+        broker = new BrokerService();
+        broker.setBrokerName(name);
+        broker.setPersistent(false);
+        broker.setUseJmx(false);
+        broker.setUseShutdownHook(true);
+        try {
+            if (connectorUri != null) {
+                broker.addConnector(connectorUri);
+            }
+            broker.start();
+            broker.waitUntilStarted();
+        } catch (Exception e) {
+            throw new IllegalStateException("Unable to start embedded broker " + name, e);
+        }
+        log.info("Embedded JMS broker {} started", name);
+    }
+
+    public ConnectionFactory getConnectionFactory() {
+        return new ActiveMQConnectionFactory("vm://" + broker.getBrokerName() + "?create=false");
+    }
+
+    @Override
+    public void close() {
+        try {
+            broker.stop();
+            broker.waitUntilStopped();
+        } catch (Exception e) {
+            log.warn("Unable to stop embedded broker {}", broker.getBrokerName(), e);
+        }
+    }
+}
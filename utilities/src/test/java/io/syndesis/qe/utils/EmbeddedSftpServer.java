@@ -0,0 +1,97 @@
+package io.syndesis.qe.utils;
+
+import org.apache.sshd.common.file.virtualfs.VirtualFileSystemFactory;
+import org.apache.sshd.server.SshServer;
+import org.apache.sshd.server.keyprovider.SimpleGeneratorHostKeyProvider;
+import org.apache.sshd.server.subsystem.sftp.SftpSubsystemFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Apache MINA SSHD serving the local directory over SFTP for running the {@link SftpUtils} and the {@link FileTransferLoadGenerator}
+ * locally.
+ * <p>
+ * The server listens only on the loopback interface with the host key generated on start and one password-authenticated user, whose
+ * root is the served directory.
+ */
+@Slf4j
+public class EmbeddedSftpServer implements AutoCloseable {
+    private static final String HOST = "127.0.0.1";
+    private static final String USER = "test";
+    private static final String PASSWORD = "test";
+
+    private final SshServer server;
+    @Getter
+    private final Path root;
+
+    /**
+     * Starts the server serving the new temporary directory.
+     */
+    public EmbeddedSftpServer() {
+        this(EmbeddedFtpServer.createTempDirectory());
+    }
+
+    /**
+     * Starts the server serving the given directory.
+     *
+     * @param root served directory
+     */
+    public EmbeddedSftpServer(Path root) {
+        this.root = root;
+        server = SshServer.setUpDefaultServer();
+        server.setHost(HOST);
+        // the port is assigned on start
+        server.setPort(0);
+        server.setKeyPairProvider(new SimpleGeneratorHostKeyProvider());
+        server.setPasswordAuthenticator((user, password, session) -> USER.equals(user) && PASSWORD.equals(password));
+        server.setSubsystemFactories(Collections.singletonList(new SftpSubsystemFactory()));
+        server.setFileSystemFactory(new VirtualFileSystemFactory(root.toAbsolutePath()));
+        try {
+            server.start();
+        } catch (IOException e) {
+            throw new IllegalStateException("Unable to start embedded SFTP server", e);
+        }
+        log.info("Embedded SFTP server started on port {} serving {}", getPort(), root);
+    }
+
+    public int getPort() {
+        return server.getPort();
+    }
+
+    /**
+     * Creates the utils connected to this server, the paths used with the utils are relative to the served directory.
+     *
+     * @return SFTP utils with their own session pool
+     */
+    public SftpUtils createUtils() {
+        return new SftpUtils(new SftpClientManager(HOST, getPort(), USER, PASSWORD));
+    }
+
+    /**
+     * Creates the directory in the served directory.
+     *
+     * @param directory directory path relative to the served directory
+     */
+    public void createDirectory(String directory) {
+        try {
+            Files.createDirectories(root.resolve(directory));
+        } catch (IOException e) {
+            throw new IllegalStateException("Unable to create directory " + directory, e);
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            server.stop();
+        } catch (IOException e) {
+            log.warn("Unable to stop embedded SFTP server", e);
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package io.syndesis.qe.utils;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of the {@link FtpUtils} and {@link SftpUtils} against the embedded servers for the small-file and large-file workloads
+ * of the {@link FileTransferLoadGenerator}.
+ * <p>
+ * One operation is one workload run - all files uploaded, downloaded and deleted. Besides the runs per second, the {@link Transferred}
+ * counters report the files per second and megabytes per second of the runs. Run it by the {@link #main(String[])} method with the
+ * test classpath, for example from the IDE, the JMH options can be passed as the arguments.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 2, time = 10)
+@Measurement(iterations = 5, time = 10)
+public class FileTransferBenchmark {
+    private static final String DIRECTORY = "load";
+
+    @Param({"ftp", "sftp"})
+    private String protocol;
+
+    private AutoCloseable server;
+    private FileTansferUtils utils;
+    private FileTransferLoadGenerator generator;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        if ("ftp".equals(protocol)) {
+            final EmbeddedFtpServer ftp = new EmbeddedFtpServer();
+            ftp.createDirectory(DIRECTORY);
+            server = ftp;
+            utils = ftp.createUtils();
+        } else {
+            final EmbeddedSftpServer sftp = new EmbeddedSftpServer();
+            sftp.createDirectory(DIRECTORY);
+            server = sftp;
+            utils = sftp.createUtils();
+        }
+        generator = new FileTransferLoadGenerator(utils).directory(DIRECTORY);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        if (utils instanceof FtpUtils) {
+            ((FtpUtils) utils).close();
+        } else if (utils instanceof SftpUtils) {
+            ((SftpUtils) utils).close();
+        }
+        server.close();
+    }
+
+    @Benchmark
+    public FileTransferLoadGenerator.TransferReport smallFiles(Transferred transferred) {
+        return transferred.add(generator.runSmallFiles());
+    }
+
+    @Benchmark
+    public FileTransferLoadGenerator.TransferReport largeFiles(Transferred transferred) {
+        return transferred.add(generator.runLargeFiles());
+    }
+
+    /**
+     * Files and megabytes transferred by the runs, reported per second.
+     */
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    @State(Scope.Thread)
+    public static class Transferred {
+        public long files;
+        public double megabytes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            files = 0;
+            megabytes = 0;
+        }
+
+        FileTransferLoadGenerator.TransferReport add(FileTransferLoadGenerator.TransferReport report) {
+            files += report.getFiles();
+            megabytes += report.getBytes() / (1024.0 * 1024);
+            return report;
+        }
+    }
+
+    public static void main(String[] args) throws CommandLineOptionException, RunnerException {
+        new Runner(new OptionsBuilder()
+            .parent(new CommandLineOptions(args))
+            .include(FileTransferBenchmark.class.getSimpleName())
+            .build()).run();
+    }
+}
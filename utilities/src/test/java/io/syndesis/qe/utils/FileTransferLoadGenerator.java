@@ -0,0 +1,213 @@
+package io.syndesis.qe.utils;
+
+import io.syndesis.qe.utils.FileTansferUtils.ContentSource;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.output.NullOutputStream;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Measures the upload and download throughput of the {@link FileTansferUtils} in files per second and megabytes per second.
+ * <p>
+ * The files are uploaded in one {@link FileTansferUtils#uploadFiles(Map, String)} call, then downloaded by the given number of
+ * parallel downloaders (each download is checked for the expected size) and finally deleted. The content is generated and consumed
+ * as a stream, so the large files are never held in memory. The generator works with any utils, the {@link FileTransferBenchmark}
+ * runs it against the {@link EmbeddedFtpServer} and {@link EmbeddedSftpServer}.
+ */
+@Slf4j
+public class FileTransferLoadGenerator {
+    public static final int SMALL_FILES = 1000;
+    public static final int SMALL_FILE_SIZE = 1024;
+    public static final int LARGE_FILES = 5;
+    public static final int LARGE_FILE_SIZE = 50 * 1024 * 1024;
+
+    private final FileTansferUtils utils;
+
+    private String directory = "load";
+    private int downloaders = 4;
+
+    public FileTransferLoadGenerator(FileTansferUtils utils) {
+        this.utils = utils;
+    }
+
+    /**
+     * Sets the remote directory for the files, it must exist.
+     *
+     * @param directory remote directory
+     * @return this
+     */
+    public FileTransferLoadGenerator directory(String directory) {
+        this.directory = directory;
+        return this;
+    }
+
+    public FileTransferLoadGenerator downloaders(int downloaders) {
+        if (downloaders < 1) {
+            throw new IllegalArgumentException("There must be at least one downloader");
+        }
+        this.downloaders = downloaders;
+        return this;
+    }
+
+    /**
+     * Runs the workload of many small files.
+     *
+     * @return transfer report
+     */
+    public TransferReport runSmallFiles() {
+        return run(SMALL_FILES, SMALL_FILE_SIZE);
+    }
+
+    /**
+     * Runs the workload of a few large files.
+     *
+     * @return transfer report
+     */
+    public TransferReport runLargeFiles() {
+        return run(LARGE_FILES, LARGE_FILE_SIZE);
+    }
+
+    /**
+     * Uploads, downloads and deletes the files.
+     *
+     * @param files number of files
+     * @param fileSize size of each file in bytes
+     * @return transfer report
+     */
+    public TransferReport run(int files, int fileSize) {
+        final String runId = UUID.randomUUID().toString();
+        final Map<String, ContentSource> uploads = new LinkedHashMap<>();
+        for (int i = 0; i < files; i++) {
+            uploads.put("load-" + runId + "-" + i + ".txt", () -> new GeneratedContent(fileSize));
+        }
+
+        log.info("Transferring {} files of {} bytes to {} using {} downloaders", files, fileSize, directory, downloaders);
+        final long uploadStart = System.nanoTime();
+        utils.uploadFiles(uploads, directory);
+        final long uploadTime = System.nanoTime() - uploadStart;
+
+        final ExecutorService executor = Executors.newFixedThreadPool(downloaders);
+        final long downloadTime;
+        try {
+            final long downloadStart = System.nanoTime();
+            forEach(executor, uploads.keySet(), fileName -> {
+                final Long downloaded =
+                    utils.readFile(directory, fileName, in -> IOUtils.copyLarge(in, NullOutputStream.NULL_OUTPUT_STREAM));
+                if (downloaded == null || downloaded != fileSize) {
+                    throw new IllegalStateException("Downloaded file " + fileName + " has " + downloaded + " bytes, expected " + fileSize);
+                }
+            });
+            downloadTime = System.nanoTime() - downloadStart;
+            forEach(executor, uploads.keySet(), fileName -> utils.deleteFile(directory + "/" + fileName));
+        } finally {
+            executor.shutdownNow();
+        }
+        final TransferReport report = new TransferReport(files, (long) files * fileSize, uploadTime, downloadTime);
+        log.info("{}", report);
+        return report;
+    }
+
+    private static void forEach(ExecutorService executor, Collection<String> fileNames, Consumer<String> action) {
+        final List<Future<?>> futures = new ArrayList<>();
+        for (String fileName : fileNames) {
+            futures.add(executor.submit(() -> action.accept(fileName)));
+        }
+        try {
+            for (Future<?> f : futures) {
+                f.get();
+            }
+        } catch (Exception e) {
+            throw new IllegalStateException("File transfer load failed", e);
+        }
+    }
+
+    /**
+     * Content of the given size generated while it is read.
+     */
+    private static final class GeneratedContent extends InputStream {
+        private final long size;
+        private long position = 0;
+
+        private GeneratedContent(long size) {
+            this.size = size;
+        }
+
+        @Override
+        public int read() {
+            return position < size ? 'a' + (int) (position++ % 26) : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (position >= size) {
+                return -1;
+            }
+            final int n = (int) Math.min(len, size - position);
+            for (int i = 0; i < n; i++) {
+                b[off + i] = (byte) ('a' + (position++ % 26));
+            }
+            return n;
+        }
+    }
+
+    /**
+     * Result of the transfer run.
+     */
+    @Getter
+    public static class TransferReport {
+        private final int files;
+        private final long bytes;
+        // time of uploading all files in nanos
+        private final long uploadTime;
+        // time of downloading all files in nanos
+        private final long downloadTime;
+
+        TransferReport(int files, long bytes, long uploadTime, long downloadTime) {
+            this.files = files;
+            this.bytes = bytes;
+            this.uploadTime = uploadTime;
+            this.downloadTime = downloadTime;
+        }
+
+        public double getUploadFilesPerSecond() {
+            return perSecond(files, uploadTime);
+        }
+
+        public double getUploadMegabytesPerSecond() {
+            return perSecond(bytes, uploadTime) / (1024 * 1024);
+        }
+
+        public double getDownloadFilesPerSecond() {
+            return perSecond(files, downloadTime);
+        }
+
+        public double getDownloadMegabytesPerSecond() {
+            return perSecond(bytes, downloadTime) / (1024 * 1024);
+        }
+
+        private static double perSecond(long count, long nanos) {
+            return nanos == 0 ? 0 : count * 1e9 / nanos;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("Transferred %d files (%d bytes), upload: %.1f files/s %.2f MB/s, download: %.1f files/s %.2f MB/s",
+                files, bytes, getUploadFilesPerSecond(), getUploadMegabytesPerSecond(), getDownloadFilesPerSecond(),
+                getDownloadMegabytesPerSecond());
+        }
+    }
+}
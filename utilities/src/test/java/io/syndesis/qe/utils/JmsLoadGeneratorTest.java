@@ -0,0 +1,82 @@
+package io.syndesis.qe.utils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.syndesis.qe.utils.JMSUtils.Destination;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import org.HdrHistogram.Histogram;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs the {@link JmsLoadGenerator} against the {@link EmbeddedJmsBroker}.
+ */
+public class JmsLoadGeneratorTest {
+    private static final int MESSAGES = 200;
+    private static final long TIMEOUT = TimeUnit.SECONDS.toMillis(30);
+
+    private EmbeddedJmsBroker broker;
+
+    @Before
+    public void startBroker() {
+        broker = new EmbeddedJmsBroker("load-test");
+    }
+
+    @After
+    public void stopBroker() {
+        broker.close();
+    }
+
+    @Test
+    public void shouldReceiveAllMessagesFromQueue() {
+        try (JmsLoadGenerator generator = new JmsLoadGenerator(broker.getConnectionFactory())
+            .sendTo(Destination.QUEUE, "load")
+            .producers(4)
+            .receiveFrom(Destination.QUEUE, "load", 2)) {
+            verifyReport(generator.run(MESSAGES, TIMEOUT));
+        }
+    }
+
+    @Test
+    public void shouldReceiveAllMessagesSentInBatchesWithRate() {
+        try (JmsLoadGenerator generator = new JmsLoadGenerator(broker.getConnectionFactory())
+            .sendTo(Destination.QUEUE, "batched")
+            .producers(2)
+            .batchSize(10)
+            .rate(1000)
+            .receiveFrom(Destination.QUEUE, "batched", 1)) {
+            final JmsLoadGenerator.LoadReport report = generator.run(MESSAGES, TIMEOUT);
+            verifyReport(report);
+            // 200 messages at 1000 msg/s can't be sent faster than in ~200 ms
+            assertThat(report.getSendTime()).isGreaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(150));
+        }
+    }
+
+    @Test
+    public void shouldReportEachRunSeparately() {
+        try (JmsLoadGenerator generator = new JmsLoadGenerator(broker.getConnectionFactory())
+            .sendTo(Destination.QUEUE, "repeated")
+            .receiveFrom(Destination.QUEUE, "repeated", 1)) {
+            generator.run(MESSAGES, TIMEOUT);
+            verifyReport(generator.run(MESSAGES, TIMEOUT));
+        }
+    }
+
+    private static void verifyReport(JmsLoadGenerator.LoadReport report) {
+        assertThat(report.getSent()).isEqualTo(MESSAGES);
+        assertThat(report.getReceived()).isEqualTo(MESSAGES);
+        assertThat(report.getSendThroughput()).isPositive();
+        assertThat(report.getReceiveThroughput()).isPositive();
+
+        final Histogram latency = report.getLatency();
+        assertThat(latency.getTotalCount()).isEqualTo(MESSAGES);
+        assertThat(latency.getMaxValue()).isPositive();
+        assertThat(latency.getValueAtPercentile(50)).isPositive().isLessThanOrEqualTo(latency.getValueAtPercentile(90));
+        assertThat(latency.getValueAtPercentile(90)).isLessThanOrEqualTo(latency.getValueAtPercentile(99));
+        assertThat(latency.getValueAtPercentile(99)).isLessThanOrEqualTo(latency.getMaxValue());
+    }
+}